@@ -0,0 +1,85 @@
+package cn.emay.superscheduler.benchmark;
+
+import cn.emay.superscheduler.base.TaskInvoker;
+import cn.emay.superscheduler.core.SuperScheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.lang.reflect.Method;
+
+/**
+ * 基准测试公共组件
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 取消的任务立即从队列移除，避免反复调度、取消时队列膨胀影响结果
+     *
+     * @param poolSize 线程数
+     * @return 线程池
+     */
+    static ThreadPoolTaskScheduler newScheduler(int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setThreadNamePrefix("benchmark-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    /**
+     * 编译业务方法调用器
+     *
+     * @param name 方法名
+     * @return 调用器
+     */
+    static TaskInvoker invoker(String name) {
+        Target target = new Target();
+        for (Method method : Target.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return TaskInvoker.compile(target, method);
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    /**
+     * 获取方法上的任务定义
+     *
+     * @param name 方法名
+     * @return 任务定义
+     */
+    static SuperScheduled scheduled(String name) {
+        try {
+            return Target.class.getMethod(name, String.class).getAnnotation(SuperScheduled.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(name, e);
+        }
+    }
+
+    /**
+     * 空业务，只测量调度框架本身的开销
+     */
+    public static class Target {
+
+        private long count;
+
+        public void tick() {
+            count++;
+        }
+
+        public long delay() {
+            count++;
+            return 1000L;
+        }
+
+        @SuperScheduled(fixedDelay = 3600000L, initialDelay = 3600000L, dynamicConcurrentComputeDelay = 1000L)
+        public void work(String sharded) {
+            count++;
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+package cn.emay.superscheduler.benchmark;
+
+import cn.emay.superscheduler.SuperExecutor;
+import cn.emay.superscheduler.base.TaskType;
+import cn.emay.superscheduler.core.ConcurrencySnapshot;
+import cn.emay.superscheduler.core.ConcurrentComputer;
+import cn.emay.superscheduler.core.DesiredConcurrency;
+import cn.emay.superscheduler.task.compute.ComputeConcurrentExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 动态并发计算一个周期的开销<br/>
+ * steady：所需并发数不变，只有收集和比较；rebalance：每个周期十分之一的分片并发数加减1，含任务增删
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComputeBenchmark {
+
+    /**
+     * 分片数量
+     */
+    @Param({"10", "1000", "10000"})
+    public int shards;
+    /**
+     * 并发数变化方式
+     */
+    @Param({"steady", "rebalance"})
+    public String mode;
+
+    private ThreadPoolTaskScheduler scheduler;
+    private SuperExecutor executor;
+    private ComputeConcurrentExecutor compute;
+
+    @Setup
+    public void setup() {
+        scheduler = BenchmarkSupport.newScheduler(1);
+        executor = new SuperExecutor(scheduler);
+        String[] names = new String[shards];
+        for (int i = 0; i < shards; i++) {
+            names[i] = "shard-" + i;
+        }
+        boolean rebalance = "rebalance".equals(mode);
+        ConcurrentComputer computer = new ConcurrentComputer() {
+
+            private boolean flip;
+
+            @Override
+            public Map<String, Integer> compute(Map<String, Integer> concurrent) {
+                flip = rebalance && !flip;
+                Map<String, Integer> need = new HashMap<>(names.length * 2);
+                for (int i = 0; i < names.length; i++) {
+                    need.put(names[i], need(i));
+                }
+                return need;
+            }
+
+            @Override
+            public void compute(ConcurrencySnapshot concurrent, DesiredConcurrency desired) {
+                flip = rebalance && !flip;
+                for (int i = 0; i < names.length; i++) {
+                    desired.set(names[i], need(i));
+                }
+            }
+
+            /**
+             * 每十个分片中的一个在翻转的周期并发数为2
+             */
+            private int need(int index) {
+                return flip && index % 10 == 0 ? 2 : 1;
+            }
+        };
+        compute = new ComputeConcurrentExecutor(executor, "compute", BenchmarkSupport.scheduled("work"), BenchmarkSupport.invoker("work"), TaskType.FIXED_DELAY, computer);
+        compute.compute();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.destroy();
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public void compute() {
+        compute.compute();
+    }
+
+}
@@ -0,0 +1,64 @@
+package cn.emay.superscheduler.benchmark;
+
+import cn.emay.superscheduler.SuperExecutor;
+import cn.emay.superscheduler.task.generate.DynamicDeployTaskGenerate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 动态延时任务每次执行后计算下次执行时间的开销，以及执行加计算的完整周期
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamicTriggerBenchmark {
+
+    private ThreadPoolTaskScheduler scheduler;
+    private Runnable task;
+    private Trigger trigger;
+    private final SimpleTriggerContext context = new SimpleTriggerContext();
+
+    @Setup
+    public void setup() {
+        scheduler = BenchmarkSupport.newScheduler(1);
+        SuperExecutor executor = new SuperExecutor(scheduler);
+        DynamicDeployTaskGenerate generate = new DynamicDeployTaskGenerate(executor, false, "dynamic", SuperExecutor.DEFAULT_SHARDED, BenchmarkSupport.invoker("delay"), 0L);
+        task = generate.getTask();
+        trigger = generate.getTrigger();
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public Date trigger() {
+        return trigger.nextExecutionTime(context);
+    }
+
+    @Benchmark
+    public Date runAndTrigger() {
+        task.run();
+        return trigger.nextExecutionTime(context);
+    }
+
+}
@@ -0,0 +1,96 @@
+package cn.emay.superscheduler.benchmark;
+
+import cn.emay.superscheduler.base.TaskInvoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 业务方法调用开销：反射Method.invoke与预编译的TaskInvoker对比<br/>
+ * tick：无参无返回值；delay：返回long执行间隔；sharded：一个分片参数
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvokerBenchmark {
+
+    private BenchmarkSupport.Target target;
+    private Method tickMethod;
+    private Method delayMethod;
+    private Method workMethod;
+    private Runnable tick;
+    private LongSupplier delay;
+    private Runnable work;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        target = new BenchmarkSupport.Target();
+        tickMethod = BenchmarkSupport.Target.class.getMethod("tick");
+        delayMethod = BenchmarkSupport.Target.class.getMethod("delay");
+        workMethod = BenchmarkSupport.Target.class.getMethod("work", String.class);
+        tick = TaskInvoker.compile(target, tickMethod).bindRunnable("benchmark");
+        delay = TaskInvoker.compile(target, delayMethod).bindDelay("benchmark");
+        work = TaskInvoker.compile(target, workMethod).bindRunnable("benchmark");
+    }
+
+    @Benchmark
+    public Object reflectTick() {
+        return invoke(tickMethod);
+    }
+
+    @Benchmark
+    public void invokerTick() {
+        tick.run();
+    }
+
+    @Benchmark
+    public long reflectDelay() {
+        return (Long) invoke(delayMethod);
+    }
+
+    @Benchmark
+    public long invokerDelay() {
+        return delay.getAsLong();
+    }
+
+    @Benchmark
+    public Object reflectSharded() {
+        return invoke(workMethod, "benchmark");
+    }
+
+    @Benchmark
+    public void invokerSharded() {
+        work.run();
+    }
+
+    /**
+     * 与原SuperExecutor.invokeMethod相同的反射调用，每次调用分配参数数组
+     *
+     * @param method 方法
+     * @param args   参数
+     * @return 返回值
+     */
+    private Object invoke(Method method, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package cn.emay.superscheduler.benchmark;
+
+import cn.emay.superscheduler.SuperExecutor;
+import cn.emay.superscheduler.base.TaskItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多线程同时启动、移除任务时的开销<br/>
+ * same：所有线程操作同一个任务的同一个分片；shard：同一个任务的不同分片；task：不同任务
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ScheduleRemoveBenchmark {
+
+    /**
+     * 线程之间的竞争范围
+     */
+    @Param({"same", "shard", "task"})
+    public String contention;
+
+    private ThreadPoolTaskScheduler scheduler;
+    private SuperExecutor executor;
+    private final AtomicInteger threads = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        scheduler = BenchmarkSupport.newScheduler(1);
+        executor = new SuperExecutor(scheduler);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.destroy();
+        scheduler.shutdown();
+    }
+
+    /**
+     * 每个线程的任务，延时足够长，测量期间不会执行
+     */
+    @State(Scope.Thread)
+    public static class ThreadTask {
+
+        private String name;
+        private String sharded;
+        private TaskItem item;
+
+        @Setup
+        public void setup(ScheduleRemoveBenchmark benchmark) {
+            int index = benchmark.threads.getAndIncrement();
+            name = "task".equals(benchmark.contention) ? "t" + index : "t";
+            sharded = "same".equals(benchmark.contention) ? "s" : "s" + index;
+            item = benchmark.executor.genFixedDelayTask(false, name, sharded, BenchmarkSupport.invoker("tick"), 3600000L, 3600000L);
+        }
+
+    }
+
+    @Benchmark
+    public void scheduleAndRemove(ThreadTask task) {
+        executor.scheduleTask(task.item);
+        executor.removeOneTask(task.name, task.sharded);
+    }
+
+}
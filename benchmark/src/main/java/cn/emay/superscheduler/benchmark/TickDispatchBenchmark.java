@@ -0,0 +1,73 @@
+package cn.emay.superscheduler.benchmark;
+
+import cn.emay.superscheduler.SuperExecutor;
+import cn.emay.superscheduler.metrics.DefaultSchedulerMetrics;
+import cn.emay.superscheduler.task.generate.FixedDelayTaskGenerate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次触发的分发开销：FixedDelayTaskGenerate生成的执行逻辑，含单节点锁检查、指标记录和上下文绑定
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TickDispatchBenchmark {
+
+    /**
+     * 是否记录执行指标
+     */
+    @Param({"false", "true"})
+    public boolean metrics;
+    /**
+     * 是否单节点执行
+     */
+    @Param({"false", "true"})
+    public boolean only;
+
+    private ThreadPoolTaskScheduler scheduler;
+    private Runnable tick;
+
+    @Setup
+    public void setup() {
+        scheduler = BenchmarkSupport.newScheduler(1);
+        SuperExecutor executor = new SuperExecutor(scheduler);
+        if (metrics) {
+            executor.setMetrics(new DefaultSchedulerMetrics());
+        }
+        executor.setOnlyLockName("benchmark");
+        FixedDelayTaskGenerate generate = new FixedDelayTaskGenerate(executor, only, "tick", SuperExecutor.DEFAULT_SHARDED, BenchmarkSupport.invoker("tick"));
+        generate.setPeriod(1000L, false);
+        if (only) {
+            executor.getTaskLock("tick", SuperExecutor.DEFAULT_SHARDED).renew(1L, System.nanoTime() + TimeUnit.DAYS.toNanos(1L));
+        }
+        tick = generate.getRunnable();
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public void tick() {
+        tick.run();
+    }
+
+}
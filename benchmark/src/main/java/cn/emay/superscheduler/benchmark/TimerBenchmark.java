@@ -0,0 +1,92 @@
+package cn.emay.superscheduler.benchmark;
+
+import cn.emay.superscheduler.timer.HashedWheelTaskScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ExecutorConfigurationSupport;
+
+import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大量存活任务时计时器新增、取消任务的开销<br/>
+ * pool：ThreadPoolTaskScheduler(延时队列)；wheel：HashedWheelTaskScheduler(分层时间轮)<br/>
+ * 预先调度指定数量的存活任务，测量期间不会执行，每次操作调度一个随机延时的任务再取消
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimerBenchmark {
+
+    /**
+     * 计时器类型
+     */
+    @Param({"pool", "wheel"})
+    public String timer;
+    /**
+     * 存活任务数量
+     */
+    @Param({"1000", "10000", "100000"})
+    public int live;
+
+    private TaskScheduler scheduler;
+    private final Runnable noop = () -> {
+    };
+
+    @Setup
+    public void setup() {
+        if ("wheel".equals(timer)) {
+            HashedWheelTaskScheduler wheel = new HashedWheelTaskScheduler();
+            wheel.setPoolSize(1);
+            wheel.setTickMillis(10L);
+            wheel.initialize();
+            scheduler = wheel;
+        } else {
+            scheduler = BenchmarkSupport.newScheduler(1);
+        }
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < live; i++) {
+            scheduler.schedule(noop, new Date(now + TimeUnit.HOURS.toMillis(1L) + ThreadLocalRandom.current().nextLong(TimeUnit.HOURS.toMillis(1L))));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((ExecutorConfigurationSupport) scheduler).shutdown();
+    }
+
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        return scheduleAndCancelOnce();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean scheduleAndCancelContended() {
+        return scheduleAndCancelOnce();
+    }
+
+    private boolean scheduleAndCancelOnce() {
+        long delay = TimeUnit.MINUTES.toMillis(1L) + ThreadLocalRandom.current().nextLong(TimeUnit.HOURS.toMillis(2L));
+        ScheduledFuture<?> future = scheduler.schedule(noop, new Date(System.currentTimeMillis() + delay));
+        return future.cancel(false);
+    }
+
+}
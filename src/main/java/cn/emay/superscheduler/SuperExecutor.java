@@ -1,23 +1,61 @@
 package cn.emay.superscheduler;
 
 
+import cn.emay.superscheduler.base.AsyncReschedulingTask;
+import cn.emay.superscheduler.base.AsyncTriggerTask;
+import cn.emay.superscheduler.base.BatchPolicy;
+import cn.emay.superscheduler.base.CircuitBreaker;
+import cn.emay.superscheduler.base.FailureBackoff;
+import cn.emay.superscheduler.base.InFlight;
+import cn.emay.superscheduler.base.LockTable;
+import cn.emay.superscheduler.base.OverlapGuard;
+import cn.emay.superscheduler.base.ParkableTask;
+import cn.emay.superscheduler.base.Permit;
+import cn.emay.superscheduler.base.PhasedTrigger;
+import cn.emay.superscheduler.base.TaskControl;
+import cn.emay.superscheduler.base.TaskInvoker;
+import cn.emay.superscheduler.cluster.ClusterView;
 import cn.emay.superscheduler.base.TaskItem;
+import cn.emay.superscheduler.base.TaskListeners;
+import cn.emay.superscheduler.base.TaskLock;
+import cn.emay.superscheduler.base.TaskRegistry;
 import cn.emay.superscheduler.base.TaskType;
+import cn.emay.superscheduler.core.ConcurrencySnapshot;
+import cn.emay.superscheduler.core.OverlapPolicy;
+import cn.emay.superscheduler.core.SchedulerMetrics;
 import cn.emay.superscheduler.core.SuperScheduled;
+import cn.emay.superscheduler.core.TaskExecutionListener;
 import cn.emay.superscheduler.task.generate.DynamicDeployTaskGenerate;
 import cn.emay.superscheduler.task.generate.FixedDelayTaskGenerate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.config.CronTask;
 import org.springframework.scheduling.config.FixedDelayTask;
 import org.springframework.scheduling.config.FixedRateTask;
+import org.springframework.scheduling.config.Task;
 import org.springframework.scheduling.config.TriggerTask;
+import org.springframework.scheduling.support.CronTrigger;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
 
 /**
  * 业务线程池容器
@@ -31,11 +69,67 @@ public class SuperExecutor {
     /**
      * 动态任务容器
      */
-    private final Map<String, Map<String, List<ScheduledFuture<?>>>> dynamicTasks = new HashMap<>();
+    private final TaskRegistry dynamicTasks = new TaskRegistry();
     /**
-     * 本节点是否竞争到锁
+     * 本节点需要竞争的单节点锁
      */
-    private volatile boolean hasLock = false;
+    private final LockTable lockTable = new LockTable();
+    /**
+     * 全局单节点锁名称
+     */
+    private volatile String onlyLockName;
+    /**
+     * 任务名 -> 任务的锁分组
+     */
+    private final Map<String, String> taskLockKeys = new ConcurrentHashMap<>();
+    /**
+     * 按分片竞争锁的任务
+     */
+    private final Set<String> perShardLockTasks = ConcurrentHashMap.newKeySet();
+    /**
+     * 单节点执行的任务
+     */
+    private final Set<String> lockTasks = ConcurrentHashMap.newKeySet();
+    /**
+     * 任务名 -> 失败退避策略
+     */
+    private final Map<String, FailureBackoff> failureBackoffs = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 熔断器
+     */
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 每次执行的随机抖动比例
+     */
+    private final Map<String, Double> jitters = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 重叠执行控制的生成方法
+     */
+    private final Map<String, Supplier<OverlapGuard>> overlapGuardFactories = new ConcurrentHashMap<>();
+    /**
+     * 任务名+分片 -> 重叠执行控制
+     */
+    private final Map<String, OverlapGuard> overlapGuards = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 批处理策略
+     */
+    private final Map<String, BatchPolicy> batchPolicies = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 分片 -> 批处理任务最近上报的积压量
+     */
+    private final Map<String, Map<String, AtomicLong>> backlogs = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 正在执行的数量
+     */
+    private final Map<String, InFlight> inFlights = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 运行时控制
+     */
+    private final Map<String, TaskControl> taskControls = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 停止时等待执行完毕的时间，单位毫秒
+     */
+    private final Map<String, Long> shutdownTimeouts = new ConcurrentHashMap<>();
     /**
      * 默认的分片
      */
@@ -48,60 +142,570 @@ public class SuperExecutor {
      * 线程池
      */
     private final TaskScheduler taskScheduler;
+    /**
+     * 控制任务(动态并发计算)线程池
+     */
+    private final TaskScheduler controlScheduler;
+    /**
+     * 任务名 -> 任务独立的线程池(舱壁)
+     */
+    private final Map<String, TaskScheduler> taskSchedulers = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 任务执行监听器
+     */
+    private final Map<String, TaskListeners> taskListeners = new ConcurrentHashMap<>();
+    /**
+     * 调度指标记录器
+     */
+    private volatile SchedulerMetrics metrics;
+    /**
+     * 集群视图，未设置集群成员管理时为空
+     */
+    private volatile ClusterView clusterView;
 
     /**
      * @param taskScheduler 线程池
      */
     public SuperExecutor(TaskScheduler taskScheduler) {
+        this(taskScheduler, taskScheduler);
+    }
+
+    /**
+     * @param taskScheduler    线程池
+     * @param controlScheduler 控制任务线程池
+     */
+    public SuperExecutor(TaskScheduler taskScheduler, TaskScheduler controlScheduler) {
         this.taskScheduler = taskScheduler;
+        this.controlScheduler = controlScheduler;
+    }
+
+    /**
+     * 为任务指定独立的线程池(舱壁)
+     *
+     * @param name          任务名
+     * @param taskScheduler 线程池
+     */
+    public void setTaskScheduler(String name, TaskScheduler taskScheduler) {
+        this.taskSchedulers.put(name, taskScheduler);
+    }
+
+    /**
+     * 设置调度指标记录器，对之后创建监听器集合的任务生效<br/>
+     * 需要在加载任务之前设置
+     *
+     * @param metrics 调度指标记录器
+     */
+    public void setMetrics(SchedulerMetrics metrics) {
+        this.metrics = metrics;
     }
 
     /**
-     * 是否竞争到了节点锁
+     * 设置集群视图<br/>
+     * 需要在加载任务之前设置
+     *
+     * @param clusterView 集群视图
+     */
+    public void setClusterView(ClusterView clusterView) {
+        this.clusterView = clusterView;
+    }
+
+    /**
+     * 集群视图，未设置集群成员管理时为空
+     */
+    public ClusterView getClusterView() {
+        return clusterView;
+    }
+
+    /**
+     * 获取任务的执行监听器集合，不存在则创建，创建时加入调度指标记录器<br/>
+     * 执行单元在创建时获取一次
+     *
+     * @param name 任务名
+     * @return 执行监听器集合
+     */
+    public TaskListeners getTaskListeners(String name) {
+        return taskListeners.computeIfAbsent(name, k -> {
+            TaskListeners listeners = new TaskListeners();
+            if (metrics != null) {
+                listeners.add(metrics);
+            }
+            return listeners;
+        });
+    }
+
+    /**
+     * 动态并发调整完毕，通知调度指标记录器
+     *
+     * @param name   任务名
+     * @param before 调整前<分片,并发数>
+     * @param after  调整后<分片,并发数>
+     */
+    public void onRebalanced(String name, ConcurrencySnapshot before, ConcurrencySnapshot after) {
+        SchedulerMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return;
+        }
+        try {
+            metrics.onRebalanced(name, before, after);
+        } catch (Throwable e) {
+            log.error("任务" + name + "调度指标记录报错", e);
+        }
+    }
+
+    /**
+     * 为任务增加执行监听器
+     *
+     * @param name     任务名
+     * @param listener 执行监听器
+     */
+    public void addExecutionListener(String name, TaskExecutionListener listener) {
+        getTaskListeners(name).add(listener);
+    }
+
+    /**
+     * 获取任务所在的线程池<br/>
+     * 动态调配的分片DYNAMIC_SHARDED在控制任务线程池执行，其他分片优先在任务的舱壁执行
+     *
+     * @param item 任务
+     * @return 线程池
+     */
+    private TaskScheduler getTaskScheduler(TaskItem item) {
+        if (SuperExecutor.DYNAMIC_SHARDED.equals(item.getSharded())) {
+            return controlScheduler;
+        }
+        return taskSchedulers.getOrDefault(item.getName(), taskScheduler);
+    }
+
+    /**
+     * 是否竞争到了全局节点锁
      */
     public boolean isNoHasLock() {
-        return !hasLock;
+        String key = onlyLockName;
+        TaskLock lock = key == null ? null : lockTable.find(key);
+        return lock == null || !lock.isValid();
     }
 
     /**
-     * 放置节点锁
+     * 放置全局节点锁
      */
     public void setHasLock(boolean hasLock) {
-        this.hasLock = hasLock;
+        String key = onlyLockName;
+        if (key != null) {
+            lockTable.get(key).setHeld(hasLock);
+        }
     }
 
     /**
-     * 停止并销毁所有任务
+     * 设置全局单节点锁名称，未指定锁分组的任务使用
+     *
+     * @param onlyLockName 锁名称
      */
-    public synchronized void destroy() {
-        for (Map<String, List<ScheduledFuture<?>>> map : this.dynamicTasks.values()) {
-            map.values().forEach(list -> list.forEach(task -> task.cancel(false)));
+    public void setOnlyLockName(String onlyLockName) {
+        this.onlyLockName = onlyLockName;
+    }
+
+    /**
+     * 设置任务的锁分组<br/>
+     * 需要在生成任务之前设置
+     *
+     * @param name     任务名
+     * @param lockKey  锁分组，为空使用全局单节点锁
+     * @param perShard 是否每个分片独立竞争锁
+     */
+    public void setTaskLock(String name, String lockKey, boolean perShard) {
+        lockTasks.add(name);
+        if (lockKey != null && lockKey.length() > 0) {
+            taskLockKeys.put(name, lockKey);
+        }
+        if (perShard) {
+            perShardLockTasks.add(name);
         }
-        dynamicTasks.clear();
     }
 
     /**
-     * 根据任务名从动态任务管理器中拿任务集合<br/>
-     * 动态调配的分片DYNAMIC_SHARDED不做统计
+     * 任务分片使用的锁名称<br/>
+     * 锁分组为空时使用全局单节点锁；按分片竞争锁时追加分片，默认分片不追加
+     *
+     * @param name    任务名
+     * @param sharded 分片
+     * @return 锁名称
+     */
+    public String getLockKey(String name, String sharded) {
+        String key = taskLockKeys.getOrDefault(name, onlyLockName);
+        if (perShardLockTasks.contains(name) && !DEFAULT_SHARDED.equals(sharded)) {
+            return key + ":" + sharded;
+        }
+        return key;
+    }
+
+    /**
+     * 任务是否按分片竞争锁
      *
      * @param name 任务名
-     * @return 任务集合
      */
-    private Map<String, List<ScheduledFuture<?>>> getTasksByName(String name) {
-        return dynamicTasks.computeIfAbsent(name, k -> new HashMap<>());
+    public boolean isPerShardLock(String name) {
+        return perShardLockTasks.contains(name);
     }
 
     /**
-     * 根据任务名和属性名从动态任务管理器中拿任务集合<br/>
-     * 动态调配的分片DYNAMIC_SHARDED不做统计
+     * 登记并获取任务分片的锁
+     *
+     * @param name    任务名
+     * @param sharded 分片
+     * @return 锁状态
+     */
+    public TaskLock getTaskLock(String name, String sharded) {
+        return lockTable.get(getLockKey(name, sharded));
+    }
+
+    /**
+     * 注销任务分片的锁，分片不再需要时调用，仅对按分片竞争锁的任务生效
      *
      * @param name    任务名
      * @param sharded 分片
-     * @return 任务集合
      */
-    private List<ScheduledFuture<?>> getTasksByNameAndField(String name, String sharded) {
-        Map<String, List<ScheduledFuture<?>>> fieldMap = getTasksByName(name);
-        return fieldMap.computeIfAbsent(sharded, k -> new ArrayList<>());
+    public void releaseTaskLock(String name, String sharded) {
+        if (isPerShardLock(name) && !DEFAULT_SHARDED.equals(sharded)) {
+            lockTable.release(getLockKey(name, sharded));
+        }
+    }
+
+    public LockTable getLockTable() {
+        return lockTable;
+    }
+
+    /**
+     * 设置任务的失败处理策略<br/>
+     * 需要在生成任务之前设置
+     *
+     * @param name              任务名
+     * @param backoff           失败退避策略，为空时固定1秒
+     * @param breakerFailures   熔断阈值，小于等于0不熔断
+     * @param breakerOpenMillis 熔断后试探执行的间隔，单位毫秒
+     */
+    public void setFailurePolicy(String name, FailureBackoff backoff, int breakerFailures, long breakerOpenMillis) {
+        if (backoff != null) {
+            failureBackoffs.put(name, backoff);
+        } else {
+            failureBackoffs.remove(name);
+        }
+        if (breakerFailures > 0) {
+            // 试探任务在任务所在的线程池执行，舱壁线程池在启动时才设置，因此调度时再查找
+            circuitBreakers.put(name, new CircuitBreaker(name, breakerFailures, breakerOpenMillis,
+                    (task, startTime) -> taskSchedulers.getOrDefault(name, taskScheduler).schedule(task, startTime)));
+        } else {
+            circuitBreakers.remove(name);
+        }
+    }
+
+    /**
+     * 任务的失败退避策略，未设置时固定1秒
+     *
+     * @param name 任务名
+     */
+    public FailureBackoff getFailureBackoff(String name) {
+        return failureBackoffs.getOrDefault(name, FailureBackoff.FIXED_ONE_SECOND);
+    }
+
+    /**
+     * 任务的熔断器
+     *
+     * @param name 任务名
+     * @return 熔断器，未开启熔断为空
+     */
+    public CircuitBreaker getCircuitBreaker(String name) {
+        return circuitBreakers.get(name);
+    }
+
+    /**
+     * 获取任务正在执行的数量，不存在则创建<br/>
+     * 任务移除后仍然保留，停止时等待移除前已经开始的执行
+     *
+     * @param name 任务名
+     * @return 正在执行的数量
+     */
+    public InFlight getInFlight(String name) {
+        InFlight inFlight = inFlights.get(name);
+        if (inFlight == null) {
+            inFlight = inFlights.computeIfAbsent(name, key -> new InFlight());
+        }
+        return inFlight;
+    }
+
+    /**
+     * 设置任务停止时等待执行完毕的时间
+     *
+     * @param name          任务名
+     * @param timeoutMillis 等待时间，单位毫秒，小于0等到停止的总截止时间
+     */
+    public void setShutdownTimeout(String name, long timeoutMillis) {
+        if (timeoutMillis >= 0L) {
+            shutdownTimeouts.put(name, timeoutMillis);
+        } else {
+            shutdownTimeouts.remove(name);
+        }
+    }
+
+    /**
+     * 等待所有任务正在进行的执行完毕，需要先停止调度<br/>
+     * 每个任务最多等待自己的停止等待时间，所有任务最多等待总时间；<br/>
+     * 本节点持有的锁，使用它的单节点任务全部执行完毕后立即回调释放，其他节点不必等待其余任务即可接管；<br/>
+     * 超时任务仍在执行，它的锁不释放，由调用方在中断执行后释放
+     *
+     * @param timeoutMillis 总等待时间，单位毫秒
+     * @param unlock        释放锁的回调，参数为锁名称
+     * @return 超时仍在执行的任务 -> 正在执行数量
+     */
+    public Map<String, Integer> drain(long timeoutMillis, Consumer<List<String>> unlock) {
+        long now = System.nanoTime();
+        long deadline = now + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, timeoutMillis));
+        Object monitor = new Object();
+        Map<String, Long> pending = new HashMap<>();
+        inFlights.forEach((name, inFlight) -> {
+            inFlight.setWaiter(monitor);
+            Long timeout = shutdownTimeouts.get(name);
+            pending.put(name, timeout == null ? deadline : Math.min(deadline, now + TimeUnit.MILLISECONDS.toNanos(timeout)));
+        });
+        Map<String, Integer> timeouts = new TreeMap<>();
+        Set<String> heldKeys = new HashSet<>(lockTable.getHeldKeys());
+        try {
+            synchronized (monitor) {
+                while (true) {
+                    long current = System.nanoTime();
+                    long next = Long.MAX_VALUE;
+                    Iterator<Map.Entry<String, Long>> iterator = pending.entrySet().iterator();
+                    while (iterator.hasNext()) {
+                        Map.Entry<String, Long> entry = iterator.next();
+                        int count = inFlights.get(entry.getKey()).get();
+                        if (count == 0) {
+                            iterator.remove();
+                        } else if (current - entry.getValue() >= 0L) {
+                            timeouts.put(entry.getKey(), count);
+                            iterator.remove();
+                        } else {
+                            next = Math.min(next, entry.getValue());
+                        }
+                    }
+                    releaseDrainedLocks(heldKeys, pending.keySet(), timeouts.keySet(), unlock);
+                    if (pending.isEmpty()) {
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(monitor, Math.max(1L, next - current));
+                }
+            }
+        } catch (InterruptedException e) {
+            pending.forEach((name, taskDeadline) -> timeouts.put(name, inFlights.get(name).get()));
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlights.values().forEach(inFlight -> inFlight.setWaiter(null));
+        }
+        return timeouts;
+    }
+
+    /**
+     * 释放没有单节点任务仍在执行的锁
+     *
+     * @param heldKeys 本节点持有、尚未释放的锁名称
+     * @param pending  正在等待执行完毕的任务
+     * @param timeouts 超时仍在执行的任务
+     * @param unlock   释放锁的回调
+     */
+    private void releaseDrainedLocks(Set<String> heldKeys, Set<String> pending, Set<String> timeouts, Consumer<List<String>> unlock) {
+        if (heldKeys.isEmpty()) {
+            return;
+        }
+        List<String> drained = new ArrayList<>();
+        for (String key : heldKeys) {
+            boolean busy = false;
+            for (String name : lockTasks) {
+                if ((pending.contains(name) || timeouts.contains(name)) && isLockOf(name, key)) {
+                    busy = true;
+                    break;
+                }
+            }
+            if (!busy) {
+                drained.add(key);
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        drained.forEach(heldKeys::remove);
+        drained.forEach(lockTable::release);
+        List<String> keys = lockTable.drainReleased();
+        if (!keys.isEmpty()) {
+            unlock.accept(keys);
+        }
+    }
+
+    /**
+     * 锁是否属于任务
+     *
+     * @param name 任务名
+     * @param key  锁名称
+     */
+    private boolean isLockOf(String name, String key) {
+        String base = taskLockKeys.getOrDefault(name, onlyLockName);
+        if (base == null) {
+            return false;
+        }
+        return key.equals(base) || (perShardLockTasks.contains(name) && key.startsWith(base + ":"));
+    }
+
+    /**
+     * 设置任务每次执行的随机抖动比例<br/>
+     * 需要在生成任务之前设置
+     *
+     * @param name   任务名
+     * @param jitter 抖动比例，0到1之间，为0不抖动
+     */
+    public void setJitter(String name, double jitter) {
+        if (jitter > 0D) {
+            jitters.put(name, jitter);
+        } else {
+            jitters.remove(name);
+        }
+    }
+
+    /**
+     * 任务每次执行的随机抖动比例
+     *
+     * @param name 任务名
+     * @return 抖动比例，未设置为0
+     */
+    public double getJitter(String name) {
+        return jitters.getOrDefault(name, 0D);
+    }
+
+    /**
+     * 并发执行单元首次执行时间的错开窗口
+     *
+     * @param taskType  任务类型
+     * @param scheduled 定义
+     * @return 错开窗口，单位毫秒，不错开为0
+     */
+    public static long getStartSpread(TaskType taskType, SuperScheduled scheduled) {
+        long spread = scheduled.startSpread();
+        if (spread > 0L) {
+            return taskType == TaskType.CRON ? 0L : spread;
+        }
+        if (spread < 0L) {
+            return 0L;
+        }
+        switch (taskType) {
+            case FIXED_DELAY:
+                return Math.max(scheduled.fixedDelay(), 0L);
+            case FIXED_RATE:
+                return Math.max(scheduled.fixedRate(), 0L);
+            default:
+                return 0L;
+        }
+    }
+
+    /**
+     * 第index个执行单元的错开时间，count个执行单元在窗口内均匀分布
+     *
+     * @param spread 错开窗口，单位毫秒
+     * @param index  执行单元序号，从0开始
+     * @param count  执行单元数量
+     * @return 错开时间，单位毫秒
+     */
+    public static long getPhase(long spread, int index, int count) {
+        if (spread <= 0L || count <= 1) {
+            return 0L;
+        }
+        return spread * index / count;
+    }
+
+    /**
+     * 设置任务的重叠执行策略<br/>
+     * 需要在生成任务之前设置，策略为ALLOW且不判断错过执行时不做控制
+     *
+     * @param name             任务名
+     * @param policy           重叠执行策略
+     * @param queueCapacity    QUEUE策略的最大排队次数
+     * @param misfireThreshold 错过执行阈值，单位毫秒，小于等于0不判断
+     */
+    public void setOverlapPolicy(String name, OverlapPolicy policy, int queueCapacity, long misfireThreshold) {
+        if (policy == OverlapPolicy.ALLOW && misfireThreshold <= 0L) {
+            overlapGuardFactories.remove(name);
+        } else {
+            overlapGuardFactories.put(name, () -> new OverlapGuard(policy, queueCapacity, misfireThreshold));
+        }
+    }
+
+    /**
+     * 任务某个分片的重叠执行控制，同一分片的执行单元共用<br/>
+     * 动态调配的分片DYNAMIC_SHARDED不做控制
+     *
+     * @param name    任务名
+     * @param sharded 分片
+     * @return 重叠执行控制，未设置时为空
+     */
+    public OverlapGuard getOverlapGuard(String name, String sharded) {
+        Supplier<OverlapGuard> factory = overlapGuardFactories.get(name);
+        if (factory == null || DYNAMIC_SHARDED.equals(sharded)) {
+            return null;
+        }
+        return overlapGuards.computeIfAbsent(name + "-" + sharded, key -> factory.get());
+    }
+
+    /**
+     * 设置任务的批处理策略<br/>
+     * 需要在生成任务之前设置
+     *
+     * @param name   任务名
+     * @param policy 批处理策略
+     */
+    public void setBatchPolicy(String name, BatchPolicy policy) {
+        batchPolicies.put(name, policy);
+    }
+
+    /**
+     * 任务的批处理策略
+     *
+     * @param name 任务名
+     * @return 批处理策略，未设置时为默认策略
+     */
+    public BatchPolicy getBatchPolicy(String name) {
+        return batchPolicies.getOrDefault(name, BatchPolicy.DEFAULT);
+    }
+
+    /**
+     * 批处理任务某个分片的积压量，同一分片的执行单元共用，每次执行后写入最近的积压量
+     *
+     * @param name    任务名
+     * @param sharded 分片
+     * @return 积压量，未上报时为-1
+     */
+    public AtomicLong getShardBacklog(String name, String sharded) {
+        return backlogs.computeIfAbsent(name, key -> new ConcurrentHashMap<>()).computeIfAbsent(sharded, key -> new AtomicLong(-1L));
+    }
+
+    /**
+     * 遍历批处理任务上报过积压量的分片
+     *
+     * @param name     任务名
+     * @param consumer <分片,积压量>
+     */
+    public void forEachShardBacklog(String name, ObjLongConsumer<String> consumer) {
+        Map<String, AtomicLong> shards = backlogs.get(name);
+        if (shards == null) {
+            return;
+        }
+        shards.forEach((sharded, backlog) -> {
+            long value = backlog.get();
+            if (value >= 0L) {
+                consumer.accept(sharded, value);
+            }
+        });
+    }
+
+    /**
+     * 停止并销毁所有任务
+     */
+    public void destroy() {
+        dynamicTasks.close().forEach(task -> task.cancel(false));
     }
 
     /**
@@ -112,15 +716,29 @@ public class SuperExecutor {
      * @return 所有分片并发数量
      */
     public Map<String, Integer> getTasksByNameNumberWithoutDynamicSharded(String name) {
-        Map<String, Integer> concurrent = new HashMap<>();
-        Map<String, List<ScheduledFuture<?>>> map = dynamicTasks.computeIfAbsent(name, k -> new HashMap<>());
-        map.forEach((sharded, list) -> {
-            if (sharded.equals(SuperExecutor.DYNAMIC_SHARDED)) {
-                return;
-            }
-            concurrent.put(sharded, list.size());
-        });
-        return concurrent;
+        return dynamicTasks.counts(name, SuperExecutor.DYNAMIC_SHARDED);
+    }
+
+    /**
+     * 遍历当前任务的所有分片并发数量，不复制任何集合<br/>
+     * 动态调配的分片DYNAMIC_SHARDED不做统计
+     *
+     * @param name     任务名称
+     * @param consumer <分片,并发数>
+     */
+    public void forEachTaskNumberWithoutDynamicSharded(String name, ObjIntConsumer<String> consumer) {
+        dynamicTasks.forEachCount(name, SuperExecutor.DYNAMIC_SHARDED, consumer);
+    }
+
+    /**
+     * 获取任务某个分片的当前并发数量，不复制任何集合
+     *
+     * @param name    任务名称
+     * @param sharded 分片
+     * @return 并发数量
+     */
+    public int getTaskNumber(String name, String sharded) {
+        return dynamicTasks.count(name, sharded);
     }
 
     /**
@@ -129,15 +747,29 @@ public class SuperExecutor {
      * @param only    是否但节点执行
      * @param name    任务名字
      * @param sharded 分片
-     * @param bean    执行对象
-     * @param method  执行方法
+     * @param invoker 方法调用器
      * @param cron    cron表达式
      * @return cron任务
      */
-    public TaskItem genCronTask(boolean only, String name, String sharded, Object bean, Method method, String cron) {
-        FixedDelayTaskGenerate fixedDelayTaskGender = new FixedDelayTaskGenerate(this, only, name, sharded, bean, method);
-        CronTask task = new CronTask(fixedDelayTaskGender.getRunnable(), cron);
-        return new TaskItem(task, name, sharded);
+    public TaskItem genCronTask(boolean only, String name, String sharded, TaskInvoker invoker, String cron) {
+        FixedDelayTaskGenerate fixedDelayTaskGender = new FixedDelayTaskGenerate(this, only, name, sharded, invoker);
+        CronTrigger cronTrigger = new CronTrigger(cron);
+        TaskControl control = taskControls.get(name);
+        // 记录每次计算出的计划执行时间，用于统计开始延迟；运行时覆盖的cron表达式优先
+        Trigger trigger = triggerContext -> {
+            Date next = (control == null ? cronTrigger : control.getCronTrigger(cronTrigger)).nextExecutionTime(triggerContext);
+            if (next != null) {
+                fixedDelayTaskGender.expectStartAt(next.getTime());
+            }
+            return next;
+        };
+        TriggerTask task;
+        if (fixedDelayTaskGender.getAsyncRunnable() == null) {
+            task = new TriggerTask(fixedDelayTaskGender.getRunnable(), trigger);
+        } else {
+            task = new AsyncTriggerTask(fixedDelayTaskGender.getRunnable(), fixedDelayTaskGender.getAsyncRunnable(), trigger);
+        }
+        return new TaskItem(task, name, sharded, fixedDelayTaskGender.getLock());
     }
 
     /**
@@ -146,15 +778,34 @@ public class SuperExecutor {
      * @param only         是否但节点执行
      * @param name         任务名字
      * @param sharded      分片
-     * @param bean         执行对象
-     * @param method       执行方法
+     * @param invoker      方法调用器
      * @param initialDelay 初始化延时时间
      * @return 动态延时任务
      */
-    public TaskItem genDynamicDelayTask(boolean only, String name, String sharded, Object bean, Method method, long initialDelay) {
-        DynamicDeployTaskGenerate exec = new DynamicDeployTaskGenerate(this, only, name, sharded, bean, method, initialDelay);
-        TriggerTask task = new TriggerTask(exec.getTask(), exec.getTrigger());
-        return new TaskItem(task, name, sharded);
+    public TaskItem genDynamicDelayTask(boolean only, String name, String sharded, TaskInvoker invoker, long initialDelay) {
+        return genDynamicDelayTask(only, name, sharded, invoker, initialDelay, 0L);
+    }
+
+    /**
+     * 生成一个错开执行的动态延时任务，执行间隔按任务的抖动比例随机增加
+     *
+     * @param only         是否但节点执行
+     * @param name         任务名字
+     * @param sharded      分片
+     * @param invoker      方法调用器
+     * @param initialDelay 初始化延时时间
+     * @param phase        错开时间，首次执行在初始化延时之后再等待此时间
+     * @return 动态延时任务
+     */
+    public TaskItem genDynamicDelayTask(boolean only, String name, String sharded, TaskInvoker invoker, long initialDelay, long phase) {
+        DynamicDeployTaskGenerate exec = new DynamicDeployTaskGenerate(this, only, name, sharded, invoker, initialDelay + phase);
+        TriggerTask task;
+        if (exec.getAsyncTask() == null) {
+            task = new TriggerTask(exec.getTask(), exec.getTrigger());
+        } else {
+            task = new AsyncTriggerTask(exec.getTask(), exec.getAsyncTask(), exec.getTrigger());
+        }
+        return new TaskItem(task, name, sharded, exec.getLock(), exec.getBreaker(), phase);
     }
 
     /**
@@ -163,16 +814,29 @@ public class SuperExecutor {
      * @param only         是否但节点执行
      * @param name         任务名字
      * @param sharded      分片
-     * @param bean         执行对象
-     * @param method       执行方法
+     * @param invoker      方法调用器
+     * @param fixedDelay   延时时间
+     * @param initialDelay 初始化延时时间
+     * @return 固定延时任务
+     */
+    public TaskItem genFixedDelayTask(boolean only, String name, String sharded, TaskInvoker invoker, long fixedDelay, long initialDelay) {
+        return genPeriodicTask(only, name, sharded, invoker, fixedDelay, false, initialDelay, 0L, 0D);
+    }
+
+    /**
+     * 生成一个错开执行的固定延时任务，执行间隔按任务的抖动比例随机增加
+     *
+     * @param only         是否但节点执行
+     * @param name         任务名字
+     * @param sharded      分片
+     * @param invoker      方法调用器
      * @param fixedDelay   延时时间
      * @param initialDelay 初始化延时时间
+     * @param phase        错开时间，首次执行在初始化延时之后再等待此时间
      * @return 固定延时任务
      */
-    public TaskItem genFixedDelayTask(boolean only, String name, String sharded, Object bean, Method method, long fixedDelay, long initialDelay) {
-        FixedDelayTaskGenerate fixedDelayTaskGender = new FixedDelayTaskGenerate(this, only, name, sharded, bean, method);
-        FixedDelayTask task = new FixedDelayTask(fixedDelayTaskGender.getRunnable(), fixedDelay, initialDelay);
-        return new TaskItem(task, name, sharded);
+    public TaskItem genFixedDelayTask(boolean only, String name, String sharded, TaskInvoker invoker, long fixedDelay, long initialDelay, long phase) {
+        return genPeriodicTask(only, name, sharded, invoker, fixedDelay, false, initialDelay, phase, getJitter(name));
     }
 
     /**
@@ -181,46 +845,228 @@ public class SuperExecutor {
      * @param only         是否但节点执行
      * @param name         任务名字
      * @param sharded      分片
-     * @param bean         执行对象
-     * @param method       执行方法
+     * @param invoker      方法调用器
      * @param fixedRate    频率
      * @param initialDelay 初始化延时时间
      * @return 固定频率任务
      */
-    public TaskItem genFixedRateTask(boolean only, String name, String sharded, Object bean, Method method, long fixedRate, long initialDelay) {
-        FixedDelayTaskGenerate fixedDelayTaskGender = new FixedDelayTaskGenerate(this, only, name, sharded, bean, method);
-        FixedRateTask task = new FixedRateTask(fixedDelayTaskGender.getRunnable(), fixedRate, initialDelay);
-        return new TaskItem(task, name, sharded);
+    public TaskItem genFixedRateTask(boolean only, String name, String sharded, TaskInvoker invoker, long fixedRate, long initialDelay) {
+        return genPeriodicTask(only, name, sharded, invoker, fixedRate, true, initialDelay, 0L, 0D);
     }
 
     /**
-     * 启动一个任务
+     * 生成一个错开执行的固定频率任务，计划执行时间按任务的抖动比例随机推迟
+     *
+     * @param only         是否但节点执行
+     * @param name         任务名字
+     * @param sharded      分片
+     * @param invoker      方法调用器
+     * @param fixedRate    频率
+     * @param initialDelay 初始化延时时间
+     * @param phase        错开时间，首次执行在初始化延时之后再等待此时间
+     * @return 固定频率任务
+     */
+    public TaskItem genFixedRateTask(boolean only, String name, String sharded, TaskInvoker invoker, long fixedRate, long initialDelay, long phase) {
+        return genPeriodicTask(only, name, sharded, invoker, fixedRate, true, initialDelay, phase, getJitter(name));
+    }
+
+    /**
+     * 生成一个固定延时或固定频率任务<br/>
+     * 不抖动时使用线程池的周期调度；抖动时使用触发器，每次执行后重新计算下次执行时间<br/>
+     * 异步方法总是使用触发器，异步执行完成后才计算下次执行时间
+     *
+     * @param only         是否但节点执行
+     * @param name         任务名字
+     * @param sharded      分片
+     * @param invoker      方法调用器
+     * @param period       周期
+     * @param fixedRate    是否固定频率
+     * @param initialDelay 初始化延时时间
+     * @param phase        错开时间
+     * @param jitter       抖动比例
+     * @return 任务
+     */
+    private TaskItem genPeriodicTask(boolean only, String name, String sharded, TaskInvoker invoker, long period, boolean fixedRate, long initialDelay, long phase, double jitter) {
+        FixedDelayTaskGenerate fixedDelayTaskGender = new FixedDelayTaskGenerate(this, only, name, sharded, invoker);
+        TaskControl control = taskControls.get(name);
+        Task task;
+        if (fixedDelayTaskGender.getAsyncRunnable() != null) {
+            Trigger trigger = new PhasedTrigger(period, fixedRate, initialDelay, phase, jitter, fixedDelayTaskGender::expectStartAt, control);
+            task = new AsyncTriggerTask(fixedDelayTaskGender.getRunnable(), fixedDelayTaskGender.getAsyncRunnable(), trigger);
+        } else if (jitter > 0D) {
+            task = new TriggerTask(fixedDelayTaskGender.getRunnable(), new PhasedTrigger(period, fixedRate, initialDelay, phase, jitter, fixedDelayTaskGender::expectStartAt, control));
+        } else if (fixedRate) {
+            fixedDelayTaskGender.setPeriod(period, true);
+            task = new FixedRateTask(fixedDelayTaskGender.getRunnable(), period, initialDelay + phase);
+        } else {
+            fixedDelayTaskGender.setPeriod(period, false);
+            task = new FixedDelayTask(fixedDelayTaskGender.getRunnable(), period, initialDelay + phase);
+        }
+        return new TaskItem(task, name, sharded, fixedDelayTaskGender.getLock(), null, phase);
+    }
+
+    /**
+     * 启动一个任务<br/>
+     * 单节点任务、开启熔断的任务、可运行时控制的任务绑定许可后注册，持有锁、未熔断且未暂停时才调度执行，否则挂起
      *
      * @param item 任务
      */
-    public synchronized void scheduleTask(TaskItem item) {
+    public void scheduleTask(TaskItem item) {
+        List<Permit> permits = new ArrayList<>(3);
+        if (item.getLock() != null) {
+            permits.add(item.getLock());
+        }
+        if (item.getBreaker() != null) {
+            permits.add(item.getBreaker());
+        }
+        TaskControl control = DYNAMIC_SHARDED.equals(item.getSharded()) ? null : taskControls.get(item.getName());
+        if (control != null) {
+            permits.add(control);
+        }
         ScheduledFuture<?> future;
-        if (item.getTask() instanceof CronTask) {
+        ParkableTask parkable = null;
+        if (permits.isEmpty()) {
+            future = start(item, true, false);
+        } else {
+            parkable = new ParkableTask(first -> start(item, first, false), () -> start(item, false, true), permits.toArray(new Permit[0]));
+            future = parkable;
+        }
+        if (future == null) {
+            return;
+        }
+        if (!dynamicTasks.add(item.getName(), item.getSharded(), future)) {
+            // 已经销毁，不再启动新任务
+            future.cancel(false);
+            return;
+        }
+        if (parkable != null) {
+            parkable.bind();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("启动任务" + item.getName() + "-" + item.getSharded());
+        }
+    }
+
+    /**
+     * 在线程池中调度任务
+     *
+     * @param item       任务
+     * @param first      是否首次启动，恢复挂起的任务时不再等待初始化延时，只等待错开时间
+     * @param reschedule 是否因为周期变化重新调度，等待 错开时间+新周期
+     * @return 调度句柄，不支持的任务类型返回null
+     */
+    private ScheduledFuture<?> start(TaskItem item, boolean first, boolean reschedule) {
+        TaskScheduler taskScheduler = getTaskScheduler(item);
+        TaskControl control = taskControls.get(item.getName());
+        ScheduledFuture<?> future;
+        if (reschedule && item.getTask() instanceof TriggerTask && ((TriggerTask) item.getTask()).getTrigger() instanceof PhasedTrigger) {
+            ((PhasedTrigger) ((TriggerTask) item.getTask()).getTrigger()).reschedule();
+        }
+        if (item.getTask() instanceof AsyncTriggerTask) {
+            AsyncTriggerTask task = (AsyncTriggerTask) item.getTask();
+            future = new AsyncReschedulingTask(taskScheduler, task.getAsyncRunnable(), task.getTrigger()).start();
+        } else if (item.getTask() instanceof CronTask) {
             CronTask task = (CronTask) item.getTask();
-            future = this.taskScheduler.schedule(task.getRunnable(), task.getTrigger());
+            future = taskScheduler.schedule(task.getRunnable(), task.getTrigger());
         } else if (item.getTask() instanceof TriggerTask) {
             TriggerTask task = (TriggerTask) item.getTask();
-            future = this.taskScheduler.schedule(task.getRunnable(), task.getTrigger());
+            future = taskScheduler.schedule(task.getRunnable(), task.getTrigger());
         } else if (item.getTask() instanceof FixedDelayTask) {
             FixedDelayTask task = (FixedDelayTask) item.getTask();
-            Date startTime = new Date(System.currentTimeMillis() + task.getInitialDelay());
-            future = this.taskScheduler.scheduleWithFixedDelay(task.getRunnable(), startTime, task.getInterval());
+            long interval = control == null ? task.getInterval() : control.getPeriod(task.getInterval());
+            Date startTime = new Date(System.currentTimeMillis() + (first ? task.getInitialDelay() : item.getPhase() + (reschedule ? interval : 0L)));
+            future = taskScheduler.scheduleWithFixedDelay(task.getRunnable(), startTime, interval);
         } else if (item.getTask() instanceof FixedRateTask) {
             FixedRateTask task = (FixedRateTask) item.getTask();
-            Date startTime = new Date(System.currentTimeMillis() + task.getInitialDelay());
-            future = this.taskScheduler.scheduleAtFixedRate(task.getRunnable(), startTime, task.getInterval());
+            long interval = control == null ? task.getInterval() : control.getPeriod(task.getInterval());
+            Date startTime = new Date(System.currentTimeMillis() + (first ? task.getInitialDelay() : item.getPhase() + (reschedule ? interval : 0L)));
+            future = taskScheduler.scheduleAtFixedRate(task.getRunnable(), startTime, interval);
         } else {
-            return;
+            future = null;
+        }
+        return future;
+    }
+
+    /**
+     * 登记任务定义，用于运行时调整，需要在生成任务之前登记
+     *
+     * @param name      任务名
+     * @param taskType  任务类型
+     * @param invoker   方法调用器
+     * @param scheduled 任务定义
+     * @return 运行时控制
+     */
+    public TaskControl registerTaskControl(String name, TaskType taskType, TaskInvoker invoker, SuperScheduled scheduled) {
+        return taskControls.computeIfAbsent(name, key -> new TaskControl(name, taskType, invoker, scheduled));
+    }
+
+    /**
+     * 任务的运行时控制
+     *
+     * @param name 任务名
+     * @return 运行时控制，未登记返回null
+     */
+    public TaskControl getTaskControl(String name) {
+        return taskControls.get(name);
+    }
+
+    /**
+     * 所有登记了运行时控制的任务
+     */
+    public Map<String, TaskControl> getTaskControls() {
+        return Collections.unmodifiableMap(taskControls);
+    }
+
+    /**
+     * 周期或cron表达式变化后重新调度任务的所有执行单元<br/>
+     * 复用原有的执行单元，只替换调度句柄，正在进行的执行不受影响；挂起中的执行单元恢复时使用新参数
+     *
+     * @param name 任务名
+     * @return 重新调度的执行单元数量
+     */
+    public int reschedule(String name) {
+        int count = 0;
+        for (ScheduledFuture<?> future : dynamicTasks.snapshot(name, DYNAMIC_SHARDED)) {
+            if (future instanceof ParkableTask) {
+                ((ParkableTask) future).reschedule();
+                count++;
+            }
         }
-        this.getTasksByNameAndField(item.getName(), item.getSharded()).add(future);
         if (log.isDebugEnabled()) {
-            log.debug("启动任务" + item.getName() + "-" + item.getSharded());
+            log.debug("重新调度任务" + name + "共" + count + "个");
         }
+        return count;
+    }
+
+    /**
+     * 调整固定并发任务的并发数，只增加或移除差额，保留的执行单元不受影响<br/>
+     * 新增的执行单元在错开窗口内接着已有的执行单元错开
+     *
+     * @param control 运行时控制
+     * @param count   并发数
+     * @return 调整前的并发数
+     */
+    public int resize(TaskControl control, int count) {
+        String name = control.getName();
+        int current = dynamicTasks.count(name, DEFAULT_SHARDED);
+        if (count < current) {
+            removeTasks(name, DEFAULT_SHARDED, current - count);
+        } else if (count > current) {
+            long spread = getStartSpread(control.getTaskType(), control.getScheduled());
+            for (int i = current; i < count; i++) {
+                genAndScheduleTask(control.getTaskType(), name, DEFAULT_SHARDED, control.getInvoker(), control.getScheduled(), getPhase(spread, i, count));
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在控制线程池中立即执行一次
+     *
+     * @param task 任务
+     */
+    public void executeControl(Runnable task) {
+        controlScheduler.schedule(task, new Date());
     }
 
     /**
@@ -229,26 +1075,38 @@ public class SuperExecutor {
      * @param taskType  任务类型
      * @param name      任务名
      * @param sharded   分片
-     * @param bean      执行对象
-     * @param method    执行方法
+     * @param invoker   方法调用器
      * @param scheduled 定义
      */
-    public void genAndScheduleTask(TaskType taskType, String name, String sharded, Object bean, Method method, SuperScheduled scheduled) {
+    public void genAndScheduleTask(TaskType taskType, String name, String sharded, TaskInvoker invoker, SuperScheduled scheduled) {
+        genAndScheduleTask(taskType, name, sharded, invoker, scheduled, 0L);
+    }
+
+    /**
+     * 生成并启动一个错开执行的任务
+     *
+     * @param taskType  任务类型
+     * @param name      任务名
+     * @param sharded   分片
+     * @param invoker   方法调用器
+     * @param scheduled 定义
+     * @param phase     错开时间，cron任务不生效
+     */
+    public void genAndScheduleTask(TaskType taskType, String name, String sharded, TaskInvoker invoker, SuperScheduled scheduled, long phase) {
         long initialDelay = Math.max(scheduled.initialDelay(), 0L);
-        int concurrentMax = Math.max(scheduled.dynamicConcurrentMax(), 1);
         TaskItem item = null;
         switch (taskType) {
             case CRON:
-                item = genCronTask(scheduled.only(), name, sharded, bean, method, scheduled.cron());
+                item = genCronTask(scheduled.only(), name, sharded, invoker, scheduled.cron());
                 break;
             case FIXED_RATE:
-                item = genFixedRateTask(scheduled.only(), name, sharded, bean, method, scheduled.fixedRate(), initialDelay);
+                item = genFixedRateTask(scheduled.only(), name, sharded, invoker, scheduled.fixedRate(), initialDelay, phase);
                 break;
             case FIXED_DELAY:
-                item = genFixedDelayTask(scheduled.only(), name, sharded, bean, method, scheduled.fixedDelay(), initialDelay);
+                item = genFixedDelayTask(scheduled.only(), name, sharded, invoker, scheduled.fixedDelay(), initialDelay, phase);
                 break;
             case DYNAMIC_DELAY:
-                item = genDynamicDelayTask(scheduled.only(), name, sharded, bean, method, initialDelay);
+                item = genDynamicDelayTask(scheduled.only(), name, sharded, invoker, initialDelay, phase);
                 break;
             default:
                 break;
@@ -258,55 +1116,82 @@ public class SuperExecutor {
         }
     }
 
+    /**
+     * 批量生成并启动任务，按错开窗口均匀错开本批任务
+     *
+     * @param taskType  任务类型
+     * @param name      任务名
+     * @param sharded   分片
+     * @param invoker   方法调用器
+     * @param scheduled 定义
+     * @param count     任务数量
+     */
+    public void genAndScheduleTasks(TaskType taskType, String name, String sharded, TaskInvoker invoker, SuperScheduled scheduled, int count) {
+        long spread = getStartSpread(taskType, scheduled);
+        for (int i = 0; i < count; i++) {
+            genAndScheduleTask(taskType, name, sharded, invoker, scheduled, getPhase(spread, i, count));
+        }
+    }
+
     /**
      * 停止并移除一个任务
      *
      * @param name    任务名称
      * @param sharded 分片
      */
-    public synchronized void removeOneTask(String name, String sharded) {
-        List<ScheduledFuture<?>> tasks = getTasksByNameAndField(name, sharded);
-        if (tasks.size() == 0) {
-            return;
+    public void removeOneTask(String name, String sharded) {
+        removeTasks(name, sharded, 1);
+    }
+
+    /**
+     * 停止并移除分片中的若干任务，先启动的先移除
+     *
+     * @param name    任务名称
+     * @param sharded 分片
+     * @param count   移除数量
+     * @return 实际移除数量
+     */
+    public int removeTasks(String name, String sharded, int count) {
+        List<ScheduledFuture<?>> tasks = dynamicTasks.remove(name, sharded, count);
+        tasks.forEach(task -> task.cancel(false));
+        if (!tasks.isEmpty() && dynamicTasks.count(name, sharded) == 0) {
+            overlapGuards.remove(name + "-" + sharded);
+            Map<String, AtomicLong> shards = backlogs.get(name);
+            if (shards != null) {
+                shards.remove(sharded);
+            }
         }
-        ScheduledFuture<?> item = tasks.remove(0);
-        item.cancel(false);
-        if (log.isDebugEnabled()) {
-            log.debug("清除任务" + name + "-" + sharded);
+        if (log.isDebugEnabled() && !tasks.isEmpty()) {
+            log.debug("清除任务" + name + "-" + sharded + "共" + tasks.size() + "个");
         }
+        return tasks.size();
     }
 
     /**
-     * 停止并移除任务的所有分片
+     * 停止并移除任务的所有分片<br/>
+     * 动态调配的分片DYNAMIC_SHARDED不移除，否则并发计算任务自身也会被停止
      *
      * @param name 任务名称
+     * @return 实际移除数量
      */
-    public void removeTaskByName(String name) {
-        Map<String, List<ScheduledFuture<?>>> map = getTasksByName(name);
-        List<String> allTasks = new ArrayList<>();
-        map.forEach((sharded, tasks) -> tasks.forEach(task -> allTasks.add(sharded)));
-        for (String sharded : allTasks) {
-            removeOneTask(name, sharded);
+    public int removeAll(String name) {
+        List<ScheduledFuture<?>> tasks = dynamicTasks.removeAll(name, SuperExecutor.DYNAMIC_SHARDED);
+        tasks.forEach(task -> task.cancel(false));
+        overlapGuards.keySet().removeIf(key -> key.startsWith(name + "-"));
+        backlogs.remove(name);
+        if (log.isDebugEnabled() && !tasks.isEmpty()) {
+            log.debug("清除任务" + name + "共" + tasks.size() + "个");
         }
+        return tasks.size();
     }
 
-
     /**
-     * 反射执行方法，基础工具方法
+     * 停止并移除任务的所有分片
      *
-     * @param bean   对象
-     * @param method 方法
-     * @param args   参数
-     * @param <T>    返回值类型
-     * @return 返回值
+     * @param name 任务名称
      */
-    @SuppressWarnings("unchecked")
-    public static <T> T invokeMethod(Object bean, Method method, Object... args) {
-        try {
-            return (T) method.invoke(bean, args);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new IllegalArgumentException(e);
-        }
+    public void removeTaskByName(String name) {
+        removeAll(name);
     }
 
 }
@@ -1,13 +1,35 @@
 package cn.emay.superscheduler;
 
+import cn.emay.superscheduler.base.BatchPolicy;
+import cn.emay.superscheduler.base.ExecuteMode;
+import cn.emay.superscheduler.base.FailureBackoff;
+import cn.emay.superscheduler.base.OverloadPolicy;
+import cn.emay.superscheduler.base.OverloadStatistics;
+import cn.emay.superscheduler.base.ScheduledMethods;
+import cn.emay.superscheduler.base.TaskControl;
+import cn.emay.superscheduler.base.TaskInvoker;
 import cn.emay.superscheduler.base.TaskItem;
 import cn.emay.superscheduler.base.TaskType;
+import cn.emay.superscheduler.base.TimerType;
+import cn.emay.superscheduler.cluster.ClusterView;
+import cn.emay.superscheduler.core.AdaptiveType;
+import cn.emay.superscheduler.core.ClusterMembership;
 import cn.emay.superscheduler.core.ConcurrentComputer;
 import cn.emay.superscheduler.core.OnlyLockHandler;
+import cn.emay.superscheduler.core.OverlapPolicy;
+import cn.emay.superscheduler.core.SchedulerMetrics;
 import cn.emay.superscheduler.core.SimpleConcurrentComputer;
 import cn.emay.superscheduler.core.SuperScheduled;
+import cn.emay.superscheduler.core.TaskResult;
+import cn.emay.superscheduler.metrics.DefaultSchedulerMetrics;
+import cn.emay.superscheduler.task.cluster.HeartbeatTask;
+import cn.emay.superscheduler.task.compute.AdaptiveConcurrentComputer;
 import cn.emay.superscheduler.task.compute.ComputeConcurrentExecutor;
 import cn.emay.superscheduler.task.lock.GetLockTask;
+import cn.emay.superscheduler.task.lock.LeaseGuardTask;
+import cn.emay.superscheduler.timer.DispatchingTaskScheduler;
+import cn.emay.superscheduler.timer.HashedWheelTaskScheduler;
+import cn.emay.superscheduler.timer.VirtualThreadExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
@@ -18,14 +40,29 @@ import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ExecutorConfigurationSupport;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.ClassUtils;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * super scheduler 加载单元
@@ -40,6 +77,10 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
      * 缓存spring context
      */
     public static ApplicationContext APPLICATION_CONTEXT;
+    /**
+     * 停止时等待正在进行的控制任务(续期、心跳、并发计算)完成的最长时间，单位秒
+     */
+    private static final int CONTROL_AWAIT_SECONDS = 5;
     /**
      * 线程池核心线程数
      */
@@ -52,6 +93,10 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
      * 线程池停止时等待业务执行完毕时间
      */
     private final int awaitTerminationSeconds;
+    /**
+     * 停止时等待所有任务执行完毕的总时间，单位毫秒，小于0时使用awaitTerminationSeconds
+     */
+    private long shutdownTimeoutMillis = -1L;
     /**
      * redis bean 名称
      */
@@ -65,17 +110,121 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
      */
     private final String nodeId;
     /**
-     * 线程池
+     * 单节点锁租约时间，单位秒
+     */
+    private int onlyLockLeaseSeconds = 60;
+    /**
+     * 单节点锁续期间隔，单位毫秒
+     */
+    private long onlyLockRenewMillis = 5000L;
+    /**
+     * 单节点锁本地提前过期时间，单位毫秒
+     */
+    private long onlyLockGuardMillis = 3000L;
+    /**
+     * 计时器类型
+     */
+    private TimerType timerType = TimerType.SCHEDULED_THREAD_POOL;
+    /**
+     * 时间轮刻度，单位毫秒，仅计时器类型为HASHED_WHEEL时生效
+     */
+    private long wheelTickMillis = 10L;
+    /**
+     * 执行模式
+     */
+    private ExecuteMode executeMode = ExecuteMode.PLATFORM_THREAD;
+    /**
+     * 过载策略，任务逻辑投递到舱壁或虚拟线程时生效
+     */
+    private OverloadPolicy overloadPolicy = OverloadPolicy.DISCARD;
+    /**
+     * 舱壁线程池排队容量
+     */
+    private int bulkheadQueueCapacity = Integer.MAX_VALUE;
+    /**
+     * 过载统计
+     */
+    private final OverloadStatistics overloadStatistics = new OverloadStatistics();
+    /**
+     * 调度指标记录器
      */
-    private ThreadPoolTaskScheduler businessScheduler;
+    private SchedulerMetrics metrics;
+    /**
+     * 集群成员管理，分布式分片任务使用
+     */
+    private ClusterMembership clusterMembership;
+    /**
+     * 集群心跳间隔，单位秒
+     */
+    private int heartbeatSeconds = 5;
+    /**
+     * 是否开启分布式分片
+     */
+    private boolean isDistributedEnable = false;
+    /**
+     * 线程池，执行模式为VIRTUAL_THREAD时仅负责触发
+     */
+    private ExecutorConfigurationSupport businessScheduler;
+    /**
+     * 虚拟线程执行器，仅执行模式为VIRTUAL_THREAD时存在
+     */
+    private ExecutorService virtualThreadExecutor;
     /**
      * 是否开启节点锁
      */
     private boolean isOnlyEnable = false;
     /**
-     * 单节点锁线程池
+     * 是否有任务使用全局单节点锁
      */
-    private ThreadPoolTaskScheduler onlyLockScheduler;
+    private boolean isGlobalLockUsed = false;
+    /**
+     * 控制任务线程池，执行单节点锁竞争和动态并发计算，与业务隔离
+     */
+    private ThreadPoolTaskScheduler controlScheduler;
+    /**
+     * 任务名 -> 舱壁名
+     */
+    private final Map<String, String> taskBulkheads = new HashMap<>();
+    /**
+     * 舱壁名 -> 舱壁线程数
+     */
+    private final Map<String, Integer> bulkheadSizes = new HashMap<>();
+    /**
+     * 舱壁名 -> 舱壁线程池
+     */
+    private final Map<String, ThreadPoolTaskExecutor> bulkheadExecutors = new HashMap<>();
+    /**
+     * 按类缓存的@SuperScheduled方法
+     */
+    private final ScheduledMethods scheduledMethods = new ScheduledMethods();
+    /**
+     * 是否使用编译期生成的@SuperScheduled索引
+     */
+    private boolean annotationIndexEnabled = false;
+    /**
+     * 加载@SuperScheduled方法的耗时，单位纳秒
+     */
+    private long processNanos = 0L;
+    /**
+     * 加载的@SuperScheduled方法数量
+     */
+    private int processedMethods = 0;
+    /**
+     * 运行时覆盖任务参数的属性前缀，为空不从属性读取
+     */
+    private String overridePrefix;
+    /**
+     * 任务简称(类名.方法名) -> 任务名
+     */
+    private final Map<String, String> taskAliases = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 动态并发计算任务
+     */
+    private final Map<String, ComputeConcurrentExecutor> computeExecutors = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 自适应并发计算器
+     */
+    private final Map<String, AdaptiveConcurrentComputer> adaptiveComputers = new ConcurrentHashMap<>();
     /**
      * 扫描到的SuperScheduled临时存放容器
      */
@@ -88,6 +237,10 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
      * 是否启动
      */
     private volatile boolean isStart = false;
+    /**
+     * 任务是否已经全部调度，之后才能调整并发
+     */
+    private volatile boolean isScheduled = false;
 
     public SuperScheduler(int poolSize, String threadNamePrefix, int awaitTerminationSeconds, String onlyLockName, OnlyLockHandler onlyLockHandler) {
         this.poolSize = poolSize;
@@ -98,6 +251,171 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
         this.nodeId = UUID.randomUUID().toString();
     }
 
+    /**
+     * 设置计时器类型，默认SCHEDULED_THREAD_POOL<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param timerType 计时器类型
+     */
+    public void setTimerType(TimerType timerType) {
+        this.timerType = timerType == null ? TimerType.SCHEDULED_THREAD_POOL : timerType;
+    }
+
+    /**
+     * 设置时间轮刻度，单位毫秒，默认10毫秒<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param wheelTickMillis 时间轮刻度
+     */
+    public void setWheelTickMillis(long wheelTickMillis) {
+        this.wheelTickMillis = wheelTickMillis;
+    }
+
+    /**
+     * 设置执行模式，默认PLATFORM_THREAD<br/>
+     * VIRTUAL_THREAD模式下poolSize仅为触发线程数(不超过CPU核数)，任务逻辑在虚拟线程中执行，需要JDK21及以上<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param executeMode 执行模式
+     */
+    public void setExecuteMode(ExecuteMode executeMode) {
+        this.executeMode = executeMode == null ? ExecuteMode.PLATFORM_THREAD : executeMode;
+    }
+
+    /**
+     * 设置过载策略，默认DISCARD<br/>
+     * 任务逻辑投递到舱壁或虚拟线程执行时，排队已满的处理方式<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param overloadPolicy 过载策略
+     */
+    public void setOverloadPolicy(OverloadPolicy overloadPolicy) {
+        this.overloadPolicy = overloadPolicy == null ? OverloadPolicy.DISCARD : overloadPolicy;
+    }
+
+    /**
+     * 设置舱壁线程池排队容量，默认不限制<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param bulkheadQueueCapacity 排队容量
+     */
+    public void setBulkheadQueueCapacity(int bulkheadQueueCapacity) {
+        this.bulkheadQueueCapacity = bulkheadQueueCapacity <= 0 ? Integer.MAX_VALUE : bulkheadQueueCapacity;
+    }
+
+    /**
+     * 设置覆盖任务参数的属性前缀，默认不从属性读取<br/>
+     * 属性名为 前缀.类名.方法名.参数，参数支持 fixedDelay、fixedRate、cron、fixedConcurrent、dynamicConcurrentMax、paused；<br/>
+     * 启动时在生成执行单元之前生效，运行时修改属性后调用refreshOverrides()生效<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param overridePrefix 属性前缀，例如 super-scheduler.tasks
+     */
+    public void setOverridePrefix(String overridePrefix) {
+        this.overridePrefix = overridePrefix == null || overridePrefix.length() == 0 ? null : overridePrefix;
+    }
+
+    /**
+     * 设置是否使用编译期生成的@SuperScheduled索引，默认不使用<br/>
+     * 使用时需要在所有包含@SuperScheduled的模块启用SuperScheduledIndexProcessor，启动时只反射扫描索引中的类；classpath中没有索引时仍然扫描所有bean<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param annotationIndexEnabled 是否使用索引
+     */
+    public void setAnnotationIndexEnabled(boolean annotationIndexEnabled) {
+        this.annotationIndexEnabled = annotationIndexEnabled;
+    }
+
+    /**
+     * 设置停止时等待所有任务执行完毕的总时间，默认使用awaitTerminationSeconds<br/>
+     * 停止时不再触发新的执行，等待正在进行的执行完毕，单节点任务执行完毕后立即释放锁；超时后中断仍在执行的任务
+     *
+     * @param shutdownTimeoutMillis 总时间，单位毫秒
+     */
+    public void setShutdownTimeoutMillis(long shutdownTimeoutMillis) {
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    /**
+     * 设置调度指标记录器，默认不记录<br/>
+     * 可使用DefaultSchedulerMetrics，或绑定到Micrometer的MicrometerSchedulerMetrics<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param metrics 调度指标记录器
+     */
+    public void setMetrics(SchedulerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 设置集群成员管理，distributed=true的任务需要<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param clusterMembership 集群成员管理
+     */
+    public void setClusterMembership(ClusterMembership clusterMembership) {
+        this.clusterMembership = clusterMembership;
+    }
+
+    /**
+     * 设置集群心跳间隔，单位秒，默认5秒，超过3倍间隔未上报心跳的节点视为离开<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param heartbeatSeconds 心跳间隔
+     */
+    public void setHeartbeatSeconds(int heartbeatSeconds) {
+        this.heartbeatSeconds = Math.max(1, heartbeatSeconds);
+    }
+
+    /**
+     * 设置单节点锁租约时间，单位秒，默认60秒，节点宕机后最长需要等待此时间才能由其他节点接管<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param onlyLockLeaseSeconds 租约时间
+     */
+    public void setOnlyLockLeaseSeconds(int onlyLockLeaseSeconds) {
+        this.onlyLockLeaseSeconds = Math.max(1, onlyLockLeaseSeconds);
+    }
+
+    /**
+     * 设置单节点锁续期间隔，单位毫秒，默认5000毫秒，也是竞争空闲锁的间隔<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param onlyLockRenewMillis 续期间隔
+     */
+    public void setOnlyLockRenewMillis(long onlyLockRenewMillis) {
+        this.onlyLockRenewMillis = Math.max(100L, onlyLockRenewMillis);
+    }
+
+    /**
+     * 设置单节点锁本地提前过期时间，单位毫秒，默认3000毫秒<br/>
+     * 本地有效期从发起续期的时间算起，比租约提前此时间结束，用于抵消节点之间的时钟偏差；续期间隔与此时间之和必须小于租约时间<br/>
+     * 需要在spring初始化本对象之前设置
+     *
+     * @param onlyLockGuardMillis 提前过期时间
+     */
+    public void setOnlyLockGuardMillis(long onlyLockGuardMillis) {
+        this.onlyLockGuardMillis = Math.max(0L, onlyLockGuardMillis);
+    }
+
+    /**
+     * 当前节点标示
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 过载统计，按任务名统计被拒绝、被合并的执行次数
+     */
+    public OverloadStatistics getOverloadStatistics() {
+        return overloadStatistics;
+    }
+
     /**
      * 1. 缓存spring上下文
      *
@@ -110,18 +428,69 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
     }
 
     /**
-     * 2. 初始化业务线程池、业务线程池容器、redis
+     * 2. 初始化业务线程池、控制任务线程池、业务线程池容器
      */
     @Override
     public void afterPropertiesSet() {
         tempWaitTasks = new ArrayList<>();
-        businessScheduler = new ThreadPoolTaskScheduler();
-        businessScheduler.setPoolSize(Math.max(1, poolSize));
+        if (annotationIndexEnabled) {
+            boolean indexed = scheduledMethods.loadIndex(ClassUtils.getDefaultClassLoader());
+            log.info("super-scheduler annotation index " + (indexed ? "loaded" : "not found, scan all beans"));
+        }
+        boolean isVirtual = executeMode == ExecuteMode.VIRTUAL_THREAD;
+        int timerPoolSize = Math.max(1, poolSize);
+        if (isVirtual) {
+            virtualThreadExecutor = VirtualThreadExecutors.newVirtualThreadPerTaskExecutor(threadNamePrefix + "virtual-");
+            timerPoolSize = Math.min(timerPoolSize, Runtime.getRuntime().availableProcessors());
+        }
+        if (timerType == TimerType.HASHED_WHEEL) {
+            HashedWheelTaskScheduler wheelScheduler = new HashedWheelTaskScheduler();
+            wheelScheduler.setPoolSize(timerPoolSize);
+            wheelScheduler.setTickMillis(wheelTickMillis);
+            businessScheduler = wheelScheduler;
+        } else {
+            ThreadPoolTaskScheduler threadPoolScheduler = new ThreadPoolTaskScheduler();
+            threadPoolScheduler.setPoolSize(timerPoolSize);
+            businessScheduler = threadPoolScheduler;
+        }
         businessScheduler.setThreadNamePrefix(threadNamePrefix);
-        businessScheduler.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        businessScheduler.setRejectedExecutionHandler(countingRejectedHandler(threadNamePrefix));
         businessScheduler.setAwaitTerminationSeconds(Math.max(0, awaitTerminationSeconds));
         businessScheduler.initialize();
-        executor = new SuperExecutor(businessScheduler);
+        controlScheduler = new ThreadPoolTaskScheduler();
+        controlScheduler.setPoolSize(2);
+        controlScheduler.setThreadNamePrefix(threadNamePrefix + "control-");
+        controlScheduler.setRejectedExecutionHandler(countingRejectedHandler(threadNamePrefix + "control-"));
+        controlScheduler.initialize();
+        // 停止时不中断正在进行的续期(redis/数据库调用)，只等待其完成，周期任务和未到期的任务不再执行，见shutdownControlScheduler
+        controlScheduler.getScheduledThreadPoolExecutor().setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        TaskScheduler taskScheduler = (TaskScheduler) businessScheduler;
+        if (isVirtual) {
+            taskScheduler = new DispatchingTaskScheduler(taskScheduler, virtualThreadExecutor, overloadPolicy, overloadStatistics);
+        }
+        executor = new SuperExecutor(taskScheduler, controlScheduler);
+        executor.setMetrics(metrics);
+        executor.setOnlyLockName(onlyLockName);
+        if (clusterMembership != null) {
+            executor.setClusterView(new ClusterView(nodeId));
+        }
+        log.info("super-scheduler timer : " + timerType + ", execute mode : " + executeMode);
+    }
+
+    /**
+     * 线程池拒绝执行时计数并告警，不再静默丢弃
+     *
+     * @param poolName 线程池名称
+     * @return 拒绝处理器
+     */
+    private RejectedExecutionHandler countingRejectedHandler(String poolName) {
+        OverloadStatistics.TaskOverload overload = overloadStatistics.get(poolName);
+        return (runnable, pool) -> {
+            overload.rejected();
+            if (!pool.isShutdown()) {
+                log.warn("线程池[" + poolName + "]拒绝执行任务，累计" + overload.getRejected() + "次");
+            }
+        };
     }
 
     /**
@@ -134,12 +503,16 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
      */
     @Override
     public Object postProcessAfterInitialization(Object bean, @NonNull String beanName) throws BeansException {
-        for (Method method : bean.getClass().getDeclaredMethods()) {
-            SuperScheduled scheduled = method.getAnnotation(SuperScheduled.class);
-            if (scheduled != null) {
-                this.processSuperScheduled(scheduled, bean, method);
-            }
+        List<Method> methods = scheduledMethods.find(bean.getClass());
+        if (methods.isEmpty()) {
+            return bean;
+        }
+        long start = System.nanoTime();
+        for (Method method : methods) {
+            this.processSuperScheduled(method.getAnnotation(SuperScheduled.class), bean, method);
         }
+        processNanos += System.nanoTime() - start;
+        processedMethods += methods.size();
         return bean;
     }
 
@@ -151,9 +524,13 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
      * @param method    方法
      */
     private void processSuperScheduled(SuperScheduled scheduled, Object bean, Method method) {
-        String name = "@SuperScheduled[" + bean.getClass().getName() + ":" + method.getName() + "]";
+        String name = "@SuperScheduled[" + ClassUtils.getUserClass(bean).getName() + ":" + method.getName() + "]";
         boolean only = scheduled.only();
         isOnlyEnable = isOnlyEnable || only;
+        if (only) {
+            isGlobalLockUsed = isGlobalLockUsed || scheduled.onlyLockKey().length() == 0;
+            executor.setTaskLock(name, scheduled.onlyLockKey(), scheduled.onlyLockPerShard());
+        }
 
         long initialDelay = Math.max(scheduled.initialDelay(), 0L);
 
@@ -161,44 +538,149 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
         String dynamicConcurrentComputeBean = scheduled.dynamicConcurrentComputeBean();
         int dynamicConcurrentMax = scheduled.dynamicConcurrentMax();
         int fixedConcurrent = scheduled.fixedConcurrent();
+        AdaptiveType adaptive = scheduled.dynamicConcurrentAdaptive();
         boolean isDynamicConcurrent = dynamicConcurrentComputeDelay > 0L;
+        if (scheduled.distributed()) {
+            if (only) {
+                throw new IllegalArgumentException(name + "分布式分片[distributed=true]不能与单节点执行[only=true]同时使用");
+            }
+            if (!isDynamicConcurrent) {
+                throw new IllegalArgumentException(name + "分布式分片[distributed=true]需要设置动态调整并发数间隔时间[dynamicConcurrentComputeDelay]");
+            }
+            if (clusterMembership == null) {
+                throw new IllegalArgumentException(name + "分布式分片[distributed=true]，但是ClusterMembership没有定义");
+            }
+            isDistributedEnable = true;
+        }
+        if (scheduled.circuitBreakerFailures() > 0 && !scheduled.dynamicDelay()) {
+            throw new IllegalArgumentException(name + "熔断[circuitBreakerFailures]仅支持动态执行时间任务[dynamicDelay=true]");
+        }
+        if (scheduled.dynamicDelay()) {
+            long backoffMaxMillis = scheduled.failureBackoffMaxMillis() > 0L ? scheduled.failureBackoffMaxMillis() : scheduled.failureBackoffMillis();
+            if (scheduled.failureBackoffMillis() <= 0L || backoffMaxMillis < scheduled.failureBackoffMillis()) {
+                throw new IllegalArgumentException(name + "失败退避时间[failureBackoffMillis]必须大于0且不大于最大退避时间[failureBackoffMaxMillis]");
+            }
+            if (scheduled.failureBackoffJitter() < 0D || scheduled.failureBackoffJitter() > 1D) {
+                throw new IllegalArgumentException(name + "失败退避抖动比例[failureBackoffJitter]必须在0到1之间");
+            }
+            if (scheduled.circuitBreakerFailures() > 0 && scheduled.circuitBreakerOpenMillis() <= 0L) {
+                throw new IllegalArgumentException(name + "熔断试探间隔[circuitBreakerOpenMillis]必须大于0");
+            }
+            // 未配置退避的任务保持固定1秒重试
+            FailureBackoff backoff = null;
+            if (scheduled.failureBackoffMillis() != FailureBackoff.FIXED_ONE_SECOND.getInitialMillis() || backoffMaxMillis != FailureBackoff.FIXED_ONE_SECOND.getMaxMillis() || scheduled.failureBackoffJitter() > 0D) {
+                backoff = new FailureBackoff(scheduled.failureBackoffMillis(), backoffMaxMillis, scheduled.failureBackoffJitter());
+            }
+            executor.setFailurePolicy(name, backoff, scheduled.circuitBreakerFailures(), scheduled.circuitBreakerOpenMillis());
+        }
+        if (scheduled.jitter() < 0D || scheduled.jitter() > 1D) {
+            throw new IllegalArgumentException(name + "随机抖动比例[jitter]必须在0到1之间");
+        }
+        if (scheduled.cron().length() > 0 && (scheduled.jitter() > 0D || scheduled.startSpread() >= 0L)) {
+            throw new IllegalArgumentException(name + "CRON任务不支持错开执行[startSpread]和随机抖动[jitter]");
+        }
+        if (scheduled.dynamicDelay() && scheduled.startSpread() == 0L) {
+            throw new IllegalArgumentException(name + "动态执行时间任务没有固定周期，错开窗口[startSpread]需要大于0");
+        }
+        executor.setJitter(name, scheduled.jitter());
+        executor.setShutdownTimeout(name, scheduled.shutdownTimeout());
+        if (scheduled.dynamicDelay() && (scheduled.overlapPolicy() != OverlapPolicy.ALLOW || scheduled.misfireThreshold() > 0L)) {
+            throw new IllegalArgumentException(name + "动态执行时间任务不支持重叠执行策略[overlapPolicy]和错过执行阈值[misfireThreshold]");
+        }
+        if (scheduled.overlapPolicy() == OverlapPolicy.QUEUE && scheduled.overlapQueue() <= 0) {
+            throw new IllegalArgumentException(name + "重叠执行策略为QUEUE时最大排队次数[overlapQueue]必须大于0");
+        }
+        executor.setOverlapPolicy(name, scheduled.overlapPolicy(), scheduled.overlapQueue(), scheduled.misfireThreshold());
+        // 异步方法返回CompletionStage，完成后才计算下次执行时间
+        boolean async = CompletionStage.class.isAssignableFrom(method.getReturnType());
+        // 批处理方法最后可以多一个int类型的批量大小参数
+        boolean batch = method.getReturnType().equals(TaskResult.class);
+        int parameterCount = method.getParameterCount();
+        if (batch && parameterCount > 0 && method.getParameterTypes()[parameterCount - 1].equals(int.class)) {
+            parameterCount--;
+        }
+        if (batch && scheduled.dynamicDelay()) {
+            if (scheduled.batchSize() <= 0 || scheduled.batchSizeMax() < scheduled.batchSize()) {
+                throw new IllegalArgumentException(name + "批量大小[batchSize]必须大于0且不大于最大批量大小[batchSizeMax]");
+            }
+            if (scheduled.batchIdleDelay() < 0L) {
+                throw new IllegalArgumentException(name + "没有积压时的执行间隔[batchIdleDelay]不能小于0");
+            }
+            executor.setBatchPolicy(name, new BatchPolicy(scheduled.batchSize(), scheduled.batchSizeMax(), scheduled.batchTargetMillis(), scheduled.batchBurstMillis(), scheduled.batchIdleDelay()));
+        }
+        if (adaptive != AdaptiveType.NONE && !isDynamicConcurrent) {
+            throw new IllegalArgumentException(name + "自适应并发[" + adaptive + "]需要设置动态调整并发数间隔时间[dynamicConcurrentComputeDelay]");
+        }
         Object computer = null;
+        AdaptiveConcurrentComputer adaptiveComputer = null;
         if (isDynamicConcurrent) {
-            try {
-                computer = APPLICATION_CONTEXT.getBean(dynamicConcurrentComputeBean);
-            } catch (BeansException e) {
-                throw new IllegalArgumentException(name + "动态调整并发开启，但是调整Bean[" + dynamicConcurrentComputeBean + "]在spring没有注册");
+            if (adaptive == AdaptiveType.NONE || dynamicConcurrentComputeBean.length() > 0) {
+                try {
+                    computer = APPLICATION_CONTEXT.getBean(dynamicConcurrentComputeBean);
+                } catch (BeansException e) {
+                    throw new IllegalArgumentException(name + "动态调整并发开启，但是调整Bean[" + dynamicConcurrentComputeBean + "]在spring没有注册");
+                }
             }
-            if (computer instanceof SimpleConcurrentComputer) {
-                if (method.getParameterCount() != 0) {
+            if (computer == null || computer instanceof SimpleConcurrentComputer) {
+                if (parameterCount != 0) {
                     throw new IllegalArgumentException(name + "动态并发任务，方法不能定义参数");
                 }
             } else {
-                if (method.getParameterCount() != 1) {
+                if (parameterCount != 1) {
                     throw new IllegalArgumentException(name + "动态分片并发任务，方法必须只能有一个String类型的参数");
                 }
                 if (!method.getParameterTypes()[0].getName().equals(String.class.getName())) {
                     throw new IllegalArgumentException(name + "动态分片并发任务，方法必须只能有一个String类型的参数");
                 }
             }
+            if (adaptive != AdaptiveType.NONE) {
+                adaptiveComputer = AdaptiveConcurrentComputer.create(adaptive, (ConcurrentComputer) computer, dynamicConcurrentMax);
+                executor.addExecutionListener(name, adaptiveComputer);
+                computer = adaptiveComputer;
+            }
         } else {
             if (fixedConcurrent <= 0) {
                 throw new IllegalArgumentException(name + "采用固定并发数，但是并发数设置小于0[fixedConcurrent=" + fixedConcurrent + "]");
             }
-            if (method.getParameterCount() != 0) {
+            if (parameterCount != 0) {
                 throw new IllegalArgumentException(name + "固定并发任务，方法不能定义参数");
             }
         }
 
+        // 参数校验通过后一次性编译方法调用器，所有执行单元共用
+        TaskInvoker invoker = TaskInvoker.compile(bean, method);
+
+        // 登记运行时控制，属性覆盖在生成执行单元之前生效
+        TaskControl control = executor.registerTaskControl(name, getTaskType(scheduled), invoker, scheduled);
+        String alias = ClassUtils.getUserClass(bean).getSimpleName() + "." + method.getName();
+        taskAliases.putIfAbsent(alias, name);
+        if (overridePrefix != null) {
+            applyOverrides(control, alias);
+        }
+        fixedConcurrent = control.getFixedConcurrent();
+        if (adaptiveComputer != null) {
+            adaptiveComputer.setConcurrentMax(control.getConcurrentMax());
+            adaptiveComputers.put(name, adaptiveComputer);
+        }
+
+        String bulkhead = scheduled.bulkhead();
+        if (bulkhead.length() == 0 && scheduled.bulkheadSize() > 0) {
+            bulkhead = name;
+        }
+        if (bulkhead.length() > 0) {
+            taskBulkheads.put(name, bulkhead);
+            bulkheadSizes.merge(bulkhead, scheduled.bulkheadSize(), Math::max);
+        }
+
         if (scheduled.cron().length() > 0) {
-            if (!method.getReturnType().equals(void.class)) {
-                throw new IllegalArgumentException(name + "CRON任务，方法返回值类型必须是void");
+            if (!method.getReturnType().equals(void.class) && !async) {
+                throw new IllegalArgumentException(name + "CRON任务，方法返回值类型必须是void或CompletionStage");
             }
             if (isDynamicConcurrent) {
-                addDynamicTask(name, scheduled, bean, method, TaskType.CRON, dynamicConcurrentComputeDelay, computer);
+                addDynamicTask(name, scheduled, invoker, TaskType.CRON, dynamicConcurrentComputeDelay, computer);
             } else {
                 for (int i = 0; i < fixedConcurrent; i++) {
-                    TaskItem item = executor.genCronTask(scheduled.only(), name, SuperExecutor.DEFAULT_SHARDED, bean, method, scheduled.cron());
+                    TaskItem item = executor.genCronTask(scheduled.only(), name, SuperExecutor.DEFAULT_SHARDED, invoker, scheduled.cron());
                     tempWaitTasks.add(item);
                     if (log.isDebugEnabled()) {
                         log.debug("加载" + TaskType.CRON.toString() + "任务" + item.getName());
@@ -208,14 +690,16 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
         }
 
         if (scheduled.fixedDelay() > 0L) {
-            if (!method.getReturnType().equals(void.class)) {
-                throw new IllegalArgumentException(name + "固定间隔时间任务，方法返回值类型必须是void");
+            if (!method.getReturnType().equals(void.class) && !async) {
+                throw new IllegalArgumentException(name + "固定间隔时间任务，方法返回值类型必须是void或CompletionStage");
             }
             if (isDynamicConcurrent) {
-                addDynamicTask(name, scheduled, bean, method, TaskType.FIXED_DELAY, dynamicConcurrentComputeDelay, computer);
+                addDynamicTask(name, scheduled, invoker, TaskType.FIXED_DELAY, dynamicConcurrentComputeDelay, computer);
             } else {
+                long spread = SuperExecutor.getStartSpread(TaskType.FIXED_DELAY, scheduled);
                 for (int i = 0; i < fixedConcurrent; i++) {
-                    TaskItem item = executor.genFixedDelayTask(scheduled.only(), name, SuperExecutor.DEFAULT_SHARDED, bean, method, scheduled.fixedDelay(), initialDelay);
+                    long phase = SuperExecutor.getPhase(spread, i, fixedConcurrent);
+                    TaskItem item = executor.genFixedDelayTask(scheduled.only(), name, SuperExecutor.DEFAULT_SHARDED, invoker, scheduled.fixedDelay(), initialDelay, phase);
                     tempWaitTasks.add(item);
                     if (log.isDebugEnabled()) {
                         log.debug("加载" + TaskType.FIXED_DELAY.toString() + "任务" + item.getName());
@@ -225,14 +709,16 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
         }
 
         if (scheduled.fixedRate() > 0) {
-            if (!method.getReturnType().equals(void.class)) {
-                throw new IllegalArgumentException(name + "固定频率任务，方法返回值类型必须是void");
+            if (!method.getReturnType().equals(void.class) && !async) {
+                throw new IllegalArgumentException(name + "固定频率任务，方法返回值类型必须是void或CompletionStage");
             }
             if (isDynamicConcurrent) {
-                addDynamicTask(name, scheduled, bean, method, TaskType.FIXED_RATE, dynamicConcurrentComputeDelay, computer);
+                addDynamicTask(name, scheduled, invoker, TaskType.FIXED_RATE, dynamicConcurrentComputeDelay, computer);
             } else {
+                long spread = SuperExecutor.getStartSpread(TaskType.FIXED_RATE, scheduled);
                 for (int i = 0; i < fixedConcurrent; i++) {
-                    TaskItem item = executor.genFixedRateTask(scheduled.only(), name, SuperExecutor.DEFAULT_SHARDED, bean, method, scheduled.fixedRate(), initialDelay);
+                    long phase = SuperExecutor.getPhase(spread, i, fixedConcurrent);
+                    TaskItem item = executor.genFixedRateTask(scheduled.only(), name, SuperExecutor.DEFAULT_SHARDED, invoker, scheduled.fixedRate(), initialDelay, phase);
                     tempWaitTasks.add(item);
                     if (log.isDebugEnabled()) {
                         log.debug("加载" + TaskType.FIXED_RATE.toString() + "任务" + item.getName());
@@ -242,14 +728,19 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
         }
 
         if (scheduled.dynamicDelay()) {
-            if (!method.getReturnType().equals(long.class)) {
-                throw new IllegalArgumentException(name + "动态执行时间任务，方法返回值类型必须是long");
+            if (!method.getReturnType().equals(long.class) && !batch && !async) {
+                throw new IllegalArgumentException(name + "动态执行时间任务，方法返回值类型必须是long、TaskResult或CompletionStage<Long>");
+            }
+            if (async && !isDelayStage(method)) {
+                throw new IllegalArgumentException(name + "动态执行时间任务，异步方法返回值类型必须是CompletionStage<Long>");
             }
             if (isDynamicConcurrent) {
-                addDynamicTask(name, scheduled, bean, method, TaskType.DYNAMIC_DELAY, dynamicConcurrentComputeDelay, computer);
+                addDynamicTask(name, scheduled, invoker, TaskType.DYNAMIC_DELAY, dynamicConcurrentComputeDelay, computer);
             } else {
+                long spread = SuperExecutor.getStartSpread(TaskType.DYNAMIC_DELAY, scheduled);
                 for (int i = 0; i < fixedConcurrent; i++) {
-                    TaskItem item = executor.genDynamicDelayTask(scheduled.only(), name, SuperExecutor.DEFAULT_SHARDED, bean, method, initialDelay);
+                    long phase = SuperExecutor.getPhase(spread, i, fixedConcurrent);
+                    TaskItem item = executor.genDynamicDelayTask(scheduled.only(), name, SuperExecutor.DEFAULT_SHARDED, invoker, initialDelay, phase);
                     tempWaitTasks.add(item);
                     if (log.isDebugEnabled()) {
                         log.debug("加载" + TaskType.DYNAMIC_DELAY.toString() + "任务" + item.getName());
@@ -264,15 +755,22 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
      *
      * @param name                          任务名
      * @param scheduled                     定义
-     * @param bean                          对象
-     * @param method                        方法
+     * @param invoker                       方法调用器
      * @param type                          任务类型
      * @param dynamicConcurrentComputeDelay 动态并发计算延时
      * @param computer                      动态并发计算器
      */
-    private void addDynamicTask(String name, SuperScheduled scheduled, Object bean, Method method, TaskType type, long dynamicConcurrentComputeDelay, Object computer) {
-        ComputeConcurrentExecutor task = new ComputeConcurrentExecutor(executor, name, scheduled, bean, method, type, (ConcurrentComputer) computer);
-        TaskItem item = executor.genFixedDelayTask(false, name, SuperExecutor.DYNAMIC_SHARDED, task, ComputeConcurrentExecutor.getLogicMethod(), dynamicConcurrentComputeDelay, 0L);
+    private void addDynamicTask(String name, SuperScheduled scheduled, TaskInvoker invoker, TaskType type, long dynamicConcurrentComputeDelay, Object computer) {
+        ComputeConcurrentExecutor task = new ComputeConcurrentExecutor(executor, name, scheduled, invoker, type, (ConcurrentComputer) computer);
+        computeExecutors.put(name, task);
+        TaskInvoker computeInvoker = TaskInvoker.compile(task, ComputeConcurrentExecutor.getLogicMethod());
+        if (scheduled.distributed()) {
+            // 集群节点变化时立即重新分配分片
+            executor.getClusterView().addListener(task::compute);
+        }
+        // 任务级锁与执行单元共同挂起恢复；按分片竞争锁时计算任务始终运行，负责登记和注销分片锁
+        boolean lockCompute = scheduled.only() && !scheduled.onlyLockPerShard();
+        TaskItem item = executor.genFixedDelayTask(lockCompute, name, SuperExecutor.DYNAMIC_SHARDED, computeInvoker, dynamicConcurrentComputeDelay, 0L);
         tempWaitTasks.add(item);
         if (log.isDebugEnabled()) {
             log.debug("加载动态调配并发" + type.toString() + "任务" + name);
@@ -280,30 +778,63 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
     }
 
     /**
-     * 4. 所有task加载后，加载单节点锁定线程池和任务、执行所有任务<br/>
+     * 4. 所有task加载后，加载单节点锁定任务、舱壁线程池、执行所有任务<br/>
      * spring 容器启动后执行此启动
      */
     @Override
     public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
         log.info("super-scheduler starting");
+        log.info("super-scheduler scanned " + scheduledMethods.getLookups() + " beans, " + scheduledMethods.getCachedClasses() + " classes (" + scheduledMethods.getScanned() + " reflected" + (scheduledMethods.isIndexed() ? ", indexed" : "") + ") in "
+                + TimeUnit.NANOSECONDS.toMillis(scheduledMethods.getLookupNanos()) + "ms, loaded " + processedMethods + " methods in " + TimeUnit.NANOSECONDS.toMillis(processNanos) + "ms");
+        scheduledMethods.clear();
         if (isOnlyEnable) {
             if (onlyLockHandler == null) {
                 throw new IllegalArgumentException("集群单节点执行参数[only=true]，但是onlyLock没有定义");
             }
-            if (onlyLockName == null) {
+            if (isGlobalLockUsed && onlyLockName == null) {
                 throw new IllegalArgumentException("集群单节点执行参数[only=true]，但是onlyLockName没有配置");
             }
-            onlyLockScheduler = new ThreadPoolTaskScheduler();
-            onlyLockScheduler.setPoolSize(1);
-            onlyLockScheduler.setThreadNamePrefix(threadNamePrefix + "_lock_only_");
-            onlyLockScheduler.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
-            onlyLockScheduler.initialize();
-            GetLockTask task = new GetLockTask(onlyLockHandler, onlyLockName, nodeId, executor);
-            onlyLockScheduler.scheduleWithFixedDelay(task, 5000L);
+            if (onlyLockRenewMillis + onlyLockGuardMillis >= onlyLockLeaseSeconds * 1000L) {
+                throw new IllegalArgumentException("单节点锁续期间隔[" + onlyLockRenewMillis + "ms]与提前过期时间[" + onlyLockGuardMillis + "ms]之和必须小于租约时间[" + onlyLockLeaseSeconds + "s]");
+            }
+            GetLockTask task = new GetLockTask(onlyLockHandler, nodeId, executor, onlyLockLeaseSeconds, onlyLockGuardMillis);
+            controlScheduler.scheduleWithFixedDelay(task, onlyLockRenewMillis);
+            // 租约保护按提前过期时间的一半检查，最长1秒
+            LeaseGuardTask guardTask = new LeaseGuardTask(nodeId, executor);
+            controlScheduler.scheduleWithFixedDelay(guardTask, Math.max(100L, Math.min(1000L, onlyLockGuardMillis / 2L)));
         }
+        if (isDistributedEnable) {
+            HeartbeatTask task = new HeartbeatTask(clusterMembership, executor.getClusterView(), heartbeatSeconds * 3);
+            controlScheduler.scheduleWithFixedDelay(task, heartbeatSeconds * 1000L);
+        }
+        initBulkheads();
         tempWaitTasks.forEach(task -> executor.scheduleTask(task));
         tempWaitTasks.clear();
-        log.info("super-scheduler started");
+        isScheduled = true;
+        log.info("super-scheduler started in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    }
+
+    /**
+     * 初始化舱壁线程池，并把任务绑定到舱壁<br/>
+     * 业务线程池只负责触发，任务逻辑在舱壁线程池执行
+     */
+    private void initBulkheads() {
+        bulkheadSizes.forEach((bulkhead, size) -> {
+            if (size <= 0) {
+                throw new IllegalArgumentException("舱壁[" + bulkhead + "]没有任务定义线程数[bulkheadSize]");
+            }
+            ThreadPoolTaskExecutor bulkheadExecutor = new ThreadPoolTaskExecutor();
+            bulkheadExecutor.setCorePoolSize(size);
+            bulkheadExecutor.setMaxPoolSize(size);
+            bulkheadExecutor.setQueueCapacity(bulkheadQueueCapacity);
+            bulkheadExecutor.setThreadNamePrefix(threadNamePrefix + "bulkhead-" + bulkhead + "-");
+            bulkheadExecutor.setAwaitTerminationSeconds(Math.max(0, awaitTerminationSeconds));
+            bulkheadExecutor.initialize();
+            bulkheadExecutors.put(bulkhead, bulkheadExecutor);
+            log.info("super-scheduler bulkhead[" + bulkhead + "] size : " + size + ", overload policy : " + overloadPolicy);
+        });
+        taskBulkheads.forEach((name, bulkhead) -> executor.setTaskScheduler(name, new DispatchingTaskScheduler((TaskScheduler) businessScheduler, bulkheadExecutors.get(bulkhead), overloadPolicy, overloadStatistics)));
     }
 
     @Override
@@ -312,28 +843,420 @@ public class SuperScheduler implements BeanPostProcessor, ApplicationContextAwar
     }
 
     /**
-     * 5. 加载单元销毁后，停止并销毁所有任务、业务线程池、锁定线程池、业务线程池容器<br/>
-     * 在销毁之前关停
+     * 5. 加载单元销毁后，停止并销毁所有任务、控制任务线程池、业务线程池、舱壁线程池<br/>
+     * 在销毁之前关停：先不再触发新的执行，再等待正在进行的执行完毕，单节点任务执行完毕后立即释放锁，<br/>
+     * 超过停止总时间仍在执行的任务在关闭线程池时中断
      */
     @Override
     public void stop() {
         isStart = false;
+        isScheduled = false;
         log.info("super-scheduler stopping");
+        long start = System.nanoTime();
+        long timeoutMillis = shutdownTimeoutMillis >= 0L ? shutdownTimeoutMillis : TimeUnit.SECONDS.toMillis(Math.max(0, awaitTerminationSeconds));
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
         executor.destroy();
-        if (isOnlyEnable && onlyLockScheduler != null) {
-            onlyLockScheduler.shutdown();
+        // 停止竞争锁和动态并发计算，等待期间不再续期，也不再重新获取已经释放的锁；正在进行的一轮续期执行完毕，持有的租约不会提前失效
+        shutdownControlScheduler(remainingMillis(deadline));
+        Map<String, Integer> interrupted = executor.drain(remainingMillis(deadline), keys -> unLock(keys));
+        long drainMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (interrupted.isEmpty()) {
+            log.info("super-scheduler drained in " + drainMillis + "ms");
+        } else {
+            log.warn("super-scheduler drain timeout in " + drainMillis + "ms, interrupt in-flight " + interrupted);
         }
+        overloadStatistics.getAll().values().forEach(overload -> {
+            if (overload.getRejected() + overload.getCoalesced() + overload.getCallerRuns() + overload.getDroppedOldest() > 0) {
+                log.info("super-scheduler overload " + overload);
+            }
+        });
+        if (metrics instanceof DefaultSchedulerMetrics) {
+            ((DefaultSchedulerMetrics) metrics).getAll().forEach(taskMetrics -> log.info("super-scheduler metrics " + taskMetrics));
+            ((DefaultSchedulerMetrics) metrics).getAllRebalance().forEach(rebalance -> log.info("super-scheduler rebalance " + rebalance));
+        }
+        // 正在进行的执行已经等待过，关闭线程池时只等待剩余时间
+        int remainingSeconds = (int) Math.max(0L, TimeUnit.NANOSECONDS.toSeconds(deadline - System.nanoTime()));
+        businessScheduler.setAwaitTerminationSeconds(remainingSeconds);
         businessScheduler.shutdown();
+        bulkheadExecutors.values().forEach(bulkheadExecutor -> {
+            bulkheadExecutor.setAwaitTerminationSeconds(remainingSeconds);
+            bulkheadExecutor.shutdown();
+        });
+        if (virtualThreadExecutor != null) {
+            shutdownVirtualThreadExecutor(remainingSeconds);
+        }
+        if (isDistributedEnable) {
+            log.info("super-scheduler leave cluster by " + nodeId);
+            clusterMembership.leave(nodeId);
+        }
         if (isOnlyEnable && onlyLockHandler != null) {
-            log.info("super-scheduler unlock by " + nodeId);
-            onlyLockHandler.unLock(onlyLockName, nodeId);
+            unLock(executor.getLockTable().getHeldKeys());
         }
         log.info("super-scheduler stopped");
     }
 
+    /**
+     * 释放本节点持有的锁
+     *
+     * @param keys 锁名称
+     */
+    private void unLock(List<String> keys) {
+        if (!isOnlyEnable || onlyLockHandler == null || keys.isEmpty()) {
+            return;
+        }
+        log.info("super-scheduler unlock " + keys + " by " + nodeId);
+        try {
+            onlyLockHandler.unLock(keys, nodeId);
+        } catch (Throwable e) {
+            log.error("super-scheduler unlock " + keys + " error", e);
+        }
+    }
+
+    /**
+     * 距离停止截止时间的剩余时间
+     *
+     * @param deadline 截止时间，System.nanoTime()
+     * @return 剩余时间，单位毫秒，不小于0
+     */
+    private long remainingMillis(long deadline) {
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    /**
+     * 停止控制任务线程池，不中断正在进行的控制任务，最多等待CONTROL_AWAIT_SECONDS，且不超过停止的剩余时间
+     *
+     * @param remainingMillis 停止的剩余时间，单位毫秒
+     */
+    private void shutdownControlScheduler(long remainingMillis) {
+        ScheduledThreadPoolExecutor control = controlScheduler.getScheduledThreadPoolExecutor();
+        control.shutdown();
+        long awaitMillis = Math.min(TimeUnit.SECONDS.toMillis(CONTROL_AWAIT_SECONDS), remainingMillis);
+        try {
+            if (!control.awaitTermination(awaitMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("super-scheduler control tasks not finished in " + awaitMillis + "ms, interrupt");
+                control.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            control.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 停止虚拟线程执行器，等待业务执行完毕
+     *
+     * @param awaitSeconds 等待时间，单位秒
+     */
+    private void shutdownVirtualThreadExecutor(int awaitSeconds) {
+        virtualThreadExecutor.shutdown();
+        try {
+            if (!virtualThreadExecutor.awaitTermination(awaitSeconds, TimeUnit.SECONDS)) {
+                virtualThreadExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            virtualThreadExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @Override
     public boolean isRunning() {
         return isStart;
     }
 
-}
\ No newline at end of file
+    /**
+     * 任务类型，同一方法定义多种类型时按cron、固定间隔、固定频率、动态执行时间的顺序取第一个
+     *
+     * @param scheduled 定义
+     * @return 任务类型
+     */
+    private static TaskType getTaskType(SuperScheduled scheduled) {
+        if (scheduled.cron().length() > 0) {
+            return TaskType.CRON;
+        }
+        if (scheduled.fixedDelay() > 0L) {
+            return TaskType.FIXED_DELAY;
+        }
+        if (scheduled.fixedRate() > 0L) {
+            return TaskType.FIXED_RATE;
+        }
+        return TaskType.DYNAMIC_DELAY;
+    }
+
+    /**
+     * 所有任务的运行时控制，任务名 -> 控制
+     */
+    public Map<String, TaskControl> getTaskControls() {
+        return executor.getTaskControls();
+    }
+
+    /**
+     * 运行时调整固定间隔任务的间隔，复用已有的执行单元，每个执行单元在 错开时间+新间隔 后按新间隔执行
+     *
+     * @param task       任务名或简称(类名.方法名)
+     * @param fixedDelay 间隔，单位毫秒，小于等于0恢复为注解定义
+     */
+    public void setFixedDelay(String task, long fixedDelay) {
+        TaskControl control = getControl(task);
+        if (control.getScheduled().fixedDelay() <= 0L) {
+            throw new IllegalArgumentException(control.getName() + "不是固定间隔时间任务");
+        }
+        control.setPeriod(fixedDelay);
+        int count = executor.reschedule(control.getName());
+        log.info("super-scheduler " + control.getName() + " fixedDelay -> " + control.getPeriod(control.getScheduled().fixedDelay()) + "ms, rescheduled " + count);
+    }
+
+    /**
+     * 运行时调整固定频率任务的频率，复用已有的执行单元，每个执行单元在 错开时间+新周期 后按新周期执行
+     *
+     * @param task      任务名或简称(类名.方法名)
+     * @param fixedRate 周期，单位毫秒，小于等于0恢复为注解定义
+     */
+    public void setFixedRate(String task, long fixedRate) {
+        TaskControl control = getControl(task);
+        if (control.getScheduled().fixedRate() <= 0L) {
+            throw new IllegalArgumentException(control.getName() + "不是固定频率任务");
+        }
+        control.setPeriod(fixedRate);
+        int count = executor.reschedule(control.getName());
+        log.info("super-scheduler " + control.getName() + " fixedRate -> " + control.getPeriod(control.getScheduled().fixedRate()) + "ms, rescheduled " + count);
+    }
+
+    /**
+     * 运行时调整cron任务的表达式，复用已有的执行单元，按新表达式计算下次执行时间
+     *
+     * @param task 任务名或简称(类名.方法名)
+     * @param cron cron表达式，为空恢复为注解定义
+     */
+    public void setCron(String task, String cron) {
+        TaskControl control = getControl(task);
+        if (control.getScheduled().cron().length() == 0) {
+            throw new IllegalArgumentException(control.getName() + "不是CRON任务");
+        }
+        control.setCron(cron);
+        int count = executor.reschedule(control.getName());
+        log.info("super-scheduler " + control.getName() + " cron -> " + (control.getCron() == null ? control.getScheduled().cron() : control.getCron()) + ", rescheduled " + count);
+    }
+
+    /**
+     * 运行时调整固定并发任务的并发数，只增加或移除差额
+     *
+     * @param task            任务名或简称(类名.方法名)
+     * @param fixedConcurrent 并发数，小于等于0恢复为注解定义
+     */
+    public void setFixedConcurrent(String task, int fixedConcurrent) {
+        TaskControl control = getControl(task);
+        if (control.getScheduled().dynamicConcurrentComputeDelay() > 0L) {
+            throw new IllegalArgumentException(control.getName() + "是动态并发任务，请调整最大并发数[dynamicConcurrentMax]");
+        }
+        if (!isScheduled) {
+            throw new IllegalArgumentException(control.getName() + "调整并发数需要在启动之后，启动前请使用属性覆盖");
+        }
+        control.setFixedConcurrent(fixedConcurrent);
+        int before = executor.resize(control, control.getFixedConcurrent());
+        log.info("super-scheduler " + control.getName() + " fixedConcurrent " + before + " -> " + control.getFixedConcurrent());
+    }
+
+    /**
+     * 运行时调整动态并发任务的最大并发数，立即重新计算并发
+     *
+     * @param task                 任务名或简称(类名.方法名)
+     * @param dynamicConcurrentMax 最大并发数，小于等于0恢复为注解定义
+     */
+    public void setConcurrentMax(String task, int dynamicConcurrentMax) {
+        TaskControl control = getControl(task);
+        ComputeConcurrentExecutor compute = computeExecutors.get(control.getName());
+        if (compute == null) {
+            throw new IllegalArgumentException(control.getName() + "不是动态并发任务，请调整固定并发数[fixedConcurrent]");
+        }
+        control.setConcurrentMax(dynamicConcurrentMax);
+        AdaptiveConcurrentComputer adaptiveComputer = adaptiveComputers.get(control.getName());
+        if (adaptiveComputer != null) {
+            adaptiveComputer.setConcurrentMax(control.getConcurrentMax());
+        }
+        if (isScheduled) {
+            executor.executeControl(compute::compute);
+        }
+        log.info("super-scheduler " + control.getName() + " dynamicConcurrentMax -> " + control.getConcurrentMax());
+    }
+
+    /**
+     * 暂停任务，挂起所有执行单元，正在进行的执行不受影响
+     *
+     * @param task 任务名或简称(类名.方法名)
+     */
+    public void pause(String task) {
+        TaskControl control = getControl(task);
+        if (control.setPaused(true)) {
+            log.info("super-scheduler " + control.getName() + " paused");
+        }
+    }
+
+    /**
+     * 恢复暂停的任务，所有执行单元等待错开时间后恢复执行
+     *
+     * @param task 任务名或简称(类名.方法名)
+     */
+    public void resume(String task) {
+        TaskControl control = getControl(task);
+        if (control.setPaused(false)) {
+            log.info("super-scheduler " + control.getName() + " resumed");
+        }
+    }
+
+    /**
+     * 重新读取覆盖任务参数的属性，只处理存在的属性，与当前值相同的不处理
+     */
+    public void refreshOverrides() {
+        if (overridePrefix == null) {
+            throw new IllegalArgumentException("没有设置覆盖任务参数的属性前缀[overridePrefix]");
+        }
+        Environment environment = APPLICATION_CONTEXT.getEnvironment();
+        // 先校验所有任务，有不匹配的属性时一个都不调整
+        taskAliases.forEach((alias, name) -> checkOverrides(executor.getTaskControl(name), overridePrefix + "." + alias + ".", environment));
+        taskAliases.forEach((alias, name) -> {
+            TaskControl control = executor.getTaskControl(name);
+            SuperScheduled scheduled = control.getScheduled();
+            String prefix = overridePrefix + "." + alias + ".";
+            Long fixedDelay = environment.getProperty(prefix + "fixedDelay", Long.class);
+            if (fixedDelay != null && scheduled.fixedDelay() > 0L && fixedDelay != control.getPeriod(scheduled.fixedDelay())) {
+                setFixedDelay(name, fixedDelay);
+            }
+            Long fixedRate = environment.getProperty(prefix + "fixedRate", Long.class);
+            if (fixedRate != null && scheduled.fixedRate() > 0L && fixedRate != control.getPeriod(scheduled.fixedRate())) {
+                setFixedRate(name, fixedRate);
+            }
+            String cron = environment.getProperty(prefix + "cron");
+            if (cron != null && scheduled.cron().length() > 0 && !cron.equals(control.getCron() == null ? scheduled.cron() : control.getCron())) {
+                setCron(name, cron);
+            }
+            Integer fixedConcurrent = environment.getProperty(prefix + "fixedConcurrent", Integer.class);
+            if (fixedConcurrent != null && !computeExecutors.containsKey(name) && fixedConcurrent != control.getFixedConcurrent()) {
+                setFixedConcurrent(name, fixedConcurrent);
+            }
+            Integer concurrentMax = environment.getProperty(prefix + "dynamicConcurrentMax", Integer.class);
+            if (concurrentMax != null && computeExecutors.containsKey(name) && concurrentMax != control.getConcurrentMax()) {
+                setConcurrentMax(name, concurrentMax);
+            }
+            Boolean paused = environment.getProperty(prefix + "paused", Boolean.class);
+            if (paused != null) {
+                if (paused) {
+                    pause(name);
+                } else {
+                    resume(name);
+                }
+            }
+        });
+    }
+
+    /**
+     * 启动时按属性覆盖任务参数，在生成执行单元之前调用
+     *
+     * @param control 运行时控制
+     * @param alias   任务简称(类名.方法名)
+     */
+    private void applyOverrides(TaskControl control, String alias) {
+        Environment environment = APPLICATION_CONTEXT.getEnvironment();
+        String prefix = overridePrefix + "." + alias + ".";
+        SuperScheduled scheduled = control.getScheduled();
+        checkOverrides(control, prefix, environment);
+        Long fixedDelay = environment.getProperty(prefix + "fixedDelay", Long.class);
+        if (fixedDelay != null) {
+            control.setPeriod(fixedDelay);
+        }
+        Long fixedRate = environment.getProperty(prefix + "fixedRate", Long.class);
+        if (fixedRate != null) {
+            control.setPeriod(fixedRate);
+        }
+        String cron = environment.getProperty(prefix + "cron");
+        if (cron != null) {
+            try {
+                control.setCron(cron);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(control.getName() + "属性[" + prefix + "cron]不是正确的cron表达式", e);
+            }
+        }
+        Integer fixedConcurrent = environment.getProperty(prefix + "fixedConcurrent", Integer.class);
+        if (fixedConcurrent != null) {
+            control.setFixedConcurrent(fixedConcurrent);
+        }
+        Integer concurrentMax = environment.getProperty(prefix + "dynamicConcurrentMax", Integer.class);
+        if (concurrentMax != null) {
+            control.setConcurrentMax(concurrentMax);
+        }
+        if (Boolean.TRUE.equals(environment.getProperty(prefix + "paused", Boolean.class))) {
+            control.setPaused(true);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("任务" + control.getName() + "属性覆盖前缀" + prefix);
+        }
+    }
+
+    /**
+     * 校验覆盖属性与任务定义匹配，只能覆盖注解中已经使用的执行方式和并发方式
+     *
+     * @param control     运行时控制
+     * @param prefix      任务的属性前缀
+     * @param environment 属性
+     */
+    private void checkOverrides(TaskControl control, String prefix, Environment environment) {
+        SuperScheduled scheduled = control.getScheduled();
+        boolean isDynamicConcurrent = scheduled.dynamicConcurrentComputeDelay() > 0L;
+        checkOverride(control, prefix + "fixedDelay", environment, scheduled.fixedDelay() > 0L, "不是固定间隔时间任务");
+        checkOverride(control, prefix + "fixedRate", environment, scheduled.fixedRate() > 0L, "不是固定频率任务");
+        checkOverride(control, prefix + "cron", environment, scheduled.cron().length() > 0, "不是CRON任务");
+        checkOverride(control, prefix + "fixedConcurrent", environment, !isDynamicConcurrent, "是动态并发任务");
+        checkOverride(control, prefix + "dynamicConcurrentMax", environment, isDynamicConcurrent, "不是动态并发任务");
+    }
+
+    /**
+     * 属性存在但与任务定义不匹配时报错
+     */
+    private void checkOverride(TaskControl control, String key, Environment environment, boolean matched, String message) {
+        if (!matched && environment.containsProperty(key)) {
+            throw new IllegalArgumentException(control.getName() + message + "，不能使用属性[" + key + "]");
+        }
+    }
+
+    /**
+     * 按任务名或简称查找运行时控制
+     *
+     * @param task 任务名或简称(类名.方法名)
+     * @return 运行时控制
+     */
+    private TaskControl getControl(String task) {
+        TaskControl control = executor.getTaskControl(task);
+        if (control == null) {
+            String name = taskAliases.get(task);
+            control = name == null ? null : executor.getTaskControl(name);
+        }
+        if (control == null) {
+            throw new IllegalArgumentException("任务[" + task + "]不存在");
+        }
+        return control;
+    }
+
+    /**
+     * 异步方法的结果是否为执行间隔，未声明泛型时在运行时检查
+     *
+     * @param method 方法
+     * @return 是否为CompletionStage<Long>
+     */
+    private static boolean isDelayStage(Method method) {
+        Type type = method.getGenericReturnType();
+        if (!(type instanceof ParameterizedType)) {
+            return true;
+        }
+        Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+        if (arguments.length != 1) {
+            return true;
+        }
+        Type argument = arguments[0];
+        if (argument instanceof WildcardType) {
+            Type[] upper = ((WildcardType) argument).getUpperBounds();
+            argument = upper.length == 0 ? Object.class : upper[0];
+        }
+        return argument instanceof Class && (Number.class.isAssignableFrom((Class<?>) argument) || argument.equals(Object.class));
+    }
+
+}
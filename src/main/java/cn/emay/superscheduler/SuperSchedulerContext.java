@@ -0,0 +1,110 @@
+package cn.emay.superscheduler;
+
+import cn.emay.superscheduler.base.TaskLock;
+
+/**
+ * 单节点任务的执行上下文<br/>
+ * 单节点任务执行期间绑定到当前线程，业务方法通过静态方法读取本次执行的锁和fencing token；<br/>
+ * 写入下游时携带fencing token，下游拒绝小于已见过token的写入，即使旧节点在GC停顿后继续执行也无法覆盖新节点的数据
+ */
+public final class SuperSchedulerContext {
+
+    /**
+     * 当前线程的上下文
+     */
+    private static final ThreadLocal<SuperSchedulerContext> CURRENT = new ThreadLocal<>();
+    /**
+     * 任务名
+     */
+    private final String taskName;
+    /**
+     * 分片
+     */
+    private final String sharded;
+    /**
+     * 单节点锁
+     */
+    private final TaskLock lock;
+    /**
+     * 开始执行时的fencing token
+     */
+    private final long fencingToken;
+
+    private SuperSchedulerContext(String taskName, String sharded, TaskLock lock) {
+        this.taskName = taskName;
+        this.sharded = sharded;
+        this.lock = lock;
+        this.fencingToken = lock.getToken();
+    }
+
+    /**
+     * 当前线程的上下文
+     *
+     * @return 上下文，不在单节点任务中执行时为null
+     */
+    public static SuperSchedulerContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前线程的fencing token
+     *
+     * @return fencing token，不在单节点任务中执行时为-1，锁存储不支持fencing时为0
+     */
+    public static long currentFencingToken() {
+        SuperSchedulerContext context = CURRENT.get();
+        return context == null ? -1L : context.fencingToken;
+    }
+
+    /**
+     * 绑定上下文，框架内部使用
+     *
+     * @param taskName 任务名
+     * @param sharded  分片
+     * @param lock     单节点锁
+     * @return 之前绑定的上下文，退出时恢复
+     */
+    public static SuperSchedulerContext enter(String taskName, String sharded, TaskLock lock) {
+        SuperSchedulerContext previous = CURRENT.get();
+        CURRENT.set(new SuperSchedulerContext(taskName, sharded, lock));
+        return previous;
+    }
+
+    /**
+     * 解绑上下文，框架内部使用
+     *
+     * @param previous 之前绑定的上下文
+     */
+    public static void exit(SuperSchedulerContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * 本次执行的锁是否仍然有效<br/>
+     * 失去锁、租约即将到期或锁已经易主时返回false，长时间执行的业务可以循环检查并提前退出
+     */
+    public boolean isLockValid() {
+        return lock.isValid() && lock.getToken() == fencingToken;
+    }
+
+    public String getTaskName() {
+        return taskName;
+    }
+
+    public String getSharded() {
+        return sharded;
+    }
+
+    public String getLockKey() {
+        return lock.getKey();
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+}
@@ -0,0 +1,220 @@
+package cn.emay.superscheduler.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.util.Date;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 异步任务的调度句柄<br/>
+ * 每次到点在线程池中发起一次异步执行后立即释放线程，异步执行完成后再按触发器注册下一次，<br/>
+ * 同一个执行单元同一时刻最多只有一次未完成的异步执行，并发数即在途数量上限
+ */
+public class AsyncReschedulingTask implements ScheduledFuture<Object>, Runnable {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /**
+     * 线程池
+     */
+    private final TaskScheduler scheduler;
+    /**
+     * 异步执行逻辑
+     */
+    private final Supplier<CompletionStage<?>> task;
+    /**
+     * 触发器
+     */
+    private final Trigger trigger;
+    /**
+     * 触发器上下文
+     */
+    private final SimpleTriggerContext triggerContext = new SimpleTriggerContext();
+    /**
+     * 计划执行时间
+     */
+    private volatile Date scheduledExecutionTime;
+    /**
+     * 线程池中的句柄
+     */
+    private volatile ScheduledFuture<?> future;
+    /**
+     * 是否有未完成的异步执行
+     */
+    private volatile boolean running = false;
+    /**
+     * 是否取消
+     */
+    private volatile boolean cancelled = false;
+    /**
+     * 是否结束
+     */
+    private volatile boolean done = false;
+
+    /**
+     * @param scheduler 线程池
+     * @param task      异步执行逻辑
+     * @param trigger   触发器
+     */
+    public AsyncReschedulingTask(TaskScheduler scheduler, Supplier<CompletionStage<?>> task, Trigger trigger) {
+        this.scheduler = scheduler;
+        this.task = task;
+        this.trigger = trigger;
+    }
+
+    /**
+     * 计算下次执行时间并注册到线程池
+     *
+     * @return 本对象
+     */
+    public AsyncReschedulingTask start() {
+        Date next = trigger.nextExecutionTime(triggerContext);
+        if (next == null) {
+            finish();
+            return this;
+        }
+        scheduledExecutionTime = next;
+        future = scheduler.schedule(this, next);
+        if (cancelled) {
+            future.cancel(false);
+        }
+        return this;
+    }
+
+    /**
+     * 线程池触发，发起异步执行
+     */
+    @Override
+    public void run() {
+        if (cancelled) {
+            return;
+        }
+        Date actualExecutionTime = new Date();
+        running = true;
+        CompletionStage<?> stage;
+        try {
+            stage = task.get();
+        } catch (Throwable e) {
+            log.error("任务执行异常", e);
+            stage = null;
+        }
+        if (stage == null) {
+            afterExecute(actualExecutionTime);
+            return;
+        }
+        stage.whenComplete((value, error) -> afterExecute(actualExecutionTime));
+    }
+
+    /**
+     * 异步执行完成，计算下次执行
+     */
+    private void afterExecute(Date actualExecutionTime) {
+        running = false;
+        if (cancelled) {
+            return;
+        }
+        triggerContext.update(scheduledExecutionTime, actualExecutionTime, new Date());
+        try {
+            start();
+        } catch (RejectedExecutionException e) {
+            // 线程池已经停止
+            finish();
+        }
+    }
+
+    private void finish() {
+        synchronized (this) {
+            done = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * 是否有未完成的异步执行
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (cancelled || done) {
+            return false;
+        }
+        cancelled = true;
+        ScheduledFuture<?> current = future;
+        if (current != null) {
+            current.cancel(false);
+        }
+        finish();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public Object get() throws InterruptedException {
+        synchronized (this) {
+            while (!done) {
+                wait();
+            }
+        }
+        if (cancelled) {
+            throw new CancellationException();
+        }
+        return null;
+    }
+
+    @Override
+    public Object get(long timeout, @NonNull TimeUnit unit) throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (!done) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    throw new TimeoutException();
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        if (cancelled) {
+            throw new CancellationException();
+        }
+        return null;
+    }
+
+    @Override
+    public long getDelay(@NonNull TimeUnit unit) {
+        Date next = scheduledExecutionTime;
+        long delay = next == null ? 0L : next.getTime() - System.currentTimeMillis();
+        return unit.convert(delay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(@NonNull Delayed other) {
+        if (other == this) {
+            return 0;
+        }
+        return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+    }
+
+}
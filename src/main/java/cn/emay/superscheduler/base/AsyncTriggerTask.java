@@ -0,0 +1,35 @@
+package cn.emay.superscheduler.base;
+
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.config.TriggerTask;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * 异步任务<br/>
+ * 执行逻辑返回CompletionStage，执行线程发起调用后立即释放；返回的CompletionStage完成后才按触发器计算下次执行时间<br/>
+ * 同步的执行逻辑用于熔断试探等只执行一次的场景
+ */
+public class AsyncTriggerTask extends TriggerTask {
+
+    /**
+     * 异步执行逻辑
+     */
+    private final Supplier<CompletionStage<?>> asyncRunnable;
+
+    /**
+     * @param runnable      同步执行逻辑，发起一次异步执行，不等待完成
+     * @param asyncRunnable 异步执行逻辑
+     * @param trigger       触发器
+     */
+    public AsyncTriggerTask(Runnable runnable, Supplier<CompletionStage<?>> asyncRunnable, Trigger trigger) {
+        super(runnable, trigger);
+        this.asyncRunnable = asyncRunnable;
+    }
+
+    public Supplier<CompletionStage<?>> getAsyncRunnable() {
+        return asyncRunnable;
+    }
+
+}
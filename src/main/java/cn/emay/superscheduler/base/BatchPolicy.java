@@ -0,0 +1,112 @@
+package cn.emay.superscheduler.base;
+
+import cn.emay.superscheduler.core.TaskResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批处理策略，创建后不可变<br/>
+ * 批量大小按单批目标耗时调整：按本批每条数据的平均耗时推算目标耗时内能处理的数量，每次最多翻倍；<br/>
+ * 本批没有处理满时说明数据不足，只缩小不放大
+ */
+public class BatchPolicy {
+
+    /**
+     * 默认策略
+     */
+    public static final BatchPolicy DEFAULT = new BatchPolicy(100, 1000, 1000L, 1000L, 1000L);
+    /**
+     * 初始批量大小
+     */
+    private final int initialSize;
+    /**
+     * 最大批量大小
+     */
+    private final int maxSize;
+    /**
+     * 单批目标耗时，单位纳秒，小于等于0不调整
+     */
+    private final long targetNanos;
+    /**
+     * 有积压时在同一线程中连续执行的时间上限，单位纳秒，小于等于0不连续执行
+     */
+    private final long burstNanos;
+    /**
+     * 没有积压时的执行间隔，单位毫秒
+     */
+    private final long idleDelayMillis;
+
+    /**
+     * @param initialSize     初始批量大小
+     * @param maxSize         最大批量大小
+     * @param targetMillis    单批目标耗时，单位毫秒，小于等于0不调整
+     * @param burstMillis     有积压时连续执行的时间上限，单位毫秒，小于等于0不连续执行
+     * @param idleDelayMillis 没有积压时的执行间隔，单位毫秒
+     */
+    public BatchPolicy(int initialSize, int maxSize, long targetMillis, long burstMillis, long idleDelayMillis) {
+        this.initialSize = initialSize;
+        this.maxSize = maxSize;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        this.burstNanos = TimeUnit.MILLISECONDS.toNanos(burstMillis);
+        this.idleDelayMillis = idleDelayMillis;
+    }
+
+    /**
+     * 计算下次的批量大小
+     *
+     * @param size          本批的批量大小
+     * @param processed     本批处理数量
+     * @param durationNanos 本批耗时，单位纳秒
+     * @return 下次的批量大小
+     */
+    public int resize(int size, int processed, long durationNanos) {
+        if (targetNanos <= 0L || processed <= 0) {
+            return size;
+        }
+        double ideal = (double) processed * targetNanos / Math.max(1L, durationNanos);
+        if (processed < size) {
+            ideal = Math.min(ideal, size);
+        }
+        long next = Math.round(Math.min(ideal, size * 2D));
+        return (int) Math.max(1L, Math.min(next, maxSize));
+    }
+
+    /**
+     * 计算下次执行间隔
+     *
+     * @param result 执行结果，为空视为空闲
+     * @param size   本批的批量大小
+     * @return 下次执行间隔，单位毫秒，0表示还有积压
+     */
+    public long delay(TaskResult result, int size) {
+        if (result == null) {
+            return idleDelayMillis;
+        }
+        if (result.getDelayMillis() >= 0L) {
+            return result.getDelayMillis();
+        }
+        boolean more = result.getBacklog() < 0L ? result.getProcessed() >= size : result.getBacklog() > 0L;
+        return more ? 0L : idleDelayMillis;
+    }
+
+    public int getInitialSize() {
+        return initialSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTargetNanos() {
+        return targetNanos;
+    }
+
+    public long getBurstNanos() {
+        return burstNanos;
+    }
+
+    public long getIdleDelayMillis() {
+        return idleDelayMillis;
+    }
+
+}
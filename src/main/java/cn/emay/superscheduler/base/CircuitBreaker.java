@@ -0,0 +1,226 @@
+package cn.emay.superscheduler.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BiFunction;
+
+/**
+ * 任务在本节点的熔断器<br/>
+ * 连续失败达到阈值时熔断，收回许可，挂起任务的所有线程；<br/>
+ * 熔断一段时间后进入半开状态，只让最近一次失败的线程试探执行一次，成功则恢复许可、所有线程立即恢复，失败则继续熔断
+ */
+public class CircuitBreaker implements Permit {
+
+    /**
+     * 熔断状态
+     */
+    public enum State {
+        /**
+         * 正常执行
+         */
+        CLOSED,
+        /**
+         * 熔断中
+         */
+        OPEN,
+        /**
+         * 试探中
+         */
+        HALF_OPEN
+    }
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /**
+     * 任务名
+     */
+    private final String name;
+    /**
+     * 熔断阈值
+     */
+    private final int threshold;
+    /**
+     * 熔断后试探执行的间隔，单位毫秒
+     */
+    private final long openMillis;
+    /**
+     * 调度一次性任务，在任务所在的线程池执行
+     */
+    private final BiFunction<Runnable, Date, ScheduledFuture<?>> scheduler;
+    /**
+     * 状态变化监听者
+     */
+    private final Set<Runnable> listeners = ConcurrentHashMap.newKeySet();
+    /**
+     * 当前状态
+     */
+    private volatile State state = State.CLOSED;
+    /**
+     * 从熔断中恢复的次数
+     */
+    private volatile long recoveries = 0L;
+    /**
+     * 连续失败次数
+     */
+    private volatile int failures = 0;
+    /**
+     * 半开状态下是否已经有线程在试探
+     */
+    private boolean probing = false;
+    /**
+     * 试探执行的任务，最近一次失败的线程
+     */
+    private Runnable probe;
+    /**
+     * 进入半开状态的计时器
+     */
+    private ScheduledFuture<?> timer;
+
+    /**
+     * @param name       任务名
+     * @param threshold  熔断阈值
+     * @param openMillis 熔断后试探执行的间隔，单位毫秒
+     * @param scheduler  调度一次性任务
+     */
+    public CircuitBreaker(String name, int threshold, long openMillis, BiFunction<Runnable, Date, ScheduledFuture<?>> scheduler) {
+        this.name = name;
+        this.threshold = threshold;
+        this.openMillis = openMillis;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 执行前获取许可<br/>
+     * 正常状态总是许可；半开状态只许可一个线程试探；熔断中不许可
+     *
+     * @return 是否可以执行
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probing) {
+            probing = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 执行成功
+     */
+    public void onSuccess() {
+        if (state == State.CLOSED && failures == 0) {
+            return;
+        }
+        synchronized (this) {
+            failures = 0;
+            if (state == State.CLOSED) {
+                return;
+            }
+            state = State.CLOSED;
+            probing = false;
+            probe = null;
+            recoveries++;
+            cancelTimer();
+        }
+        log.info("任务" + name + "试探执行成功，解除熔断");
+        fireListeners();
+    }
+
+    /**
+     * 执行失败
+     *
+     * @param task 失败的任务，熔断后用于试探执行
+     */
+    public void onFailure(Runnable task) {
+        synchronized (this) {
+            failures++;
+            probe = task;
+            if (state == State.OPEN || (state == State.CLOSED && failures < threshold)) {
+                return;
+            }
+            state = State.OPEN;
+            probing = false;
+            scheduleHalfOpen();
+        }
+        log.warn("任务" + name + "连续失败" + failures + "次，熔断" + openMillis + "毫秒");
+        fireListeners();
+    }
+
+    /**
+     * 进入半开状态并试探执行<br/>
+     * 试探任务因其他原因没有执行时，下一个间隔重新试探
+     */
+    private void halfOpen() {
+        Runnable task;
+        synchronized (this) {
+            if (state == State.CLOSED || probing) {
+                return;
+            }
+            state = State.HALF_OPEN;
+            task = probe;
+            scheduleHalfOpen();
+        }
+        if (task != null) {
+            scheduler.apply(task, new Date());
+        }
+    }
+
+    /**
+     * 一个试探间隔后进入半开状态
+     */
+    private void scheduleHalfOpen() {
+        cancelTimer();
+        timer = scheduler.apply(this::halfOpen, new Date(System.currentTimeMillis() + openMillis));
+    }
+
+    private void cancelTimer() {
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+    }
+
+    private void fireListeners() {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Throwable e) {
+                log.error("任务" + name + "熔断状态变化监听者报错", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isPermitted() {
+        return state == State.CLOSED;
+    }
+
+    @Override
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRecoveries() {
+        return recoveries;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
@@ -0,0 +1,16 @@
+package cn.emay.superscheduler.base;
+
+/**
+ * 任务执行模式
+ */
+public enum ExecuteMode {
+    /**
+     * 平台线程，任务逻辑直接在计时器线程池中执行
+     */
+    PLATFORM_THREAD,
+    /**
+     * 虚拟线程，计时器线程只负责触发，任务逻辑在虚拟线程中执行<br/>
+     * 需要运行在JDK21及以上
+     */
+    VIRTUAL_THREAD
+}
@@ -0,0 +1,69 @@
+package cn.emay.superscheduler.base;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 失败退避策略，创建后不可变<br/>
+ * 退避时间从初始时间开始随连续失败次数翻倍，不超过最大时间，再按抖动比例随机缩短
+ */
+public class FailureBackoff {
+
+    /**
+     * 固定1秒，不翻倍、不抖动，未配置退避策略时使用
+     */
+    public static final FailureBackoff FIXED_ONE_SECOND = new FailureBackoff(1000L, 1000L, 0D);
+    /**
+     * 初始时间，单位毫秒
+     */
+    private final long initialMillis;
+    /**
+     * 最大时间，单位毫秒
+     */
+    private final long maxMillis;
+    /**
+     * 抖动比例
+     */
+    private final double jitter;
+
+    /**
+     * @param initialMillis 初始时间，单位毫秒
+     * @param maxMillis     最大时间，单位毫秒
+     * @param jitter        抖动比例，0到1之间
+     */
+    public FailureBackoff(long initialMillis, long maxMillis, double jitter) {
+        this.initialMillis = initialMillis;
+        this.maxMillis = maxMillis;
+        this.jitter = jitter;
+    }
+
+    /**
+     * 计算退避时间
+     *
+     * @param failures 连续失败次数，从1开始
+     * @return 退避时间，单位毫秒
+     */
+    public long delay(int failures) {
+        long delay = initialMillis;
+        for (int i = 1; i < failures && delay < maxMillis; i++) {
+            delay <<= 1;
+        }
+        delay = Math.min(delay, maxMillis);
+        if (jitter <= 0D) {
+            return delay;
+        }
+        return delay - (long) (delay * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+
+    public long getInitialMillis() {
+        return initialMillis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+}
@@ -0,0 +1,58 @@
+package cn.emay.superscheduler.base;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个任务正在执行的数量<br/>
+ * 同步方法从开始执行到执行完毕计数，异步方法从发起调用到返回的CompletionStage完成计数；<br/>
+ * 停止时据此等待任务执行完毕，执行完毕时唤醒等待的线程
+ */
+public class InFlight {
+
+    /**
+     * 正在执行的数量
+     */
+    private final AtomicInteger count = new AtomicInteger();
+    /**
+     * 等待执行完毕的监视器，没有等待时为空
+     */
+    private volatile Object waiter;
+
+    /**
+     * 开始执行
+     */
+    public void enter() {
+        count.incrementAndGet();
+    }
+
+    /**
+     * 执行完毕，没有正在执行时唤醒等待的线程
+     */
+    public void exit() {
+        if (count.decrementAndGet() == 0) {
+            Object current = waiter;
+            if (current != null) {
+                synchronized (current) {
+                    current.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * 设置等待执行完毕的监视器，多个任务可以共用一个监视器
+     *
+     * @param waiter 监视器，为空不再唤醒
+     */
+    public void setWaiter(Object waiter) {
+        this.waiter = waiter;
+    }
+
+    /**
+     * 正在执行的数量
+     */
+    public int get() {
+        return count.get();
+    }
+
+}
@@ -0,0 +1,125 @@
+package cn.emay.superscheduler.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 本节点需要竞争的所有单节点锁<br/>
+ * 任务按锁分组、分片登记锁，竞争锁任务每轮批量续期和竞争登记的锁，批量释放不再需要的锁
+ */
+public class LockTable {
+
+    /**
+     * 锁名称 -> 锁状态
+     */
+    private final ConcurrentHashMap<String, TaskLock> locks = new ConcurrentHashMap<>();
+    /**
+     * 已经注销、等待释放的锁名称
+     */
+    private final ConcurrentLinkedQueue<String> released = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 登记锁，已经存在则直接返回
+     *
+     * @param key 锁名称
+     * @return 锁状态
+     */
+    public TaskLock get(String key) {
+        TaskLock lock = locks.get(key);
+        if (lock == null) {
+            lock = locks.computeIfAbsent(key, TaskLock::new);
+        }
+        return lock;
+    }
+
+    /**
+     * 查找锁，不登记
+     *
+     * @param key 锁名称
+     * @return 锁状态，不存在返回null
+     */
+    public TaskLock find(String key) {
+        return locks.get(key);
+    }
+
+    /**
+     * 注销锁，本节点持有的锁在下一轮竞争时释放<br/>
+     * 与update互斥，注销之后本轮竞争结果不会再把锁标记为持有
+     *
+     * @param key 锁名称
+     */
+    public synchronized void release(String key) {
+        TaskLock lock = locks.remove(key);
+        if (lock != null && lock.isHeld()) {
+            lock.setHeld(false);
+            released.add(key);
+        }
+    }
+
+    /**
+     * 按竞争结果更新锁状态<br/>
+     * 竞争期间已经注销的锁不再更新，本轮抢到的在下一轮释放，避免注销的锁重新恢复挂起的任务
+     *
+     * @param lock          竞争前取得的锁状态
+     * @param token         fencing token，未抢到为null
+     * @param deadlineNanos 本地有效期
+     * @return 锁是否仍然登记
+     */
+    public synchronized boolean update(TaskLock lock, Long token, long deadlineNanos) {
+        String key = lock.getKey();
+        if (locks.get(key) != lock) {
+            if (token != null && !released.contains(key)) {
+                released.add(key);
+            }
+            return false;
+        }
+        if (token == null) {
+            lock.setHeld(false);
+        } else {
+            lock.renew(token, deadlineNanos);
+        }
+        return true;
+    }
+
+    /**
+     * 取出所有等待释放的锁名称
+     */
+    public List<String> drainReleased() {
+        List<String> keys = new ArrayList<>();
+        String key;
+        while ((key = released.poll()) != null) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * 所有登记的锁
+     */
+    public List<TaskLock> getAll() {
+        return new ArrayList<>(locks.values());
+    }
+
+    /**
+     * 本节点持有的锁名称
+     */
+    public List<String> getHeldKeys() {
+        List<String> keys = new ArrayList<>();
+        locks.values().forEach(lock -> {
+            if (lock.isHeld()) {
+                keys.add(lock.getKey());
+            }
+        });
+        return keys;
+    }
+
+    /**
+     * 登记的锁数量
+     */
+    public int size() {
+        return locks.size();
+    }
+
+}
@@ -0,0 +1,73 @@
+package cn.emay.superscheduler.base;
+
+/**
+ * 带任务名和分片的执行逻辑<br/>
+ * 线程池可以据此按任务统计
+ */
+public class NamedTask implements Runnable {
+
+    /**
+     * 任务名
+     */
+    private final String name;
+    /**
+     * 分片
+     */
+    private final String sharded;
+    /**
+     * 执行逻辑
+     */
+    private final Runnable runnable;
+    /**
+     * 正在执行的数量，不统计时为空
+     */
+    private final InFlight inFlight;
+
+    /**
+     * @param name     任务名
+     * @param sharded  分片
+     * @param runnable 执行逻辑
+     */
+    public NamedTask(String name, String sharded, Runnable runnable) {
+        this(name, sharded, runnable, null);
+    }
+
+    /**
+     * @param name     任务名
+     * @param sharded  分片
+     * @param runnable 执行逻辑
+     * @param inFlight 正在执行的数量，执行期间计数
+     */
+    public NamedTask(String name, String sharded, Runnable runnable, InFlight inFlight) {
+        this.name = name;
+        this.sharded = sharded;
+        this.runnable = runnable;
+        this.inFlight = inFlight;
+    }
+
+    @Override
+    public void run() {
+        if (inFlight == null) {
+            runnable.run();
+            return;
+        }
+        inFlight.enter();
+        try {
+            runnable.run();
+        } finally {
+            inFlight.exit();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSharded() {
+        return sharded;
+    }
+
+    public Runnable getRunnable() {
+        return runnable;
+    }
+}
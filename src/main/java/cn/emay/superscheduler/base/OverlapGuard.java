@@ -0,0 +1,181 @@
+package cn.emay.superscheduler.base;
+
+import cn.emay.superscheduler.core.OverlapPolicy;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同一任务同一分片的重叠执行控制<br/>
+ * 同一分片的所有执行单元共用一个实例：到点时先申请执行，申请失败按策略跳过、合并或排队；<br/>
+ * 执行完毕的线程取出排队的计划时间依次补执行，直到排队为空才释放<br/>
+ * 计划时间未知时传-1，不判断错过执行，也不按计划时间去重
+ */
+public class OverlapGuard {
+
+    /**
+     * 没有排队的执行
+     */
+    public static final long NONE = Long.MIN_VALUE;
+    /**
+     * 策略
+     */
+    private final OverlapPolicy policy;
+    /**
+     * 最大排队次数
+     */
+    private final int queueCapacity;
+    /**
+     * 错过执行阈值，单位毫秒，小于等于0不判断
+     */
+    private final long misfireThreshold;
+    /**
+     * 排队中的计划时间
+     */
+    private final ArrayDeque<Long> pending = new ArrayDeque<>();
+    /**
+     * 是否有执行进行中
+     */
+    private boolean running = false;
+    /**
+     * 进行中的执行的计划时间
+     */
+    private long runningScheduled = -1L;
+    /**
+     * 跳过次数
+     */
+    private final LongAdder skipped = new LongAdder();
+    /**
+     * 合并或排队次数
+     */
+    private final LongAdder deferred = new LongAdder();
+    /**
+     * 错过执行次数
+     */
+    private final LongAdder misfired = new LongAdder();
+
+    /**
+     * @param policy           策略
+     * @param queueCapacity    最大排队次数，QUEUE策略使用
+     * @param misfireThreshold 错过执行阈值，单位毫秒，小于等于0不判断
+     */
+    public OverlapGuard(OverlapPolicy policy, int queueCapacity, long misfireThreshold) {
+        this.policy = policy;
+        this.queueCapacity = Math.max(queueCapacity, 1);
+        this.misfireThreshold = misfireThreshold;
+    }
+
+    /**
+     * 到点时申请执行
+     *
+     * @param scheduled 计划执行时间，单位毫秒，未知时为-1
+     * @return 是否立即执行，true时执行完毕需要调用next()
+     */
+    public synchronized boolean tryStart(long scheduled) {
+        if (isMisfired(scheduled)) {
+            misfired.increment();
+            return false;
+        }
+        if (policy == OverlapPolicy.ALLOW) {
+            return true;
+        }
+        if (!running) {
+            running = true;
+            runningScheduled = scheduled;
+            return true;
+        }
+        if (scheduled >= 0L && (scheduled == runningScheduled || pending.contains(scheduled))) {
+            // 同一计划时间的其他执行单元，只执行一次
+            skipped.increment();
+            return false;
+        }
+        switch (policy) {
+            case COALESCE:
+                pending.clear();
+                pending.add(scheduled);
+                deferred.increment();
+                break;
+            case QUEUE:
+                if (pending.size() < queueCapacity) {
+                    pending.add(scheduled);
+                    deferred.increment();
+                } else {
+                    skipped.increment();
+                }
+                break;
+            default:
+                skipped.increment();
+                break;
+        }
+        return false;
+    }
+
+    /**
+     * 执行完毕，取出下一个需要补执行的计划时间，没有时释放
+     *
+     * @return 计划执行时间，没有需要补执行的返回NONE
+     */
+    public synchronized long next() {
+        if (policy == OverlapPolicy.ALLOW) {
+            return NONE;
+        }
+        Long scheduled;
+        while ((scheduled = pending.poll()) != null) {
+            if (isMisfired(scheduled)) {
+                misfired.increment();
+                continue;
+            }
+            runningScheduled = scheduled;
+            return scheduled;
+        }
+        running = false;
+        runningScheduled = -1L;
+        return NONE;
+    }
+
+    /**
+     * 执行异常或者不再执行，丢弃排队并释放
+     */
+    public synchronized void release() {
+        if (policy == OverlapPolicy.ALLOW) {
+            return;
+        }
+        skipped.add(pending.size());
+        pending.clear();
+        running = false;
+        runningScheduled = -1L;
+    }
+
+    /**
+     * 是否错过执行
+     */
+    private boolean isMisfired(long scheduled) {
+        return misfireThreshold > 0L && scheduled >= 0L && System.currentTimeMillis() - scheduled > misfireThreshold;
+    }
+
+    public OverlapPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 因重叠跳过的次数，包括同一计划时间重复触发、排队已满以及异常时丢弃的排队
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * 合并或排队等待补执行的次数
+     */
+    public long getDeferred() {
+        return deferred.sum();
+    }
+
+    /**
+     * 错过执行阈值而跳过的次数
+     */
+    public long getMisfired() {
+        return misfired.sum();
+    }
+
+}
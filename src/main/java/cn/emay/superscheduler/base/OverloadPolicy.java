@@ -0,0 +1,24 @@
+package cn.emay.superscheduler.base;
+
+/**
+ * 过载策略<br/>
+ * 任务逻辑投递到执行线程池(舱壁、虚拟线程)时，线程池排队已满的处理方式
+ */
+public enum OverloadPolicy {
+    /**
+     * 丢弃本次执行，并计数
+     */
+    DISCARD,
+    /**
+     * 合并：同一任务同一分片已有排队中的执行时，本次执行合并到排队中的那次；排队已满时丢弃本次并计数
+     */
+    COALESCE,
+    /**
+     * 在触发线程中直接执行，对触发形成反压
+     */
+    CALLER_RUNS,
+    /**
+     * 丢弃排队最久的一次执行，再把本次放入排队
+     */
+    DROP_OLDEST
+}
@@ -0,0 +1,110 @@
+package cn.emay.superscheduler.base;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 过载统计<br/>
+ * 按任务名统计被拒绝、被合并、在触发线程执行、被挤出排队的次数，用于根据数据调整线程池大小
+ */
+public class OverloadStatistics {
+
+    /**
+     * 任务名 -> 统计
+     */
+    private final ConcurrentHashMap<String, TaskOverload> tasks = new ConcurrentHashMap<>();
+
+    /**
+     * 获取任务的统计，不存在则创建
+     *
+     * @param name 任务名
+     * @return 统计
+     */
+    public TaskOverload get(String name) {
+        return tasks.computeIfAbsent(name, TaskOverload::new);
+    }
+
+    /**
+     * 所有任务的统计
+     *
+     * @return <任务名,统计>
+     */
+    public Map<String, TaskOverload> getAll() {
+        return Collections.unmodifiableMap(tasks);
+    }
+
+    /**
+     * 单个任务的过载统计
+     */
+    public static class TaskOverload {
+
+        /**
+         * 任务名
+         */
+        private final String name;
+        /**
+         * 被拒绝次数
+         */
+        private final LongAdder rejected = new LongAdder();
+        /**
+         * 被合并次数
+         */
+        private final LongAdder coalesced = new LongAdder();
+        /**
+         * 在触发线程执行次数
+         */
+        private final LongAdder callerRuns = new LongAdder();
+        /**
+         * 被挤出排队次数
+         */
+        private final LongAdder droppedOldest = new LongAdder();
+
+        public TaskOverload(String name) {
+            this.name = name;
+        }
+
+        public void rejected() {
+            rejected.increment();
+        }
+
+        public void coalesced() {
+            coalesced.increment();
+        }
+
+        public void callerRuns() {
+            callerRuns.increment();
+        }
+
+        public void droppedOldest() {
+            droppedOldest.increment();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        public long getCoalesced() {
+            return coalesced.sum();
+        }
+
+        public long getCallerRuns() {
+            return callerRuns.sum();
+        }
+
+        public long getDroppedOldest() {
+            return droppedOldest.sum();
+        }
+
+        @Override
+        public String toString() {
+            return name + "[rejected=" + getRejected() + ",coalesced=" + getCoalesced() + ",callerRuns=" + getCallerRuns() + ",droppedOldest=" + getDroppedOldest() + "]";
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package cn.emay.superscheduler.base;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 可挂起的任务句柄<br/>
+ * 所有许可都满足时调度执行，例如本节点持有单节点锁、任务没有熔断；任一许可收回时取消调度并挂起，挂起期间不产生任何唤醒；<br/>
+ * 重新满足时立即恢复调度；在注册表中与普通任务一样计入并发数，取消后不再恢复
+ */
+public class ParkableTask implements ScheduledFuture<Object> {
+
+    /**
+     * 绑定的许可
+     */
+    private final Permit[] permits;
+    /**
+     * 启动调度，参数为是否首次启动，首次启动按初始化延时执行，恢复时立即执行
+     */
+    private final Function<Boolean, ScheduledFuture<?>> starter;
+    /**
+     * 调度参数变化后重新调度，未设置时按恢复的方式启动
+     */
+    private final Supplier<ScheduledFuture<?>> rescheduler;
+    /**
+     * 许可状态变化监听者
+     */
+    private final Runnable listener = this::sync;
+    /**
+     * 当前调度句柄，挂起时为空
+     */
+    private ScheduledFuture<?> future;
+    /**
+     * 是否启动过
+     */
+    private boolean started = false;
+    /**
+     * 是否已经取消
+     */
+    private boolean cancelled = false;
+
+    /**
+     * @param starter 启动调度
+     * @param permits 绑定的许可
+     */
+    public ParkableTask(Function<Boolean, ScheduledFuture<?>> starter, Permit... permits) {
+        this(starter, null, permits);
+    }
+
+    /**
+     * @param starter     启动调度
+     * @param rescheduler 调度参数变化后重新调度
+     * @param permits     绑定的许可
+     */
+    public ParkableTask(Function<Boolean, ScheduledFuture<?>> starter, Supplier<ScheduledFuture<?>> rescheduler, Permit... permits) {
+        this.starter = starter;
+        this.rescheduler = rescheduler;
+        this.permits = permits;
+    }
+
+    /**
+     * 绑定许可，所有许可都满足时立即启动调度
+     */
+    public void bind() {
+        for (Permit permit : permits) {
+            permit.addListener(listener);
+        }
+        sync();
+    }
+
+    /**
+     * 是否所有许可都满足
+     */
+    private boolean isPermitted() {
+        for (Permit permit : permits) {
+            if (!permit.isPermitted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按许可的当前状态启动或挂起
+     */
+    private synchronized void sync() {
+        if (cancelled) {
+            return;
+        }
+        if (isPermitted()) {
+            if (future == null) {
+                future = starter.apply(!started);
+                started = true;
+            }
+        } else if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    /**
+     * 调度参数变化后，用新参数替换当前调度，正在进行的执行不受影响<br/>
+     * 挂起中不处理，恢复时按新参数启动
+     */
+    public synchronized void reschedule() {
+        if (cancelled || future == null) {
+            return;
+        }
+        future.cancel(false);
+        future = rescheduler == null ? starter.apply(false) : rescheduler.get();
+    }
+
+    /**
+     * 是否挂起中
+     */
+    public synchronized boolean isParked() {
+        return !cancelled && future == null;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized (this) {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            if (future != null) {
+                future.cancel(mayInterruptIfRunning);
+                future = null;
+            }
+        }
+        for (Permit permit : permits) {
+            permit.removeListener(listener);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return cancelled;
+    }
+
+    @Override
+    public synchronized long getDelay(TimeUnit unit) {
+        return future == null ? Long.MAX_VALUE : future.getDelay(unit);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public Object get() throws InterruptedException, ExecutionException {
+        return current().get();
+    }
+
+    @Override
+    public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return current().get(timeout, unit);
+    }
+
+    /**
+     * 当前调度句柄，已取消或挂起时抛出CancellationException
+     */
+    private synchronized ScheduledFuture<?> current() {
+        if (future == null) {
+            throw new CancellationException(cancelled ? "任务已取消" : "任务已挂起");
+        }
+        return future;
+    }
+
+    @Override
+    public String toString() {
+        return "ParkableTask" + Arrays.toString(permits) + (isParked() ? "(parked)" : "");
+    }
+
+}
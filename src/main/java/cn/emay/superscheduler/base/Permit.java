@@ -0,0 +1,28 @@
+package cn.emay.superscheduler.base;
+
+/**
+ * 任务执行许可<br/>
+ * 许可收回时挂起绑定的任务，重新许可时立即恢复；状态变化时通知监听者，监听者自行读取当前状态
+ */
+public interface Permit {
+
+    /**
+     * 是否许可执行
+     */
+    boolean isPermitted();
+
+    /**
+     * 增加状态变化监听者
+     *
+     * @param listener 监听者
+     */
+    void addListener(Runnable listener);
+
+    /**
+     * 移除状态变化监听者
+     *
+     * @param listener 监听者
+     */
+    void removeListener(Runnable listener);
+
+}
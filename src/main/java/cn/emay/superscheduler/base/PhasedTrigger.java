@@ -0,0 +1,131 @@
+package cn.emay.superscheduler.base;
+
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+
+/**
+ * 带错开时间和随机抖动的固定间隔/固定频率触发器<br/>
+ * 固定频率按不含抖动的计划时间累加周期，抖动不累积漂移；<br/>
+ * 首次调度等待 初始化延时+错开时间，挂起后恢复只等待错开时间；<br/>
+ * 周期可以在运行时覆盖，下次计算执行时间时生效，重新调度时等待 错开时间+新周期
+ */
+public class PhasedTrigger implements Trigger {
+
+    /**
+     * 周期，单位毫秒
+     */
+    private final long period;
+    /**
+     * 是否固定频率
+     */
+    private final boolean fixedRate;
+    /**
+     * 初始化延时，单位毫秒
+     */
+    private final long initialDelay;
+    /**
+     * 错开时间，单位毫秒
+     */
+    private final long phase;
+    /**
+     * 抖动比例
+     */
+    private final double jitter;
+    /**
+     * 计算出执行时间后的回调，用于统计开始延迟
+     */
+    private final LongConsumer expect;
+    /**
+     * 任务的运行时控制，可为空
+     */
+    private final TaskControl control;
+    /**
+     * 下次使用新上下文时是否为重新调度
+     */
+    private boolean rescheduled = false;
+    /**
+     * 是否已经启动过
+     */
+    private boolean started = false;
+    /**
+     * 上次不含抖动的计划执行时间
+     */
+    private long base;
+
+    /**
+     * @param period       周期，单位毫秒
+     * @param fixedRate    是否固定频率
+     * @param initialDelay 初始化延时，单位毫秒
+     * @param phase        错开时间，单位毫秒
+     * @param jitter       抖动比例，0到1之间
+     * @param expect       计算出执行时间后的回调
+     */
+    public PhasedTrigger(long period, boolean fixedRate, long initialDelay, long phase, double jitter, LongConsumer expect) {
+        this(period, fixedRate, initialDelay, phase, jitter, expect, null);
+    }
+
+    /**
+     * @param period       周期，单位毫秒
+     * @param fixedRate    是否固定频率
+     * @param initialDelay 初始化延时，单位毫秒
+     * @param phase        错开时间，单位毫秒
+     * @param jitter       抖动比例，0到1之间
+     * @param expect       计算出执行时间后的回调
+     * @param control      任务的运行时控制，覆盖的周期优先，可为空
+     */
+    public PhasedTrigger(long period, boolean fixedRate, long initialDelay, long phase, double jitter, LongConsumer expect, TaskControl control) {
+        this.control = control;
+        this.period = period;
+        this.fixedRate = fixedRate;
+        this.initialDelay = initialDelay;
+        this.phase = phase;
+        this.jitter = jitter;
+        this.expect = expect;
+    }
+
+    @Override
+    public synchronized Date nextExecutionTime(TriggerContext triggerContext) {
+        long period = control == null ? this.period : control.getPeriod(this.period);
+        long next;
+        if (triggerContext.lastScheduledExecutionTime() == null) {
+            // 每次调度都会使用新的上下文，首次启动和挂起后恢复都从这里开始
+            next = System.currentTimeMillis() + phase + (rescheduled ? period : started ? 0L : initialDelay);
+            started = true;
+            rescheduled = false;
+        } else if (fixedRate) {
+            next = base + period;
+        } else {
+            next = triggerContext.lastCompletionTime().getTime() + period;
+        }
+        base = next;
+        next += jitter(period, jitter);
+        expect.accept(next);
+        return new Date(next);
+    }
+
+    /**
+     * 周期变化后重新调度，下次使用新上下文时等待 错开时间+新周期
+     */
+    public synchronized void reschedule() {
+        rescheduled = true;
+    }
+
+    /**
+     * 随机抖动
+     *
+     * @param delay  间隔，单位毫秒
+     * @param jitter 抖动比例
+     * @return [0, delay*jitter) 之间的随机毫秒数
+     */
+    public static long jitter(long delay, double jitter) {
+        if (delay <= 0L || jitter <= 0D) {
+            return 0L;
+        }
+        return (long) (delay * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+
+}
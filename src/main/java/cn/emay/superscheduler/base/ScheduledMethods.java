@@ -0,0 +1,187 @@
+package cn.emay.superscheduler.base;
+
+import cn.emay.superscheduler.core.SuperScheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按类缓存的@SuperScheduled方法<br/>
+ * 每个类只反射扫描一次，没有注解的类同样缓存，同一个类的其他bean直接命中；<br/>
+ * 从CGLIB代理类向上扫描到Object，父类中定义的注解方法同样加载，子类重写的方法以子类为准；<br/>
+ * 启用索引后只扫描编译期索引中登记的类，其余类不做反射
+ */
+public class ScheduledMethods {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /**
+     * 编译期索引位置，由SuperScheduledIndexProcessor生成，每行一个类名
+     */
+    public static final String INDEX_LOCATION = "META-INF/super-scheduler.index";
+    /**
+     * 类 -> 注解方法，没有注解方法的类为空列表
+     */
+    private final ConcurrentHashMap<Class<?>, List<Method>> cache = new ConcurrentHashMap<>();
+    /**
+     * 索引中登记的类名，未启用索引或者没有找到索引时为空
+     */
+    private volatile Set<String> indexedClasses;
+    /**
+     * 查找次数
+     */
+    private final LongAdder lookups = new LongAdder();
+    /**
+     * 反射扫描的类数量
+     */
+    private final LongAdder scanned = new LongAdder();
+    /**
+     * 查找耗时，单位纳秒
+     */
+    private final LongAdder lookupNanos = new LongAdder();
+
+    /**
+     * 加载编译期索引，合并classpath中的所有索引<br/>
+     * 所有包含@SuperScheduled的模块都需要生成索引，否则未生成索引的模块中的任务不会加载
+     *
+     * @param classLoader 类加载器
+     * @return 是否找到索引，没有找到时仍然反射扫描所有类
+     */
+    public boolean loadIndex(ClassLoader classLoader) {
+        Set<String> classes = new HashSet<>();
+        boolean found = false;
+        try {
+            Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                found = true;
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (line.length() > 0 && !line.startsWith("#")) {
+                            classes.add(line);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("读取索引" + INDEX_LOCATION + "报错，反射扫描所有类", e);
+            return false;
+        }
+        if (found) {
+            indexedClasses = classes;
+        }
+        return found;
+    }
+
+    /**
+     * 查找bean的@SuperScheduled方法
+     *
+     * @param beanClass bean的类，可以是CGLIB代理类
+     * @return 注解方法，没有时为空列表
+     */
+    public List<Method> find(Class<?> beanClass) {
+        long start = System.nanoTime();
+        lookups.increment();
+        List<Method> methods = cache.get(beanClass);
+        if (methods == null) {
+            methods = cache.computeIfAbsent(beanClass, this::scan);
+        }
+        lookupNanos.add(System.nanoTime() - start);
+        return methods;
+    }
+
+    /**
+     * 反射扫描类及其父类的@SuperScheduled方法
+     *
+     * @param beanClass bean的类
+     * @return 注解方法
+     */
+    private List<Method> scan(Class<?> beanClass) {
+        Class<?> userClass = ClassUtils.getUserClass(beanClass);
+        Set<String> indexed = indexedClasses;
+        List<Method> methods = null;
+        Set<String> signatures = new HashSet<>();
+        for (Class<?> current = userClass; current != null && current != Object.class; current = current.getSuperclass()) {
+            if (indexed != null && !indexed.contains(current.getName())) {
+                continue;
+            }
+            scanned.increment();
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.isBridge() || method.isSynthetic()) {
+                    continue;
+                }
+                // 子类重写的方法以子类为准
+                if (!signatures.add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+                    continue;
+                }
+                if (method.getAnnotation(SuperScheduled.class) != null) {
+                    if (methods == null) {
+                        methods = new ArrayList<>();
+                    }
+                    methods.add(method);
+                }
+            }
+        }
+        return methods == null ? Collections.emptyList() : Collections.unmodifiableList(methods);
+    }
+
+    /**
+     * 是否使用了索引
+     */
+    public boolean isIndexed() {
+        return indexedClasses != null;
+    }
+
+    /**
+     * 查找次数，即处理的bean数量
+     */
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * 缓存的类数量
+     */
+    public int getCachedClasses() {
+        return cache.size();
+    }
+
+    /**
+     * 反射扫描的类数量，包括父类
+     */
+    public long getScanned() {
+        return scanned.sum();
+    }
+
+    /**
+     * 查找总耗时，单位纳秒
+     */
+    public long getLookupNanos() {
+        return lookupNanos.sum();
+    }
+
+    /**
+     * 清空缓存，所有任务加载完毕后调用
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+}
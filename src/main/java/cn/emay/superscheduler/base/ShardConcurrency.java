@@ -0,0 +1,158 @@
+package cn.emay.superscheduler.base;
+
+import cn.emay.superscheduler.core.DesiredConcurrency;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 可复用的分片并发数容器<br/>
+ * 分片槽位跨计算周期保留，清空只递增代数，分片集合稳定时每个周期不产生任何分配；<br/>
+ * 失效槽位过多时再整体清理。非线程安全，只在计算线程中使用
+ */
+public class ShardConcurrency implements DesiredConcurrency {
+
+    /**
+     * 分片 -> 槽位
+     */
+    private final HashMap<String, Slot> slots = new HashMap<>();
+    /**
+     * 当前代数，槽位代数与之相同才有效
+     */
+    private int generation = 0;
+    /**
+     * 有效分片数量
+     */
+    private int size = 0;
+    /**
+     * 有效分片并发数之和
+     */
+    private int total = 0;
+
+    /**
+     * 清空，之前的槽位全部失效
+     */
+    public void clear() {
+        if (slots.size() > size * 2 + 16) {
+            // 失效槽位过多，整体清理
+            Iterator<Slot> iterator = slots.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().generation != generation) {
+                    iterator.remove();
+                }
+            }
+        }
+        generation++;
+        size = 0;
+        total = 0;
+    }
+
+    @Override
+    public void set(String sharded, int number) {
+        int value = Math.max(0, number);
+        Slot slot = slots.get(sharded);
+        if (slot == null) {
+            slot = new Slot();
+            slot.generation = generation - 1;
+            slots.put(sharded, slot);
+        }
+        if (slot.generation != generation) {
+            slot.generation = generation;
+            slot.value = 0;
+            slot.backlog = 0L;
+            slot.priority = 0;
+            size++;
+        }
+        total += value - slot.value;
+        slot.value = value;
+    }
+
+    @Override
+    public void setBacklog(String sharded, long backlog) {
+        Slot slot = slots.get(sharded);
+        if (slot != null && slot.generation == generation) {
+            slot.backlog = Math.max(0L, backlog);
+        }
+    }
+
+    @Override
+    public void setPriority(String sharded, int priority) {
+        Slot slot = slots.get(sharded);
+        if (slot != null && slot.generation == generation) {
+            slot.priority = priority;
+        }
+    }
+
+    @Override
+    public long getBacklog(String sharded) {
+        Slot slot = slots.get(sharded);
+        return slot == null || slot.generation != generation ? 0L : slot.backlog;
+    }
+
+    @Override
+    public int getPriority(String sharded) {
+        Slot slot = slots.get(sharded);
+        return slot == null || slot.generation != generation ? 0 : slot.priority;
+    }
+
+    @Override
+    public int get(String sharded) {
+        Slot slot = slots.get(sharded);
+        return slot == null || slot.generation != generation ? 0 : slot.value;
+    }
+
+    @Override
+    public boolean contains(String sharded) {
+        Slot slot = slots.get(sharded);
+        return slot != null && slot.generation == generation;
+    }
+
+    @Override
+    public void forEach(ObjIntConsumer<String> consumer) {
+        for (Map.Entry<String, Slot> entry : slots.entrySet()) {
+            Slot slot = entry.getValue();
+            if (slot.generation == generation) {
+                consumer.accept(entry.getKey(), slot.value);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int total() {
+        return total;
+    }
+
+    @Override
+    public Map<String, Integer> asMap() {
+        Map<String, Integer> map = new HashMap<>(Math.max(16, size * 2));
+        forEach(map::put);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        forEach((sharded, number) -> builder.append(sharded).append("=").append(number).append(";"));
+        return builder.toString();
+    }
+
+    /**
+     * 槽位
+     */
+    private static class Slot {
+
+        private int value;
+        private long backlog;
+        private int priority;
+        private int generation;
+
+    }
+
+}
@@ -0,0 +1,228 @@
+package cn.emay.superscheduler.base;
+
+import cn.emay.superscheduler.core.SuperScheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.support.CronTrigger;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务的运行时控制<br/>
+ * 记录任务定义，以及运行时覆盖的执行周期、cron表达式、固定并发数、最大并发数，未覆盖时使用注解定义；<br/>
+ * 作为许可绑定到任务的所有执行单元，暂停时收回许可挂起所有执行单元，恢复时立即恢复调度
+ */
+public class TaskControl implements Permit {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /**
+     * 任务名
+     */
+    private final String name;
+    /**
+     * 任务类型
+     */
+    private final TaskType taskType;
+    /**
+     * 方法调用器
+     */
+    private final TaskInvoker invoker;
+    /**
+     * 任务定义
+     */
+    private final SuperScheduled scheduled;
+    /**
+     * 状态变化监听者
+     */
+    private final Set<Runnable> listeners = ConcurrentHashMap.newKeySet();
+    /**
+     * 是否暂停
+     */
+    private volatile boolean paused = false;
+    /**
+     * 覆盖的执行周期，单位毫秒，未覆盖为-1
+     */
+    private volatile long period = -1L;
+    /**
+     * 覆盖的cron表达式，未覆盖为空
+     */
+    private volatile String cron;
+    /**
+     * 覆盖的cron触发器，未覆盖为空
+     */
+    private volatile CronTrigger cronTrigger;
+    /**
+     * 覆盖的固定并发数，未覆盖为-1
+     */
+    private volatile int fixedConcurrent = -1;
+    /**
+     * 覆盖的最大并发数，未覆盖为-1
+     */
+    private volatile int concurrentMax = -1;
+
+    /**
+     * @param name      任务名
+     * @param taskType  任务类型
+     * @param invoker   方法调用器
+     * @param scheduled 任务定义
+     */
+    public TaskControl(String name, TaskType taskType, TaskInvoker invoker, SuperScheduled scheduled) {
+        this.name = name;
+        this.taskType = taskType;
+        this.invoker = invoker;
+        this.scheduled = scheduled;
+    }
+
+    @Override
+    public boolean isPermitted() {
+        return !paused;
+    }
+
+    /**
+     * 暂停或恢复，状态变化时通知所有执行单元
+     *
+     * @param paused 是否暂停
+     * @return 状态是否变化
+     */
+    public boolean setPaused(boolean paused) {
+        synchronized (this) {
+            if (this.paused == paused) {
+                return false;
+            }
+            this.paused = paused;
+        }
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Throwable e) {
+                log.error("任务" + name + "暂停状态变化监听者报错", e);
+            }
+        }
+        return true;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @Override
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 当前执行周期
+     *
+     * @param defaultPeriod 注解定义的周期
+     * @return 覆盖的周期，未覆盖返回注解定义的周期
+     */
+    public long getPeriod(long defaultPeriod) {
+        long current = period;
+        return current > 0L ? current : defaultPeriod;
+    }
+
+    /**
+     * 覆盖执行周期
+     *
+     * @param period 周期，单位毫秒，小于等于0恢复为注解定义
+     */
+    public void setPeriod(long period) {
+        this.period = period > 0L ? period : -1L;
+    }
+
+    /**
+     * 当前cron触发器
+     *
+     * @param defaultTrigger 注解定义的触发器
+     * @return 覆盖的触发器，未覆盖返回注解定义的触发器
+     */
+    public CronTrigger getCronTrigger(CronTrigger defaultTrigger) {
+        CronTrigger current = cronTrigger;
+        return current != null ? current : defaultTrigger;
+    }
+
+    /**
+     * 覆盖cron表达式
+     *
+     * @param cron cron表达式，为空恢复为注解定义
+     * @throws IllegalArgumentException cron表达式错误
+     */
+    public synchronized void setCron(String cron) {
+        if (cron == null || cron.length() == 0) {
+            this.cronTrigger = null;
+            this.cron = null;
+            return;
+        }
+        this.cronTrigger = new CronTrigger(cron);
+        this.cron = cron;
+    }
+
+    /**
+     * 当前固定并发数
+     */
+    public int getFixedConcurrent() {
+        int current = fixedConcurrent;
+        return current > 0 ? current : scheduled.fixedConcurrent();
+    }
+
+    /**
+     * 覆盖固定并发数
+     *
+     * @param fixedConcurrent 并发数，小于等于0恢复为注解定义
+     */
+    public void setFixedConcurrent(int fixedConcurrent) {
+        this.fixedConcurrent = fixedConcurrent > 0 ? fixedConcurrent : -1;
+    }
+
+    /**
+     * 当前最大并发数
+     */
+    public int getConcurrentMax() {
+        int current = concurrentMax;
+        return current > 0 ? current : scheduled.dynamicConcurrentMax();
+    }
+
+    /**
+     * 覆盖最大并发数
+     *
+     * @param concurrentMax 最大并发数，小于等于0恢复为注解定义
+     */
+    public void setConcurrentMax(int concurrentMax) {
+        this.concurrentMax = concurrentMax > 0 ? concurrentMax : -1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public TaskType getTaskType() {
+        return taskType;
+    }
+
+    public TaskInvoker getInvoker() {
+        return invoker;
+    }
+
+    public SuperScheduled getScheduled() {
+        return scheduled;
+    }
+
+    /**
+     * 覆盖的cron表达式，未覆盖为空
+     */
+    public String getCron() {
+        return cron;
+    }
+
+    @Override
+    public String toString() {
+        return name + (paused ? "(paused)" : "");
+    }
+
+}
@@ -0,0 +1,370 @@
+package cn.emay.superscheduler.base;
+
+import cn.emay.superscheduler.core.TaskResult;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 任务方法调用器<br/>
+ * 加载任务时把方法一次性编译为绑定了执行对象的MethodHandle，<br/>
+ * 每次执行直接invokeExact调用，不再反射调用，也不再分配参数数组
+ */
+public class TaskInvoker {
+
+    /**
+     * 执行对象
+     */
+    private final Object bean;
+    /**
+     * 执行方法
+     */
+    private final Method method;
+    /**
+     * 方法是否接收分片参数
+     */
+    private final boolean shardedParameter;
+    /**
+     * 无参方法，忽略返回值
+     */
+    private final Runnable runnable;
+    /**
+     * 无参方法，返回值为long
+     */
+    private final LongSupplier delaySupplier;
+    /**
+     * 分片方法，忽略返回值
+     */
+    private final Consumer<String> shardedConsumer;
+    /**
+     * 分片方法，返回值为long
+     */
+    private final ToLongFunction<String> shardedDelayFunction;
+    /**
+     * 批处理方法，统一为接收分片和批量大小，返回TaskResult；非批处理方法为空
+     */
+    private final BatchFunction batchFunction;
+    /**
+     * 异步方法，统一为接收分片，返回CompletionStage；非异步方法为空
+     */
+    private final Function<String, CompletionStage<?>> asyncFunction;
+
+    /**
+     * @param bean                 执行对象
+     * @param method               执行方法
+     * @param shardedParameter     方法是否接收分片参数
+     * @param runnable             无参方法
+     * @param delaySupplier        无参long返回值方法
+     * @param shardedConsumer      分片方法
+     * @param shardedDelayFunction 分片long返回值方法
+     * @param batchFunction        批处理方法
+     * @param asyncFunction        异步方法
+     */
+    private TaskInvoker(Object bean, Method method, boolean shardedParameter, Runnable runnable, LongSupplier delaySupplier, Consumer<String> shardedConsumer, ToLongFunction<String> shardedDelayFunction, BatchFunction batchFunction, Function<String, CompletionStage<?>> asyncFunction) {
+        this.bean = bean;
+        this.method = method;
+        this.shardedParameter = shardedParameter;
+        this.runnable = runnable;
+        this.delaySupplier = delaySupplier;
+        this.shardedConsumer = shardedConsumer;
+        this.shardedDelayFunction = shardedDelayFunction;
+        this.batchFunction = batchFunction;
+        this.asyncFunction = asyncFunction;
+    }
+
+    /**
+     * 编译方法<br/>
+     * 方法只能无参，或者只有一个String类型的分片参数；<br/>
+     * 返回值为TaskResult的批处理方法，还可以在最后增加一个int类型的批量大小参数；<br/>
+     * 返回值为CompletionStage(包括CompletableFuture)的方法编译为异步方法
+     *
+     * @param bean   执行对象
+     * @param method 执行方法
+     * @return 调用器
+     */
+    public static TaskInvoker compile(Object bean, Method method) {
+        MethodHandle handle;
+        try {
+            method.setAccessible(true);
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("编译方法[" + method + "]失败", e);
+        }
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(bean);
+        }
+        if (method.getReturnType().equals(TaskResult.class)) {
+            return compileBatch(bean, method, handle);
+        }
+        if (CompletionStage.class.isAssignableFrom(method.getReturnType())) {
+            return compileAsync(bean, method, handle);
+        }
+        boolean isLong = method.getReturnType().equals(long.class);
+        int parameterCount = method.getParameterCount();
+        if (parameterCount == 0) {
+            MethodHandle voidHandle = handle.asType(MethodType.methodType(void.class));
+            Runnable runnable = () -> {
+                try {
+                    voidHandle.invokeExact();
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+            LongSupplier delaySupplier = null;
+            if (isLong) {
+                MethodHandle longHandle = handle.asType(MethodType.methodType(long.class));
+                delaySupplier = () -> {
+                    try {
+                        return (long) longHandle.invokeExact();
+                    } catch (Throwable e) {
+                        throw rethrow(e);
+                    }
+                };
+            }
+            return new TaskInvoker(bean, method, false, runnable, delaySupplier, null, null, null, null);
+        } else if (parameterCount == 1 && method.getParameterTypes()[0].equals(String.class)) {
+            MethodHandle voidHandle = handle.asType(MethodType.methodType(void.class, String.class));
+            Consumer<String> shardedConsumer = sharded -> {
+                try {
+                    voidHandle.invokeExact(sharded);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+            ToLongFunction<String> shardedDelayFunction = null;
+            if (isLong) {
+                MethodHandle longHandle = handle.asType(MethodType.methodType(long.class, String.class));
+                shardedDelayFunction = sharded -> {
+                    try {
+                        return (long) longHandle.invokeExact(sharded);
+                    } catch (Throwable e) {
+                        throw rethrow(e);
+                    }
+                };
+            }
+            return new TaskInvoker(bean, method, true, null, null, shardedConsumer, shardedDelayFunction, null, null);
+        } else {
+            throw new IllegalArgumentException("方法[" + method + "]只能无参，或者只有一个String类型的分片参数");
+        }
+    }
+
+    /**
+     * 编译批处理方法，参数统一转换为(分片, 批量大小)，方法没有的参数调用时丢弃
+     *
+     * @param bean   执行对象
+     * @param method 执行方法
+     * @param handle 已绑定执行对象的方法句柄
+     * @return 调用器
+     */
+    private static TaskInvoker compileBatch(Object bean, Method method, MethodHandle handle) {
+        Class<?>[] types = method.getParameterTypes();
+        boolean sharded = types.length > 0 && types[0].equals(String.class);
+        boolean sized = types.length > 0 && types[types.length - 1].equals(int.class);
+        if (types.length > 2 || types.length != (sharded ? 1 : 0) + (sized ? 1 : 0)) {
+            throw new IllegalArgumentException("批处理方法[" + method + "]参数只能是(String 分片, int 批量大小)，两个参数都可以省略");
+        }
+        MethodHandle batchHandle = handle.asType(MethodType.methodType(TaskResult.class, types));
+        if (!sized) {
+            batchHandle = MethodHandles.dropArguments(batchHandle, batchHandle.type().parameterCount(), int.class);
+        }
+        if (!sharded) {
+            batchHandle = MethodHandles.dropArguments(batchHandle, 0, String.class);
+        }
+        MethodHandle exactHandle = batchHandle;
+        BatchFunction batchFunction = (shard, batchSize) -> {
+            try {
+                return (TaskResult) exactHandle.invokeExact(shard, batchSize);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+        return new TaskInvoker(bean, method, sharded, null, null, null, null, batchFunction, null);
+    }
+
+    /**
+     * 编译异步方法，参数统一转换为(分片)，方法没有分片参数时调用时丢弃
+     *
+     * @param bean   执行对象
+     * @param method 执行方法
+     * @param handle 已绑定执行对象的方法句柄
+     * @return 调用器
+     */
+    private static TaskInvoker compileAsync(Object bean, Method method, MethodHandle handle) {
+        Class<?>[] types = method.getParameterTypes();
+        boolean sharded = types.length == 1 && types[0].equals(String.class);
+        if (types.length != (sharded ? 1 : 0)) {
+            throw new IllegalArgumentException("异步方法[" + method + "]只能无参，或者只有一个String类型的分片参数");
+        }
+        MethodHandle asyncHandle = handle.asType(MethodType.methodType(CompletionStage.class, types));
+        if (!sharded) {
+            asyncHandle = MethodHandles.dropArguments(asyncHandle, 0, String.class);
+        }
+        MethodHandle exactHandle = asyncHandle;
+        Function<String, CompletionStage<?>> asyncFunction = shard -> {
+            try {
+                return (CompletionStage<?>) exactHandle.invokeExact(shard);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+        return new TaskInvoker(bean, method, sharded, null, null, null, null, null, asyncFunction);
+    }
+
+    /**
+     * 运行时异常和Error原样抛出，受检异常包装后抛出
+     *
+     * @param e 异常
+     * @return 运行时异常
+     */
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalArgumentException(e);
+    }
+
+    /**
+     * 绑定分片，生成忽略返回值的执行逻辑<br/>
+     * 在创建执行单元时调用一次，每次执行不再产生分配
+     *
+     * @param sharded 分片
+     * @return 执行逻辑
+     */
+    public Runnable bindRunnable(String sharded) {
+        if (!shardedParameter) {
+            return runnable;
+        }
+        Consumer<String> consumer = this.shardedConsumer;
+        return () -> consumer.accept(sharded);
+    }
+
+    /**
+     * 绑定分片，生成返回long值的执行逻辑<br/>
+     * 在创建执行单元时调用一次，每次执行不再产生分配
+     *
+     * @param sharded 分片
+     * @return 执行逻辑
+     */
+    public LongSupplier bindDelay(String sharded) {
+        if (!shardedParameter) {
+            if (delaySupplier == null) {
+                throw new IllegalArgumentException("方法[" + method + "]返回值类型必须是long");
+            }
+            return delaySupplier;
+        }
+        if (shardedDelayFunction == null) {
+            throw new IllegalArgumentException("方法[" + method + "]返回值类型必须是long");
+        }
+        ToLongFunction<String> function = this.shardedDelayFunction;
+        return () -> function.applyAsLong(sharded);
+    }
+
+    /**
+     * 绑定分片，生成批处理执行逻辑<br/>
+     * 在创建执行单元时调用一次
+     *
+     * @param sharded 分片
+     * @return 执行逻辑，参数为批量大小
+     */
+    public IntFunction<TaskResult> bindBatch(String sharded) {
+        if (batchFunction == null) {
+            throw new IllegalArgumentException("方法[" + method + "]返回值类型必须是TaskResult");
+        }
+        BatchFunction function = this.batchFunction;
+        return batchSize -> function.apply(sharded, batchSize);
+    }
+
+    /**
+     * 绑定分片，生成异步执行逻辑<br/>
+     * 在创建执行单元时调用一次
+     *
+     * @param sharded 分片
+     * @return 执行逻辑，返回方法返回的CompletionStage
+     */
+    public Supplier<CompletionStage<?>> bindAsync(String sharded) {
+        if (asyncFunction == null) {
+            throw new IllegalArgumentException("方法[" + method + "]返回值类型必须是CompletionStage");
+        }
+        Function<String, CompletionStage<?>> function = this.asyncFunction;
+        return () -> function.apply(sharded);
+    }
+
+    /**
+     * 是否异步方法
+     */
+    public boolean isAsync() {
+        return asyncFunction != null;
+    }
+
+    /**
+     * 是否批处理方法
+     */
+    public boolean isBatch() {
+        return batchFunction != null;
+    }
+
+    public Object getBean() {
+        return bean;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public boolean isShardedParameter() {
+        return shardedParameter;
+    }
+
+    public Runnable getRunnable() {
+        return runnable;
+    }
+
+    public LongSupplier getDelaySupplier() {
+        return delaySupplier;
+    }
+
+    public Consumer<String> getShardedConsumer() {
+        return shardedConsumer;
+    }
+
+    public ToLongFunction<String> getShardedDelayFunction() {
+        return shardedDelayFunction;
+    }
+
+    public BatchFunction getBatchFunction() {
+        return batchFunction;
+    }
+
+    public Function<String, CompletionStage<?>> getAsyncFunction() {
+        return asyncFunction;
+    }
+
+    /**
+     * 批处理方法
+     */
+    @FunctionalInterface
+    public interface BatchFunction {
+
+        /**
+         * 执行一批
+         *
+         * @param sharded   分片
+         * @param batchSize 批量大小
+         * @return 执行结果
+         */
+        TaskResult apply(String sharded, int batchSize);
+    }
+}
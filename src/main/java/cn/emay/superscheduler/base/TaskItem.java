@@ -19,6 +19,18 @@ public class TaskItem {
      * 分片
      */
     private final String sharded;
+    /**
+     * 单节点锁，非单节点执行为空
+     */
+    private final TaskLock lock;
+    /**
+     * 熔断器，未开启熔断为空
+     */
+    private final CircuitBreaker breaker;
+    /**
+     * 错开时间，单位毫秒，挂起后恢复时等待此时间
+     */
+    private final long phase;
 
     /**
      * @param task    任务
@@ -26,9 +38,45 @@ public class TaskItem {
      * @param sharded 分片
      */
     public TaskItem(Task task, String name, String sharded) {
+        this(task, name, sharded, null);
+    }
+
+    /**
+     * @param task    任务
+     * @param name    名字
+     * @param sharded 分片
+     * @param lock    单节点锁，持有锁时才调度执行
+     */
+    public TaskItem(Task task, String name, String sharded, TaskLock lock) {
+        this(task, name, sharded, lock, null);
+    }
+
+    /**
+     * @param task    任务
+     * @param name    名字
+     * @param sharded 分片
+     * @param lock    单节点锁，持有锁时才调度执行
+     * @param breaker 熔断器，熔断时挂起
+     */
+    public TaskItem(Task task, String name, String sharded, TaskLock lock, CircuitBreaker breaker) {
+        this(task, name, sharded, lock, breaker, 0L);
+    }
+
+    /**
+     * @param task    任务
+     * @param name    名字
+     * @param sharded 分片
+     * @param lock    单节点锁，持有锁时才调度执行
+     * @param breaker 熔断器，熔断时挂起
+     * @param phase   错开时间，挂起后恢复时等待此时间
+     */
+    public TaskItem(Task task, String name, String sharded, TaskLock lock, CircuitBreaker breaker, long phase) {
         this.task = task;
         this.name = name;
         this.sharded = sharded;
+        this.lock = lock;
+        this.breaker = breaker;
+        this.phase = phase;
     }
 
     public Task getTask() {
@@ -42,4 +90,16 @@ public class TaskItem {
     public String getSharded() {
         return sharded;
     }
+
+    public TaskLock getLock() {
+        return lock;
+    }
+
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    public long getPhase() {
+        return phase;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package cn.emay.superscheduler.base;
+
+import cn.emay.superscheduler.core.TaskExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 单个任务的执行监听器集合<br/>
+ * 执行单元创建时获取一次，没有监听器时执行单元不做任何统计
+ */
+public class TaskListeners implements TaskExecutionListener {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /**
+     * 监听器
+     */
+    private final CopyOnWriteArrayList<TaskExecutionListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 增加监听器
+     *
+     * @param listener 监听器
+     */
+    public void add(TaskExecutionListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    /**
+     * 移除监听器
+     *
+     * @param listener 监听器
+     */
+    public void remove(TaskExecutionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 是否没有监听器
+     */
+    public boolean isEmpty() {
+        return listeners.isEmpty();
+    }
+
+    @Override
+    public void onStarted(String name, String sharded, long lagNanos) {
+        for (TaskExecutionListener listener : listeners) {
+            try {
+                listener.onStarted(name, sharded, lagNanos);
+            } catch (Throwable e) {
+                log.error("任务" + name + "执行监听器报错", e);
+            }
+        }
+    }
+
+    @Override
+    public void onExecuted(String name, String sharded, long durationNanos, boolean success, long result) {
+        for (TaskExecutionListener listener : listeners) {
+            try {
+                listener.onExecuted(name, sharded, durationNanos, success, result);
+            } catch (Throwable e) {
+                log.error("任务" + name + "执行监听器报错", e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package cn.emay.superscheduler.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单节点锁状态<br/>
+ * 执行单元创建时获取一次，每次执行只读取volatile字段，不再按锁名查找；<br/>
+ * 持有状态变化时同步通知监听者，挂起或恢复绑定此锁的任务；<br/>
+ * 续期成功时记录本地有效期，有效期按发起续期的时间计算并提前过期，保证租约失效前本节点已经停止执行
+ */
+public class TaskLock implements Permit {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /**
+     * 锁名称
+     */
+    private final String key;
+    /**
+     * 本节点是否持有
+     */
+    private volatile boolean held = false;
+    /**
+     * 是否有租约，没有租约时持有即有效
+     */
+    private volatile boolean leased = false;
+    /**
+     * 本地有效期，System.nanoTime()
+     */
+    private volatile long deadlineNanos;
+    /**
+     * 最近一次续期的fencing token，未持有为-1
+     */
+    private volatile long token = -1L;
+    /**
+     * 持有状态变化监听者
+     */
+    private final Set<Runnable> listeners = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param key 锁名称
+     */
+    public TaskLock(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isHeld() {
+        return held;
+    }
+
+    @Override
+    public boolean isPermitted() {
+        return held;
+    }
+
+    /**
+     * 是否持有且未到本地有效期
+     */
+    public boolean isValid() {
+        return held && (!leased || deadlineNanos - System.nanoTime() > 0L);
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    /**
+     * 竞争或续期成功
+     *
+     * @param token         fencing token
+     * @param deadlineNanos 本地有效期，System.nanoTime()
+     */
+    public synchronized void renew(long token, long deadlineNanos) {
+        this.token = token;
+        this.deadlineNanos = deadlineNanos;
+        this.leased = true;
+        setHeld(true);
+    }
+
+    /**
+     * 设置持有状态，状态变化时在调用线程中通知监听者
+     *
+     * @param held 是否持有
+     */
+    public synchronized void setHeld(boolean held) {
+        if (!held) {
+            this.token = -1L;
+        }
+        if (this.held == held) {
+            return;
+        }
+        this.held = held;
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Throwable e) {
+                log.error("锁[" + key + "]状态变化监听者报错", e);
+            }
+        }
+    }
+
+    /**
+     * 已经到本地有效期时置为未持有，与续期互斥，不会覆盖刚完成的续期
+     *
+     * @return 是否过期
+     */
+    public synchronized boolean expire() {
+        if (!held || isValid()) {
+            return false;
+        }
+        setHeld(false);
+        return true;
+    }
+
+    @Override
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public String toString() {
+        return key + (held ? "(held)" : "");
+    }
+
+}
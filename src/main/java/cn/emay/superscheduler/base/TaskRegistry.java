@@ -0,0 +1,266 @@
+package cn.emay.superscheduler.base;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 运行中任务的注册表<br/>
+ * 按任务名分段加锁：同一任务的增删在该任务的分组上互斥，不同任务之间互不阻塞；<br/>
+ * 分片并发数在增删时增量维护，读取时不加锁、不复制
+ */
+public class TaskRegistry {
+
+    /**
+     * 任务名 -> 任务分组
+     */
+    private final ConcurrentHashMap<String, TaskGroup> groups = new ConcurrentHashMap<>();
+    /**
+     * 是否已经关闭，关闭后不再接收新任务
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * 注册一个运行中的任务
+     *
+     * @param name    任务名
+     * @param sharded 分片
+     * @param future  任务句柄
+     * @return 是否注册成功，注册表关闭后返回false，调用方需要自行取消任务
+     */
+    public boolean add(String name, String sharded, ScheduledFuture<?> future) {
+        TaskGroup group = groups.computeIfAbsent(name, k -> new TaskGroup());
+        synchronized (group) {
+            if (closed) {
+                return false;
+            }
+            group.shards.computeIfAbsent(sharded, k -> new ShardedTasks()).add(future);
+            group.size++;
+        }
+        return true;
+    }
+
+    /**
+     * 移除分片中最早注册的若干任务
+     *
+     * @param name    任务名
+     * @param sharded 分片
+     * @param count   移除数量
+     * @return 被移除的任务
+     */
+    public List<ScheduledFuture<?>> remove(String name, String sharded, int count) {
+        TaskGroup group = groups.get(name);
+        if (group == null || count <= 0) {
+            return Collections.emptyList();
+        }
+        synchronized (group) {
+            ShardedTasks tasks = group.shards.get(sharded);
+            if (tasks == null) {
+                return Collections.emptyList();
+            }
+            List<ScheduledFuture<?>> removed = tasks.removeFirst(count);
+            if (tasks.size == 0) {
+                group.shards.remove(sharded);
+            }
+            group.size -= removed.size();
+            return removed;
+        }
+    }
+
+    /**
+     * 移除任务所有分片的任务
+     *
+     * @param name            任务名
+     * @param excludedSharded 不移除的分片
+     * @return 被移除的任务
+     */
+    public List<ScheduledFuture<?>> removeAll(String name, String excludedSharded) {
+        TaskGroup group = groups.get(name);
+        if (group == null) {
+            return Collections.emptyList();
+        }
+        List<ScheduledFuture<?>> removed = new ArrayList<>();
+        synchronized (group) {
+            Iterator<Map.Entry<String, ShardedTasks>> iterator = group.shards.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, ShardedTasks> entry = iterator.next();
+                if (entry.getKey().equals(excludedSharded)) {
+                    continue;
+                }
+                removed.addAll(entry.getValue().futures);
+                iterator.remove();
+            }
+            group.size -= removed.size();
+        }
+        return removed;
+    }
+
+    /**
+     * 复制任务所有分片的任务
+     *
+     * @param name            任务名
+     * @param excludedSharded 不复制的分片
+     * @return 任务句柄
+     */
+    public List<ScheduledFuture<?>> snapshot(String name, String excludedSharded) {
+        TaskGroup group = groups.get(name);
+        if (group == null) {
+            return Collections.emptyList();
+        }
+        List<ScheduledFuture<?>> futures = new ArrayList<>();
+        synchronized (group) {
+            group.shards.forEach((sharded, tasks) -> {
+                if (!sharded.equals(excludedSharded)) {
+                    futures.addAll(tasks.futures);
+                }
+            });
+        }
+        return futures;
+    }
+
+    /**
+     * 关闭注册表并取出所有任务
+     *
+     * @return 所有任务
+     */
+    public List<ScheduledFuture<?>> close() {
+        closed = true;
+        List<ScheduledFuture<?>> all = new ArrayList<>();
+        for (TaskGroup group : groups.values()) {
+            synchronized (group) {
+                group.shards.values().forEach(tasks -> all.addAll(tasks.futures));
+                group.shards.clear();
+                group.size = 0;
+            }
+        }
+        groups.clear();
+        return all;
+    }
+
+    /**
+     * 任务所有分片的并发数之和
+     *
+     * @param name 任务名
+     * @return 并发数
+     */
+    public int count(String name) {
+        TaskGroup group = groups.get(name);
+        return group == null ? 0 : group.size;
+    }
+
+    /**
+     * 任务某个分片的并发数
+     *
+     * @param name    任务名
+     * @param sharded 分片
+     * @return 并发数
+     */
+    public int count(String name, String sharded) {
+        TaskGroup group = groups.get(name);
+        if (group == null) {
+            return 0;
+        }
+        ShardedTasks tasks = group.shards.get(sharded);
+        return tasks == null ? 0 : tasks.size;
+    }
+
+    /**
+     * 任务每个分片的并发数
+     *
+     * @param name            任务名
+     * @param excludedSharded 不统计的分片
+     * @return <分片,并发数>
+     */
+    public Map<String, Integer> counts(String name, String excludedSharded) {
+        Map<String, Integer> concurrent = new HashMap<>();
+        TaskGroup group = groups.get(name);
+        if (group == null) {
+            return concurrent;
+        }
+        group.shards.forEach((sharded, tasks) -> {
+            if (sharded.equals(excludedSharded)) {
+                return;
+            }
+            int size = tasks.size;
+            if (size > 0) {
+                concurrent.put(sharded, size);
+            }
+        });
+        return concurrent;
+    }
+
+    /**
+     * 遍历任务每个分片的并发数，不加锁、不复制
+     *
+     * @param name            任务名
+     * @param excludedSharded 不统计的分片
+     * @param consumer        <分片,并发数>
+     */
+    public void forEachCount(String name, String excludedSharded, ObjIntConsumer<String> consumer) {
+        TaskGroup group = groups.get(name);
+        if (group == null) {
+            return;
+        }
+        for (Map.Entry<String, ShardedTasks> entry : group.shards.entrySet()) {
+            int size = entry.getValue().size;
+            if (size > 0 && !entry.getKey().equals(excludedSharded)) {
+                consumer.accept(entry.getKey(), size);
+            }
+        }
+    }
+
+    /**
+     * 任务分组，增删在分组上加锁
+     */
+    private static class TaskGroup {
+
+        /**
+         * 分片 -> 分片任务
+         */
+        private final ConcurrentHashMap<String, ShardedTasks> shards = new ConcurrentHashMap<>();
+        /**
+         * 所有分片的任务数
+         */
+        private volatile int size = 0;
+
+    }
+
+    /**
+     * 分片任务，由所属分组的锁保护<br/>
+     * 先进先出，头部移除为O(1)
+     */
+    private static class ShardedTasks {
+
+        /**
+         * 任务句柄
+         */
+        private final ArrayDeque<ScheduledFuture<?>> futures = new ArrayDeque<>();
+        /**
+         * 任务数
+         */
+        private volatile int size = 0;
+
+        private void add(ScheduledFuture<?> future) {
+            futures.add(future);
+            size = futures.size();
+        }
+
+        private List<ScheduledFuture<?>> removeFirst(int count) {
+            int number = Math.min(count, futures.size());
+            List<ScheduledFuture<?>> removed = new ArrayList<>(number);
+            for (int i = 0; i < number; i++) {
+                removed.add(futures.pollFirst());
+            }
+            size = futures.size();
+            return removed;
+        }
+    }
+
+}
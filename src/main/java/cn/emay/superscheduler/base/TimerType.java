@@ -0,0 +1,15 @@
+package cn.emay.superscheduler.base;
+
+/**
+ * 计时器类型
+ */
+public enum TimerType {
+    /**
+     * spring ThreadPoolTaskScheduler，基于堆延时队列，适合任务数量不多的场景
+     */
+    SCHEDULED_THREAD_POOL,
+    /**
+     * 分层时间轮，适合大量高频任务的场景，执行时间精度为一个刻度
+     */
+    HASHED_WHEEL
+}
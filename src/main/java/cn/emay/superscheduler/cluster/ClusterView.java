@@ -0,0 +1,97 @@
+package cn.emay.superscheduler.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 本节点看到的集群视图<br/>
+ * 由心跳任务按存活节点刷新一致性哈希环，节点变化时通知监听者重新分配分片；<br/>
+ * 视图总是包含本节点；成员管理不可用时保持最后一次的视图，本节点继续执行原有的分片，<br/>
+ * 其他节点在本节点心跳到期后会接管这些分片，恢复之前这些分片可能在两个节点上执行，需要业务幂等或配合单节点锁
+ */
+public class ClusterView {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /**
+     * 本节点
+     */
+    private final String nodeId;
+    /**
+     * 一致性哈希环
+     */
+    private volatile ConsistentHashRing ring;
+    /**
+     * 节点变化监听者
+     */
+    private final CopyOnWriteArrayList<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param nodeId 本节点
+     */
+    public ClusterView(String nodeId) {
+        this.nodeId = nodeId;
+        this.ring = new ConsistentHashRing(Collections.singleton(nodeId));
+    }
+
+    /**
+     * 按存活节点刷新视图，节点有变化时通知监听者
+     *
+     * @param liveNodes 存活节点
+     * @return 节点是否有变化
+     */
+    public boolean update(Collection<String> liveNodes) {
+        SortedSet<String> nodes = new TreeSet<>(liveNodes);
+        nodes.add(nodeId);
+        if (nodes.equals(ring.getNodes())) {
+            return false;
+        }
+        ring = new ConsistentHashRing(nodes);
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Throwable e) {
+                log.error("集群节点变化监听者报错", e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 任务分片是否归属本节点
+     *
+     * @param name    任务名
+     * @param sharded 分片
+     * @return 是否归属本节点
+     */
+    public boolean isOwner(String name, String sharded) {
+        return nodeId.equals(ring.locate(name, sharded));
+    }
+
+    /**
+     * 增加节点变化监听者，在心跳线程中同步回调
+     *
+     * @param listener 监听者
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public SortedSet<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+}
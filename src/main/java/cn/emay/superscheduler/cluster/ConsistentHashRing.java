@@ -0,0 +1,125 @@
+package cn.emay.superscheduler.cluster;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * 一致性哈希环，创建后不可变<br/>
+ * 每个节点在环上放置若干虚拟节点，分片顺时针归属到第一个虚拟节点；<br/>
+ * 节点加入或离开时只有落在该节点区间内的分片改变归属，其他分片不动
+ */
+public class ConsistentHashRing {
+
+    /**
+     * 每个节点的虚拟节点数
+     */
+    public static final int VIRTUAL_NODES = 160;
+    /**
+     * 所有节点，有序
+     */
+    private final SortedSet<String> nodes;
+    /**
+     * 虚拟节点哈希值，升序
+     */
+    private final long[] points;
+    /**
+     * 虚拟节点所属节点，与points一一对应
+     */
+    private final String[] owners;
+
+    /**
+     * @param nodes 节点
+     */
+    public ConsistentHashRing(Collection<String> nodes) {
+        this.nodes = Collections.unmodifiableSortedSet(new TreeSet<>(nodes));
+        int size = this.nodes.size() * VIRTUAL_NODES;
+        long[] hashes = new long[size];
+        String[] names = new String[size];
+        int index = 0;
+        for (String node : this.nodes) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                hashes[index] = hash(node + "#" + i);
+                names[index] = node;
+                index++;
+            }
+        }
+        // 按哈希值排序，哈希相同按节点名排序，保证各节点计算结果一致
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int compare = Long.compare(hashes[a], hashes[b]);
+            return compare != 0 ? compare : names[a].compareTo(names[b]);
+        });
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            this.points[i] = hashes[order[i]];
+            this.owners[i] = names[order[i]];
+        }
+    }
+
+    /**
+     * 任务分片所属节点
+     *
+     * @param name    任务名
+     * @param sharded 分片
+     * @return 节点，环为空时返回null
+     */
+    public String locate(String name, String sharded) {
+        return locate(mix(hash(name) * 31L + hash(sharded)));
+    }
+
+    /**
+     * 哈希值所属节点
+     *
+     * @param hash 哈希值
+     * @return 节点，环为空时返回null
+     */
+    public String locate(long hash) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public SortedSet<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 64位FNV-1a哈希后再做一次混合，分布更均匀
+     *
+     * @param value 字符串
+     * @return 哈希值
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * murmur3的64位混合函数
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,48 @@
+package cn.emay.superscheduler.cluster;
+
+import cn.emay.superscheduler.core.ClusterMembership;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的集群成员管理<br/>
+ * 同一个JVM中的多个SuperScheduler共用一个实例即可模拟多节点集群，用于本地验证分片分配和节点加入离开
+ */
+public class InMemoryClusterMembership implements ClusterMembership {
+
+    /**
+     * 节点id -> 过期时间
+     */
+    private final ConcurrentHashMap<String, Long> nodes = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean heartbeat(String nodeId, int seconds) {
+        nodes.put(nodeId, System.currentTimeMillis() + seconds * 1000L);
+        return true;
+    }
+
+    @Override
+    public List<String> getLiveNodes() {
+        long now = System.currentTimeMillis();
+        nodes.values().removeIf(expireAt -> expireAt < now);
+        return new ArrayList<>(nodes.keySet());
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        nodes.remove(nodeId);
+    }
+
+    /**
+     * 模拟节点宕机：不主动离开，保持时间立即到期，其他节点下次刷新时视为离开<br/>
+     * 调用方同时停止该节点的心跳
+     *
+     * @param nodeId 节点id
+     */
+    public void expire(String nodeId) {
+        nodes.computeIfPresent(nodeId, (node, expireAt) -> 0L);
+    }
+
+}
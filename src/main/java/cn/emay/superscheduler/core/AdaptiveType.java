@@ -0,0 +1,19 @@
+package cn.emay.superscheduler.core;
+
+/**
+ * 内置自适应并发算法
+ */
+public enum AdaptiveType {
+    /**
+     * 不使用自适应并发
+     */
+    NONE,
+    /**
+     * 加性增、乘性减：有积压且耗时平稳时并发加1，耗时明显上升或大量失败时并发乘以0.75，空闲时并发减1
+     */
+    AIMD,
+    /**
+     * 梯度：按 基准耗时/当前耗时 的比例缩放并发，有积压时额外增加sqrt(并发)，平滑后取整
+     */
+    GRADIENT
+}
@@ -0,0 +1,28 @@
+package cn.emay.superscheduler.core;
+
+/**
+ * 所需并发数之和超过dynamicConcurrentMax时的截断策略<br/>
+ * 所有策略结果确定：同等条件下按分片名升序
+ */
+public enum CappingType {
+    /**
+     * 先到先得：按分片名升序依次满足，排在后面的分片可能分不到并发
+     */
+    FIRST_COME,
+    /**
+     * 按比例：按各分片所需并发数的比例分配，余数按小数部分从大到小分配
+     */
+    PROPORTIONAL,
+    /**
+     * 最大最小公平：所需少的分片先满足，其余分片平分剩余并发
+     */
+    MAX_MIN_FAIR,
+    /**
+     * 按积压加权：以并发计算器上报的积压量(DesiredConcurrency.setBacklog)为权重做加权最大最小公平分配，未上报的分片权重为1
+     */
+    BACKLOG_WEIGHTED,
+    /**
+     * 按优先级：优先级(DesiredConcurrency.setPriority)高的分片先满足，同一优先级内最大最小公平
+     */
+    PRIORITY
+}
@@ -0,0 +1,36 @@
+package cn.emay.superscheduler.core;
+
+import java.util.Collection;
+
+/**
+ * 集群成员管理者<br/>
+ * 节点定时上报心跳，超过保持时间未上报的节点视为离开；分布式分片任务按存活节点分配分片
+ */
+public interface ClusterMembership {
+
+    /**
+     * 上报心跳，节点不存在时加入集群<br/>
+     * 同一个节点会不断的上报，请注意更新最新的保持时间
+     *
+     * @param nodeId  节点id
+     * @param seconds 保持时间
+     * @return 是否上报成功
+     */
+    boolean heartbeat(String nodeId, int seconds);
+
+    /**
+     * 获取所有存活节点
+     *
+     * @return 存活节点id
+     */
+    Collection<String> getLiveNodes();
+
+    /**
+     * 离开集群<br/>
+     * 节点关停时触发调用
+     *
+     * @param nodeId 节点id
+     */
+    void leave(String nodeId);
+
+}
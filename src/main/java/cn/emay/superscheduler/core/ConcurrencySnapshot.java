@@ -0,0 +1,63 @@
+package cn.emay.superscheduler.core;
+
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 分片并发数只读视图<br/>
+ * 由框架在每个计算周期复用填充，只在本次计算内有效，不能被保存
+ */
+public interface ConcurrencySnapshot {
+
+    /**
+     * 分片的并发数
+     *
+     * @param sharded 分片
+     * @return 并发数，不存在为0
+     */
+    int get(String sharded);
+
+    /**
+     * 是否包含分片
+     *
+     * @param sharded 分片
+     * @return 是否包含
+     */
+    boolean contains(String sharded);
+
+    /**
+     * 遍历所有分片
+     *
+     * @param consumer <分片,并发数>
+     */
+    void forEach(ObjIntConsumer<String> consumer);
+
+    /**
+     * 分片数量
+     */
+    int size();
+
+    /**
+     * 所有分片的并发数之和
+     */
+    int total();
+
+    /**
+     * 分片的积压量<br/>
+     * 当前并发数视图中为批处理任务(返回TaskResult)上报的最近积压量
+     *
+     * @param sharded 分片
+     * @return 积压量，未上报为0
+     */
+    default long getBacklog(String sharded) {
+        return 0L;
+    }
+
+    /**
+     * 复制为Map，兼容按Map计算的并发计算器
+     *
+     * @return <分片,并发数>
+     */
+    Map<String, Integer> asMap();
+
+}
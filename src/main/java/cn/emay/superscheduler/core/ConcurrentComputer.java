@@ -3,7 +3,9 @@ package cn.emay.superscheduler.core;
 import java.util.Map;
 
 /**
- * 并发计算器
+ * 并发计算器<br/>
+ * 框架调用compute(ConcurrencySnapshot, DesiredConcurrency)，默认转换为Map调用compute(Map)；<br/>
+ * 分片较多时可以覆盖视图版本直接读写视图，避免每个计算周期复制Map
  */
 public interface ConcurrentComputer {
 
@@ -14,4 +16,22 @@ public interface ConcurrentComputer {
      * @return 所需分片并发数 <分片,并发数>
      */
     Map<String, Integer> compute(Map<String, Integer> concurrent);
+
+    /**
+     * 计算每个分片所需并发数，结果填入所需并发数视图，未填入的分片并发数为0
+     *
+     * @param concurrent 当前分片并发数
+     * @param desired    所需分片并发数，调用前已清空
+     */
+    default void compute(ConcurrencySnapshot concurrent, DesiredConcurrency desired) {
+        Map<String, Integer> need = compute(concurrent.asMap());
+        if (need == null) {
+            return;
+        }
+        need.forEach((sharded, number) -> {
+            if (number != null) {
+                desired.set(sharded, number);
+            }
+        });
+    }
 }
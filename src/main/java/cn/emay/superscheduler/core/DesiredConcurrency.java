@@ -0,0 +1,51 @@
+package cn.emay.superscheduler.core;
+
+/**
+ * 分片所需并发数视图，由并发计算器填充<br/>
+ * 由框架在每个计算周期清空复用，只在本次计算内有效，不能被保存
+ */
+public interface DesiredConcurrency extends ConcurrencySnapshot {
+
+    /**
+     * 设置分片所需并发数
+     *
+     * @param sharded 分片
+     * @param number  并发数，小于0按0处理
+     */
+    void set(String sharded, int number);
+
+    /**
+     * 上报分片的积压量，BACKLOG_WEIGHTED截断策略以此为权重<br/>
+     * 需要在set之后调用
+     *
+     * @param sharded 分片
+     * @param backlog 积压量
+     */
+    void setBacklog(String sharded, long backlog);
+
+    /**
+     * 上报分片的优先级，数值越大越优先，PRIORITY截断策略使用<br/>
+     * 需要在set之后调用
+     *
+     * @param sharded  分片
+     * @param priority 优先级，默认0
+     */
+    void setPriority(String sharded, int priority);
+
+    /**
+     * 分片的积压量
+     *
+     * @param sharded 分片
+     * @return 积压量，未上报为0
+     */
+    long getBacklog(String sharded);
+
+    /**
+     * 分片的优先级
+     *
+     * @param sharded 分片
+     * @return 优先级，未上报为0
+     */
+    int getPriority(String sharded);
+
+}
@@ -1,7 +1,14 @@
 package cn.emay.superscheduler.core;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
- * 分布式锁控制者
+ * 分布式锁控制者<br/>
+ * 任务可以按锁分组、分片使用不同的锁，竞争锁任务每轮调用一次批量方法；<br/>
+ * 批量方法默认逐个调用单个锁方法，存储支持批量操作时建议覆盖以减少网络往返；<br/>
+ * 存储能够为每次易主生成单调递增的fencing token时，覆盖lockWithToken，业务通过SuperSchedulerContext读取token写入下游
  */
 public interface OnlyLockHandler {
 
@@ -25,4 +32,50 @@ public interface OnlyLockHandler {
      */
     void unLock(String onlyLockName, String nodeId);
 
+    /**
+     * 竞争锁并返回fencing token<br/>
+     * 锁每次易主时token单调递增，同一节点续期时不变；下游拒绝小于已见过token的写入，失去锁的旧节点无法再写入<br/>
+     * 默认不支持fencing，竞争成功返回0
+     *
+     * @param onlyLockName 锁名称
+     * @param nodeId       节点id
+     * @param seconds      保持锁的时间
+     * @return fencing token，竞争失败返回-1
+     */
+    default long lockWithToken(String onlyLockName, String nodeId, int seconds) {
+        return lock(onlyLockName, nodeId, seconds) ? 0L : -1L;
+    }
+
+    /**
+     * 批量竞争锁<br/>
+     * 已经持有的锁同样需要续期
+     *
+     * @param onlyLockNames 锁名称
+     * @param nodeId        节点id
+     * @param seconds       保持锁的时间
+     * @return 竞争成功(含续期成功)的锁名称 -> fencing token
+     */
+    default Map<String, Long> lock(Collection<String> onlyLockNames, String nodeId, int seconds) {
+        Map<String, Long> locked = new HashMap<>();
+        for (String onlyLockName : onlyLockNames) {
+            long token = lockWithToken(onlyLockName, nodeId, seconds);
+            if (token >= 0L) {
+                locked.put(onlyLockName, token);
+            }
+        }
+        return locked;
+    }
+
+    /**
+     * 批量释放锁
+     *
+     * @param onlyLockNames 锁名称
+     * @param nodeId        节点id
+     */
+    default void unLock(Collection<String> onlyLockNames, String nodeId) {
+        for (String onlyLockName : onlyLockNames) {
+            unLock(onlyLockName, nodeId);
+        }
+    }
+
 }
@@ -0,0 +1,24 @@
+package cn.emay.superscheduler.core;
+
+/**
+ * 重叠执行策略<br/>
+ * 同一任务同一分片在本节点已有执行进行中时，新到点的执行的处理方式；同一计划时间的多次触发(多个cron执行单元)只执行一次
+ */
+public enum OverlapPolicy {
+    /**
+     * 不限制，每个执行单元到点即执行
+     */
+    ALLOW,
+    /**
+     * 跳过：已有执行进行中时本次跳过
+     */
+    SKIP,
+    /**
+     * 合并：已有执行进行中时记录本次，进行中的执行结束后只补执行一次，期间多次触发合并为最近的一次
+     */
+    COALESCE,
+    /**
+     * 排队：已有执行进行中时最多排队overlapQueue次，进行中的执行结束后依次补执行，排队已满时跳过
+     */
+    QUEUE
+}
@@ -0,0 +1,19 @@
+package cn.emay.superscheduler.core;
+
+/**
+ * 调度指标记录器<br/>
+ * 在执行监听的基础上增加动态并发调整事件，设置到SuperScheduler后对所有任务生效<br/>
+ * 回调发生在执行线程和控制线程中，实现需要无锁且足够轻量
+ */
+public interface SchedulerMetrics extends TaskExecutionListener {
+
+    /**
+     * 动态并发调整完毕
+     *
+     * @param name   任务名
+     * @param before 调整前<分片,并发数>，只在回调内有效
+     * @param after  调整后<分片,并发数>，只在回调内有效
+     */
+    void onRebalanced(String name, ConcurrencySnapshot before, ConcurrencySnapshot after);
+
+}
@@ -33,4 +33,15 @@ public interface SimpleConcurrentComputer extends ConcurrentComputer {
         return need;
     }
 
+    /**
+     * 将计算好的任务并发数放入默认分片，不复制Map
+     *
+     * @param concurrent 当前分片并发数
+     * @param desired    所需分片并发数
+     */
+    @Override
+    default void compute(ConcurrencySnapshot concurrent, DesiredConcurrency desired) {
+        desired.set(SuperExecutor.DEFAULT_SHARDED, Math.max(this.compute(concurrent.get(SuperExecutor.DEFAULT_SHARDED)), 0));
+    }
+
 }
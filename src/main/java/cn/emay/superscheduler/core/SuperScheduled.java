@@ -23,6 +23,29 @@ public @interface SuperScheduled {
      */
     boolean only() default false;
 
+    /**
+     * 单节点执行的锁分组<br/>
+     * 不为空时此任务使用独立的锁，不同分组的单节点任务可以分布在不同节点执行；同一分组的任务共用一把锁<br/>
+     * 为空时使用全局的 onlyLockName；仅only=true时生效<br/>
+     * 通用属性
+     */
+    String onlyLockKey() default "";
+
+    /**
+     * 单节点执行时每个分片独立竞争锁，锁名称为 锁分组:分片<br/>
+     * 不同分片可以分布在不同节点执行；仅only=true的动态分片并发任务生效<br/>
+     * 通用属性
+     */
+    boolean onlyLockPerShard() default false;
+
+    /**
+     * 应用集群部署时，动态分片并发任务的分片按一致性哈希分布到所有存活节点，每个节点只执行归属自己的分片<br/>
+     * 节点加入或离开时只迁移受影响的分片；不保证迁移过程中的互斥，需要互斥请使用only<br/>
+     * 需要为SuperScheduler设置 ClusterMembership，需要开启动态并发调整，不能与only同时使用<br/>
+     * 通用属性
+     */
+    boolean distributed() default false;
+
     /**
      * 初始化延时时间，单位毫秒<br/>
      * 任务第一次执行的延迟时间<br/>
@@ -31,6 +54,31 @@ public @interface SuperScheduled {
      */
     long initialDelay() default 0L;
 
+    /**
+     * 并发执行单元首次执行时间的错开窗口，单位毫秒<br/>
+     * 小于0不错开，所有执行单元同时开始；等于0时窗口为一个执行周期fixedDelay/fixedRate；大于0时为指定窗口<br/>
+     * N个执行单元在窗口内均匀错开，第i个在initialDelay之后再延迟 窗口*i/N 开始，挂起恢复时同样错开，避免同时执行造成周期性的负载尖峰<br/>
+     * cron类型任务不生效，动态执行时间任务需要指定大于0的窗口<br/>
+     * 通用属性
+     */
+    long startSpread() default -1L;
+
+    /**
+     * 每次执行的随机抖动比例，0到1之间<br/>
+     * 固定间隔、动态执行时间任务在本次间隔上随机增加[0, 间隔*jitter)；固定频率任务在计划执行时间上随机增加[0, 周期*jitter)，计划时间不累积漂移<br/>
+     * 为0不抖动，cron类型任务不生效<br/>
+     * 通用属性
+     */
+    double jitter() default 0D;
+
+    /**
+     * 停止时等待此任务正在进行的执行完毕的时间，单位毫秒<br/>
+     * 停止时先不再触发新的执行，再等待正在进行的执行；超时仍未完成的执行在线程池关闭时中断，并输出日志<br/>
+     * 小于0等到SuperScheduler的停止总截止时间，最长不超过总截止时间<br/>
+     * 通用属性
+     */
+    long shutdownTimeout() default -1L;
+
     /* 任务类型属性 */
 
     /**
@@ -95,4 +143,133 @@ public @interface SuperScheduled {
      */
     int dynamicConcurrentMax() default -1;
 
+    /**
+     * 所需并发数之和超过dynamicConcurrentMax时的截断策略<br/>
+     * 默认最大最小公平，避免部分分片分不到并发<br/>
+     * 并发控制属性
+     */
+    CappingType dynamicConcurrentCapping() default CappingType.MAX_MIN_FAIR;
+
+    /**
+     * 内置自适应并发算法<br/>
+     * 不为NONE时，根据每个分片的执行耗时、失败和积压情况自动调整并发数，上限为dynamicConcurrentMax，需要dynamicConcurrentComputeDelay大于0<br/>
+     * 未配置dynamicConcurrentComputeBean时只有默认分片，方法不能定义参数；<br/>
+     * 配置了dynamicConcurrentComputeBean时，由其决定有哪些分片以及每个分片的并发上限<br/>
+     * 并发控制属性
+     */
+    AdaptiveType dynamicConcurrentAdaptive() default AdaptiveType.NONE;
+
+    /**
+     * 重叠执行策略<br/>
+     * 不为ALLOW时，同一分片在本节点同一时刻最多只有一次执行，多个执行单元同时到点(如并发的cron任务)时只执行一次，其余按策略跳过、合并或排队<br/>
+     * 仅cron、固定间隔、固定频率任务生效<br/>
+     * 并发控制属性
+     */
+    OverlapPolicy overlapPolicy() default OverlapPolicy.ALLOW;
+
+    /**
+     * 重叠执行策略为QUEUE时的最大排队次数<br/>
+     * 并发控制属性
+     */
+    int overlapQueue() default 1;
+
+    /**
+     * 错过执行阈值，单位毫秒<br/>
+     * 大于0时，实际开始时间晚于计划执行时间超过此值的执行直接跳过(包括排队后补执行的)，GC停顿或过载恢复后不会集中补执行<br/>
+     * 仅cron、固定间隔、固定频率任务生效，固定间隔、固定频率任务的首次执行不判断<br/>
+     * 并发控制属性
+     */
+    long misfireThreshold() default -1L;
+
+    /* 执行隔离属性 */
+
+    /**
+     * 舱壁名称<br/>
+     * 不为空时，任务逻辑在该舱壁独立的线程池中执行，业务线程池只负责触发；同名舱壁的任务共用线程池<br/>
+     * 为空但bulkheadSize大于0时，使用任务独占的舱壁<br/>
+     * 执行隔离属性
+     */
+    String bulkhead() default "";
+
+    /**
+     * 舱壁线程数<br/>
+     * 同名舱壁取所有任务定义中的最大值，至少要有一个任务定义大于0<br/>
+     * 执行隔离属性
+     */
+    int bulkheadSize() default -1;
+
+    /* 失败处理属性 */
+
+    /**
+     * 失败退避初始时间，单位毫秒<br/>
+     * 动态延时任务执行报错后等待此时间再执行，连续失败时每次翻倍直到failureBackoffMaxMillis，成功后恢复<br/>
+     * 失败处理属性，仅dynamicDelay任务生效
+     */
+    long failureBackoffMillis() default 1000L;
+
+    /**
+     * 失败退避最大时间，单位毫秒，不能小于failureBackoffMillis<br/>
+     * 如果小于等于0，则等于failureBackoffMillis，即不翻倍<br/>
+     * 失败处理属性，仅dynamicDelay任务生效
+     */
+    long failureBackoffMaxMillis() default -1L;
+
+    /**
+     * 失败退避随机抖动比例，0到1之间<br/>
+     * 实际等待时间在 退避时间*(1-比例) 到 退避时间 之间随机，避免所有线程、节点同时重试<br/>
+     * 如果为0，则不抖动<br/>
+     * 失败处理属性，仅dynamicDelay任务生效
+     */
+    double failureBackoffJitter() default 0D;
+
+    /**
+     * 熔断阈值，本节点连续失败次数达到此值时熔断<br/>
+     * 熔断后挂起任务的所有线程，每隔circuitBreakerOpenMillis由一个线程试探执行，试探成功后恢复所有线程<br/>
+     * 如果小于等于0，则不熔断<br/>
+     * 失败处理属性，仅dynamicDelay任务生效
+     */
+    int circuitBreakerFailures() default -1;
+
+    /**
+     * 熔断后试探执行的间隔，单位毫秒<br/>
+     * 失败处理属性，仅dynamicDelay任务生效
+     */
+    long circuitBreakerOpenMillis() default 30000L;
+
+    /* 批处理属性 */
+
+    /**
+     * 初始批量大小<br/>
+     * 动态执行时间任务的方法返回TaskResult时开启批处理模式，方法的最后一个int类型参数接收批量大小<br/>
+     * 批处理属性，仅返回TaskResult的dynamicDelay任务生效
+     */
+    int batchSize() default 100;
+
+    /**
+     * 最大批量大小<br/>
+     * 批处理属性，仅返回TaskResult的dynamicDelay任务生效
+     */
+    int batchSizeMax() default 1000;
+
+    /**
+     * 单批目标耗时，单位毫秒<br/>
+     * 大于0时按每条数据的平均耗时自适应调整批量大小，使单批耗时接近此值；小于等于0时固定为batchSize<br/>
+     * 批处理属性，仅返回TaskResult的dynamicDelay任务生效
+     */
+    long batchTargetMillis() default 1000L;
+
+    /**
+     * 有积压时在同一线程中连续执行的时间上限，单位毫秒<br/>
+     * 还有积压时不经过计时器立即再次执行，超过此时间后交还线程池；小于等于0时每批都经过计时器<br/>
+     * 批处理属性，仅返回TaskResult的dynamicDelay任务生效
+     */
+    long batchBurstMillis() default 1000L;
+
+    /**
+     * 没有积压时的执行间隔，单位毫秒<br/>
+     * TaskResult未指定执行间隔时，没有积压按此间隔执行，有积压立即执行<br/>
+     * 批处理属性，仅返回TaskResult的dynamicDelay任务生效
+     */
+    long batchIdleDelay() default 1000L;
+
 }
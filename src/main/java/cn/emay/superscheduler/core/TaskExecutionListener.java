@@ -0,0 +1,30 @@
+package cn.emay.superscheduler.core;
+
+/**
+ * 任务执行监听器<br/>
+ * 每次执行开始、完毕时在执行线程中同步回调，实现需要足够轻量且线程安全
+ */
+public interface TaskExecutionListener {
+
+    /**
+     * 任务开始执行
+     *
+     * @param name     任务名
+     * @param sharded  分片
+     * @param lagNanos 实际开始时间相对计划开始时间的延迟，单位纳秒，无法得知计划时间时为-1
+     */
+    default void onStarted(String name, String sharded, long lagNanos) {
+    }
+
+    /**
+     * 任务执行完毕
+     *
+     * @param name          任务名
+     * @param sharded       分片
+     * @param durationNanos 执行耗时，单位纳秒
+     * @param success       是否执行成功
+     * @param result        动态间隔时间任务为方法返回的间隔时间，其他任务为-1
+     */
+    void onExecuted(String name, String sharded, long durationNanos, boolean success, long result);
+
+}
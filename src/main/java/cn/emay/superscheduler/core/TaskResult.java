@@ -0,0 +1,83 @@
+package cn.emay.superscheduler.core;
+
+/**
+ * 批处理任务的执行结果，创建后不可变<br/>
+ * 动态执行时间任务的方法返回此类型时开启批处理模式：方法可以额外接收一个int类型的批量大小参数，<br/>
+ * 框架根据本批处理数量、剩余积压量决定下次执行时间，按耗时自适应调整批量大小，并把积压量提供给并发计算器
+ */
+public final class TaskResult {
+
+    /**
+     * 没有处理任何数据，也没有积压
+     */
+    public static final TaskResult IDLE = new TaskResult(0, 0L, -1L);
+    /**
+     * 本批处理数量
+     */
+    private final int processed;
+    /**
+     * 剩余积压量，未知时为-1
+     */
+    private final long backlog;
+    /**
+     * 建议的下次执行间隔，单位毫秒，未指定时为-1
+     */
+    private final long delayMillis;
+
+    private TaskResult(int processed, long backlog, long delayMillis) {
+        this.processed = processed;
+        this.backlog = backlog;
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * 积压量未知，处理数量达到批量大小时视为还有积压，立即再次执行，否则按空闲间隔执行
+     *
+     * @param processed 本批处理数量
+     * @return 结果
+     */
+    public static TaskResult of(int processed) {
+        return new TaskResult(processed, -1L, -1L);
+    }
+
+    /**
+     * 有积压时立即再次执行，否则按空闲间隔执行
+     *
+     * @param processed 本批处理数量
+     * @param backlog   剩余积压量
+     * @return 结果
+     */
+    public static TaskResult of(int processed, long backlog) {
+        return new TaskResult(processed, Math.max(0L, backlog), -1L);
+    }
+
+    /**
+     * 指定下次执行间隔
+     *
+     * @param processed   本批处理数量
+     * @param backlog     剩余积压量，未知时为-1
+     * @param delayMillis 下次执行间隔，单位毫秒
+     * @return 结果
+     */
+    public static TaskResult of(int processed, long backlog, long delayMillis) {
+        return new TaskResult(processed, backlog < 0L ? -1L : backlog, Math.max(0L, delayMillis));
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public long getBacklog() {
+        return backlog;
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskResult{processed=" + processed + ", backlog=" + backlog + ", delayMillis=" + delayMillis + "}";
+    }
+
+}
@@ -0,0 +1,149 @@
+package cn.emay.superscheduler.lock;
+
+import cn.emay.superscheduler.core.OnlyLockHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基于文件锁的单节点锁，适用于同一台主机上部署多个进程<br/>
+ * 每个锁一个文件，持有者一直占用文件锁，进程退出时由操作系统释放，不需要过期时间，续期只检查文件锁仍然有效；<br/>
+ * 竞争成功时文件中的计数加1作为fencing token<br/>
+ * 同一个JVM中只有一个节点能持有同一个锁，其他节点竞争失败
+ */
+public class FileOnlyLockHandler implements OnlyLockHandler {
+
+    /**
+     * 锁文件目录
+     */
+    private final Path directory;
+    /**
+     * 锁名称 -> 本JVM持有的文件锁
+     */
+    private final Map<String, Held> helds = new HashMap<>();
+
+    /**
+     * @param directory 锁文件目录，不存在时创建
+     */
+    public FileOnlyLockHandler(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("创建锁文件目录" + directory + "报错", e);
+        }
+    }
+
+    @Override
+    public boolean lock(String onlyLockName, String nodeId, int seconds) {
+        return lockWithToken(onlyLockName, nodeId, seconds) >= 0L;
+    }
+
+    @Override
+    public synchronized long lockWithToken(String onlyLockName, String nodeId, int seconds) {
+        Held held = helds.get(onlyLockName);
+        if (held != null) {
+            if (held.lock.isValid()) {
+                return held.nodeId.equals(nodeId) ? held.token : -1L;
+            }
+            helds.remove(onlyLockName);
+            close(held.channel);
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(getFile(onlyLockName), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                close(channel);
+                return -1L;
+            }
+            long token = readToken(channel) + 1L;
+            writeToken(channel, token);
+            helds.put(onlyLockName, new Held(nodeId, channel, lock, token));
+            return token;
+        } catch (OverlappingFileLockException e) {
+            close(channel);
+            return -1L;
+        } catch (IOException e) {
+            close(channel);
+            throw new IllegalStateException("竞争锁" + onlyLockName + "报错", e);
+        }
+    }
+
+    @Override
+    public synchronized void unLock(String onlyLockName, String nodeId) {
+        Held held = helds.get(onlyLockName);
+        if (held == null || !held.nodeId.equals(nodeId)) {
+            return;
+        }
+        helds.remove(onlyLockName);
+        // 关闭通道同时释放文件锁
+        close(held.channel);
+    }
+
+    /**
+     * 锁文件，锁名称中的特殊字符替换为下划线，并追加哈希避免冲突
+     */
+    private Path getFile(String onlyLockName) {
+        String name = onlyLockName.replaceAll("[^A-Za-z0-9._-]", "_");
+        return directory.resolve(name + "-" + Integer.toHexString(onlyLockName.hashCode()) + ".lock");
+    }
+
+    private long readToken(FileChannel channel) throws IOException {
+        if (channel.size() < Long.BYTES) {
+            return 0L;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // 读满8个字节
+        }
+        buffer.flip();
+        return buffer.getLong();
+    }
+
+    private void writeToken(FileChannel channel, long token) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        buffer.putLong(token).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        channel.force(false);
+    }
+
+    private void close(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // 关闭失败时文件锁随进程退出释放
+        }
+    }
+
+    /**
+     * 本JVM持有的文件锁
+     */
+    private static class Held {
+        private final String nodeId;
+        private final FileChannel channel;
+        private final FileLock lock;
+        private final long token;
+
+        private Held(String nodeId, FileChannel channel, FileLock lock, long token) {
+            this.nodeId = nodeId;
+            this.channel = channel;
+            this.lock = lock;
+            this.token = token;
+        }
+    }
+
+}
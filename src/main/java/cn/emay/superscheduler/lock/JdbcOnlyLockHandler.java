@@ -0,0 +1,220 @@
+package cn.emay.superscheduler.lock;
+
+import cn.emay.superscheduler.core.OnlyLockHandler;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于数据库表的单节点锁<br/>
+ * 每个锁一行，持有者在过期时间内续期，过期后其他节点可以接管；接管时token加1作为fencing token<br/>
+ * 释放时保留行，只清空持有者并置为过期，token不会因为删除重插而回退<br/>
+ * 批量方法在一个事务中执行：批量续期或接管、一次查询取回持有者和token、只对不存在的锁逐个插入，每轮竞争的往返次数与锁数量无关<br/>
+ * 过期时间使用各节点本地时间，节点之间需要同步时钟，偏差由SuperScheduler的提前过期时间吸收<br/>
+ * 建表语句见getCreateTableSql()
+ */
+public class JdbcOnlyLockHandler implements OnlyLockHandler {
+
+    /**
+     * 默认表名
+     */
+    public static final String DEFAULT_TABLE = "super_scheduler_lock";
+    /**
+     * 数据源
+     */
+    private final DataSource dataSource;
+    /**
+     * 表名
+     */
+    private final String table;
+    /**
+     * 续期或接管：自己持有或已经过期时更新，易主时token加1
+     */
+    private final String renewSql;
+    /**
+     * 插入新锁
+     */
+    private final String insertSql;
+    /**
+     * 释放本节点持有的锁：清空持有者并置为过期，保留token
+     */
+    private final String releaseSql;
+
+    /**
+     * @param dataSource 数据源
+     */
+    public JdbcOnlyLockHandler(DataSource dataSource) {
+        this(dataSource, DEFAULT_TABLE);
+    }
+
+    /**
+     * @param dataSource 数据源
+     * @param table      表名
+     */
+    public JdbcOnlyLockHandler(DataSource dataSource, String table) {
+        this.dataSource = dataSource;
+        this.table = table;
+        this.renewSql = "UPDATE " + table + " SET token = CASE WHEN owner = ? THEN token ELSE token + 1 END, owner = ?, expire_at = ? WHERE lock_name = ? AND (owner = ? OR expire_at < ?)";
+        this.insertSql = "INSERT INTO " + table + " (lock_name, owner, token, expire_at) VALUES (?, ?, 1, ?)";
+        this.releaseSql = "UPDATE " + table + " SET owner = '', expire_at = 0 WHERE lock_name = ? AND owner = ?";
+    }
+
+    /**
+     * 建表语句，lock_name为主键
+     */
+    public String getCreateTableSql() {
+        return "CREATE TABLE " + table + " (lock_name VARCHAR(255) NOT NULL PRIMARY KEY, owner VARCHAR(255) NOT NULL, token BIGINT NOT NULL, expire_at BIGINT NOT NULL)";
+    }
+
+    @Override
+    public boolean lock(String onlyLockName, String nodeId, int seconds) {
+        return lockWithToken(onlyLockName, nodeId, seconds) >= 0L;
+    }
+
+    @Override
+    public long lockWithToken(String onlyLockName, String nodeId, int seconds) {
+        Long token = lock(Collections.singletonList(onlyLockName), nodeId, seconds).get(onlyLockName);
+        return token == null ? -1L : token;
+    }
+
+    @Override
+    public void unLock(String onlyLockName, String nodeId) {
+        unLock(Collections.singletonList(onlyLockName), nodeId);
+    }
+
+    @Override
+    public Map<String, Long> lock(Collection<String> onlyLockNames, String nodeId, int seconds) {
+        if (onlyLockNames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> names = new ArrayList<>(onlyLockNames);
+        long now = System.currentTimeMillis();
+        long expireAt = now + seconds * 1000L;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement statement = connection.prepareStatement(renewSql)) {
+                    for (String name : names) {
+                        statement.setString(1, nodeId);
+                        statement.setString(2, nodeId);
+                        statement.setLong(3, expireAt);
+                        statement.setString(4, name);
+                        statement.setString(5, nodeId);
+                        statement.setLong(6, now);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                // 不依赖批量更新的返回值，部分驱动只返回SUCCESS_NO_INFO；查询所有锁的持有者，查询不到的是不存在的锁
+                Map<String, Long> locked = new HashMap<>();
+                Set<String> missing = new LinkedHashSet<>(names);
+                try (PreparedStatement statement = connection.prepareStatement(selectSql(names.size()))) {
+                    for (int i = 0; i < names.size(); i++) {
+                        statement.setString(i + 1, names.get(i));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            String name = resultSet.getString(1);
+                            missing.remove(name);
+                            if (nodeId.equals(resultSet.getString(2))) {
+                                locked.put(name, resultSet.getLong(3));
+                            }
+                        }
+                    }
+                }
+                connection.commit();
+                // 更新不到的锁可能不存在，逐个插入，主键冲突说明被其他节点持有
+                for (String name : missing) {
+                    if (insert(connection, name, nodeId, expireAt)) {
+                        locked.put(name, 1L);
+                    }
+                }
+                return locked;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("竞争锁" + names + "报错", e);
+        }
+    }
+
+    /**
+     * 查询锁的持有者和token
+     *
+     * @param size 锁数量
+     * @return sql
+     */
+    private String selectSql(int size) {
+        StringBuilder builder = new StringBuilder("SELECT lock_name, owner, token FROM ").append(table).append(" WHERE lock_name IN (");
+        for (int i = 0; i < size; i++) {
+            builder.append(i == 0 ? "?" : ", ?");
+        }
+        return builder.append(")").toString();
+    }
+
+    /**
+     * 插入新锁
+     *
+     * @return 是否插入成功，主键冲突返回false
+     */
+    private boolean insert(Connection connection, String name, String nodeId, long expireAt) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+            statement.setString(1, name);
+            statement.setString(2, nodeId);
+            statement.setLong(3, expireAt);
+            statement.executeUpdate();
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            connection.rollback();
+            if (isDuplicateKey(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 是否主键冲突，SQLState以23开头为完整性约束冲突
+     */
+    private boolean isDuplicateKey(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException || (e.getSQLState() != null && e.getSQLState().startsWith("23"));
+    }
+
+    @Override
+    public void unLock(Collection<String> onlyLockNames, String nodeId) {
+        if (onlyLockNames.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection(); PreparedStatement statement = connection.prepareStatement(releaseSql)) {
+            for (String name : onlyLockNames) {
+                statement.setString(1, name);
+                statement.setString(2, nodeId);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("释放锁" + onlyLockNames + "报错", e);
+        }
+    }
+
+}
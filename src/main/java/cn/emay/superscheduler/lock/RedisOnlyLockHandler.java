@@ -0,0 +1,189 @@
+package cn.emay.superscheduler.lock;
+
+import cn.emay.superscheduler.core.OnlyLockHandler;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.Pool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于Redis的单节点锁<br/>
+ * 竞争、续期、释放都是一次Lua脚本调用，原子执行：不存在时写入持有者并设置过期时间，持有者是自己时续期，释放时只删除自己持有的锁；<br/>
+ * 批量方法一次脚本处理所有锁，每轮竞争只有一次网络往返；每次易主时递增独立的计数键作为fencing token<br/>
+ * 连接从连接池获取，可以在多线程中共用；Redis集群模式下批量脚本要求所有键在同一个slot，可以在前缀中使用{}哈希标签
+ */
+public class RedisOnlyLockHandler implements OnlyLockHandler {
+
+    /**
+     * 默认键前缀
+     */
+    public static final String DEFAULT_PREFIX = "KV_TASK_LOCK_APPLY_";
+    /**
+     * 竞争或续期，KEYS为成对的锁键和计数键，ARGV[1]为节点，ARGV[2]为过期毫秒数；<br/>
+     * 按顺序返回每个锁的fencing token，未竞争到返回-1；<br/>
+     * 旧版本写入的字符串锁(值为节点)视为该节点持有，等待过期，是本节点的则转换为新格式；其他类型的键只有该锁竞争失败
+     */
+    private static final String LOCK_SCRIPT = ""
+            + "local result = {} "
+            + "for i = 1, #KEYS, 2 do "
+            + "  local kind = redis.call('type', KEYS[i])['ok'] "
+            + "  local owner = false "
+            + "  if kind == 'hash' then "
+            + "    owner = redis.call('hget', KEYS[i], 'owner') "
+            + "  elseif kind == 'string' then "
+            + "    owner = redis.call('get', KEYS[i]) "
+            + "    if owner == ARGV[1] then "
+            + "      redis.call('del', KEYS[i]) "
+            + "      owner = false "
+            + "    end "
+            + "  elseif kind ~= 'none' then "
+            + "    owner = '' "
+            + "  end "
+            + "  if owner == ARGV[1] then "
+            + "    redis.call('pexpire', KEYS[i], ARGV[2]) "
+            + "    result[#result + 1] = tonumber(redis.call('hget', KEYS[i], 'token')) "
+            + "  elseif owner then "
+            + "    result[#result + 1] = -1 "
+            + "  else "
+            + "    local token = redis.call('incr', KEYS[i + 1]) "
+            + "    redis.call('hmset', KEYS[i], 'owner', ARGV[1], 'token', token) "
+            + "    redis.call('pexpire', KEYS[i], ARGV[2]) "
+            + "    result[#result + 1] = token "
+            + "  end "
+            + "end "
+            + "return result";
+    /**
+     * 释放，KEYS为锁键，ARGV[1]为节点，只删除本节点持有的锁，包括旧版本写入的字符串锁
+     */
+    private static final String UNLOCK_SCRIPT = ""
+            + "for i = 1, #KEYS do "
+            + "  local kind = redis.call('type', KEYS[i])['ok'] "
+            + "  local owner = false "
+            + "  if kind == 'hash' then "
+            + "    owner = redis.call('hget', KEYS[i], 'owner') "
+            + "  elseif kind == 'string' then "
+            + "    owner = redis.call('get', KEYS[i]) "
+            + "  end "
+            + "  if owner == ARGV[1] then "
+            + "    redis.call('del', KEYS[i]) "
+            + "  end "
+            + "end "
+            + "return 0";
+    /**
+     * 连接池
+     */
+    private final Pool<Jedis> pool;
+    /**
+     * 键前缀
+     */
+    private final String prefix;
+    /**
+     * 竞争脚本sha，Redis重启后脚本缓存丢失时直接执行脚本
+     */
+    private volatile String lockSha;
+    /**
+     * 释放脚本sha
+     */
+    private volatile String unlockSha;
+
+    /**
+     * @param pool 连接池
+     */
+    public RedisOnlyLockHandler(Pool<Jedis> pool) {
+        this(pool, DEFAULT_PREFIX);
+    }
+
+    /**
+     * @param pool   连接池
+     * @param prefix 键前缀
+     */
+    public RedisOnlyLockHandler(Pool<Jedis> pool, String prefix) {
+        this.pool = pool;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public boolean lock(String onlyLockName, String nodeId, int seconds) {
+        return lockWithToken(onlyLockName, nodeId, seconds) >= 0L;
+    }
+
+    @Override
+    public long lockWithToken(String onlyLockName, String nodeId, int seconds) {
+        Long token = lock(Collections.singletonList(onlyLockName), nodeId, seconds).get(onlyLockName);
+        return token == null ? -1L : token;
+    }
+
+    @Override
+    public void unLock(String onlyLockName, String nodeId) {
+        unLock(Collections.singletonList(onlyLockName), nodeId);
+    }
+
+    @Override
+    public Map<String, Long> lock(Collection<String> onlyLockNames, String nodeId, int seconds) {
+        if (onlyLockNames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> names = new ArrayList<>(onlyLockNames);
+        List<String> keys = new ArrayList<>(names.size() * 2);
+        for (String name : names) {
+            keys.add(prefix + name);
+            keys.add(prefix + name + ":token");
+        }
+        List<String> args = new ArrayList<>(2);
+        args.add(nodeId);
+        args.add(String.valueOf(seconds * 1000L));
+        List<?> result;
+        try (Jedis jedis = pool.getResource()) {
+            if (lockSha == null) {
+                lockSha = jedis.scriptLoad(LOCK_SCRIPT);
+            }
+            result = (List<?>) eval(jedis, lockSha, LOCK_SCRIPT, keys, args);
+        }
+        Map<String, Long> locked = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            long token = ((Number) result.get(i)).longValue();
+            if (token >= 0L) {
+                locked.put(names.get(i), token);
+            }
+        }
+        return locked;
+    }
+
+    @Override
+    public void unLock(Collection<String> onlyLockNames, String nodeId) {
+        if (onlyLockNames.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(onlyLockNames.size());
+        for (String name : onlyLockNames) {
+            keys.add(prefix + name);
+        }
+        try (Jedis jedis = pool.getResource()) {
+            if (unlockSha == null) {
+                unlockSha = jedis.scriptLoad(UNLOCK_SCRIPT);
+            }
+            eval(jedis, unlockSha, UNLOCK_SCRIPT, keys, Collections.singletonList(nodeId));
+        }
+    }
+
+    /**
+     * 按sha执行脚本，脚本缓存丢失时直接执行脚本
+     */
+    private Object eval(Jedis jedis, String sha, String script, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(sha, keys, args);
+        } catch (JedisDataException e) {
+            if (e.getMessage() == null || !e.getMessage().startsWith("NOSCRIPT")) {
+                throw e;
+            }
+            return jedis.eval(script, keys, args);
+        }
+    }
+
+}
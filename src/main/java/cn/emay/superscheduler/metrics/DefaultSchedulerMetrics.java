@@ -0,0 +1,148 @@
+package cn.emay.superscheduler.metrics;
+
+import cn.emay.superscheduler.core.ConcurrencySnapshot;
+import cn.emay.superscheduler.core.SchedulerMetrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 默认的调度指标记录器<br/>
+ * 按任务名、分片记录开始延迟、执行耗时、成功失败次数、正在执行数量，按任务名记录动态并发调整；<br/>
+ * 记录过程无锁，指标对象在第一次出现时创建，之后只做原子累加
+ */
+public class DefaultSchedulerMetrics implements SchedulerMetrics {
+
+    /**
+     * 任务名 -> 分片 -> 执行指标
+     */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, TaskMetrics>> taskMetrics = new ConcurrentHashMap<>();
+    /**
+     * 任务名 -> 动态并发调整指标
+     */
+    private final ConcurrentHashMap<String, RebalanceMetrics> rebalanceMetrics = new ConcurrentHashMap<>();
+
+    @Override
+    public void onStarted(String name, String sharded, long lagNanos) {
+        get(name, sharded).started(lagNanos);
+    }
+
+    @Override
+    public void onExecuted(String name, String sharded, long durationNanos, boolean success, long result) {
+        get(name, sharded).executed(durationNanos, success);
+    }
+
+    @Override
+    public void onRebalanced(String name, ConcurrencySnapshot before, ConcurrencySnapshot after) {
+        int[] changed = new int[2];
+        after.forEach((sharded, theNew) -> {
+            int theOld = before.get(sharded);
+            if (theNew > theOld) {
+                changed[0] += theNew - theOld;
+            } else {
+                changed[1] += theOld - theNew;
+            }
+            get(name, sharded).setConcurrency(theNew);
+        });
+        before.forEach((sharded, theOld) -> {
+            if (!after.contains(sharded)) {
+                changed[1] += theOld;
+                get(name, sharded).setConcurrency(0);
+            }
+        });
+        getRebalance(name).rebalanced(changed[0], changed[1], after.total());
+    }
+
+    /**
+     * 获取任务分片的执行指标，不存在则创建
+     *
+     * @param name    任务名
+     * @param sharded 分片
+     * @return 执行指标
+     */
+    public TaskMetrics get(String name, String sharded) {
+        ConcurrentHashMap<String, TaskMetrics> shards = taskMetrics.get(name);
+        if (shards == null) {
+            shards = taskMetrics.computeIfAbsent(name, k -> new ConcurrentHashMap<>());
+        }
+        TaskMetrics metrics = shards.get(sharded);
+        if (metrics == null) {
+            boolean[] created = new boolean[1];
+            metrics = shards.computeIfAbsent(sharded, k -> {
+                created[0] = true;
+                return new TaskMetrics(name, sharded);
+            });
+            if (created[0]) {
+                onCreated(metrics);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * 获取任务的动态并发调整指标，不存在则创建
+     *
+     * @param name 任务名
+     * @return 动态并发调整指标
+     */
+    public RebalanceMetrics getRebalance(String name) {
+        RebalanceMetrics metrics = rebalanceMetrics.get(name);
+        if (metrics == null) {
+            boolean[] created = new boolean[1];
+            metrics = rebalanceMetrics.computeIfAbsent(name, k -> {
+                created[0] = true;
+                return new RebalanceMetrics(name);
+            });
+            if (created[0]) {
+                onCreated(metrics);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * 任务所有分片的执行指标
+     *
+     * @param name 任务名
+     * @return 执行指标
+     */
+    public Collection<TaskMetrics> getAll(String name) {
+        ConcurrentHashMap<String, TaskMetrics> shards = taskMetrics.get(name);
+        return shards == null ? new ArrayList<>() : new ArrayList<>(shards.values());
+    }
+
+    /**
+     * 所有任务所有分片的执行指标
+     */
+    public List<TaskMetrics> getAll() {
+        List<TaskMetrics> all = new ArrayList<>();
+        taskMetrics.values().forEach(shards -> all.addAll(shards.values()));
+        return all;
+    }
+
+    /**
+     * 所有任务的动态并发调整指标
+     */
+    public List<RebalanceMetrics> getAllRebalance() {
+        return new ArrayList<>(rebalanceMetrics.values());
+    }
+
+    /**
+     * 新的执行指标创建后回调，子类可以在此注册到外部监控系统
+     *
+     * @param metrics 执行指标
+     */
+    protected void onCreated(TaskMetrics metrics) {
+    }
+
+    /**
+     * 新的动态并发调整指标创建后回调，子类可以在此注册到外部监控系统
+     *
+     * @param metrics 动态并发调整指标
+     */
+    protected void onCreated(RebalanceMetrics metrics) {
+    }
+
+}
@@ -0,0 +1,139 @@
+package cn.emay.superscheduler.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数线性直方图<br/>
+ * 与HdrHistogram相同的分桶方式：每个2的幂区间再线性分为8个桶，相对误差不超过12.5%；<br/>
+ * 记录只做一次数组原子自增，不加锁、不分配，读取百分位时遍历所有桶
+ */
+public class LatencyHistogram {
+
+    /**
+     * 每个2的幂区间的线性分桶位数
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    /**
+     * 每个2的幂区间的线性分桶数
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * 桶数量，覆盖[0, Long.MAX_VALUE]
+     */
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+    /**
+     * 桶计数
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    /**
+     * 记录次数
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * 记录值之和
+     */
+    private final LongAdder sum = new LongAdder();
+    /**
+     * 最大值
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值，小于0的值忽略
+     *
+     * @param value 值
+     */
+    public void record(long value) {
+        if (value < 0L) {
+            return;
+        }
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * 值所在的桶
+     *
+     * @param value 值
+     * @return 桶下标
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    /**
+     * 桶内的最大值
+     *
+     * @param index 桶下标
+     * @return 最大值
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lower = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lower + (1L << shift) - 1L;
+    }
+
+    /**
+     * 百分位的值，为所在桶的上界，且不超过最大值
+     *
+     * @param percentile 百分位，0-100
+     * @return 值，没有记录时为0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0L;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        double ratio = Math.min(Math.max(percentile, 0D), 100D) / 100D;
+        long target = Math.max(1L, (long) Math.ceil(ratio * total));
+        long seen = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * 平均值，没有记录时为0
+     */
+    public double getMean() {
+        long number = getCount();
+        return number == 0L ? 0D : (double) getSum() / number;
+    }
+
+}
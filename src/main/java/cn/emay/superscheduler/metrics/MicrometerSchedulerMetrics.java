@@ -0,0 +1,74 @@
+package cn.emay.superscheduler.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 绑定到Micrometer的调度指标记录器<br/>
+ * micrometer-core为可选依赖，使用本类时需要自行引入；<br/>
+ * 指标在第一次出现时注册为函数式指标，执行过程中不调用Micrometer，采集时才读取
+ */
+public class MicrometerSchedulerMetrics extends DefaultSchedulerMetrics {
+
+    /**
+     * 指标名前缀
+     */
+    private static final String PREFIX = "super.scheduler.";
+    /**
+     * 纳秒转秒
+     */
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1L);
+    /**
+     * 注册中心
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * @param registry 注册中心
+     */
+    public MicrometerSchedulerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void onCreated(TaskMetrics metrics) {
+        Tags tags = Tags.of("task", metrics.getName(), "sharded", metrics.getSharded());
+        FunctionCounter.builder(PREFIX + "executions", metrics, TaskMetrics::getSuccess).tags(tags).tag("result", "success").register(registry);
+        FunctionCounter.builder(PREFIX + "executions", metrics, TaskMetrics::getFailure).tags(tags).tag("result", "failure").register(registry);
+        FunctionTimer.builder(PREFIX + "execution", metrics, m -> m.getDuration().getCount(), m -> m.getDuration().getSum(), TimeUnit.NANOSECONDS).tags(tags).register(registry);
+        registerHistogram(PREFIX + "execution", metrics.getDuration(), tags);
+        registerHistogram(PREFIX + "lag", metrics.getLag(), tags);
+        Gauge.builder(PREFIX + "in.flight", metrics, TaskMetrics::getInFlight).tags(tags).register(registry);
+        Gauge.builder(PREFIX + "concurrency", metrics, TaskMetrics::getConcurrency).tags(tags).register(registry);
+    }
+
+    @Override
+    protected void onCreated(RebalanceMetrics metrics) {
+        Tags tags = Tags.of("task", metrics.getName());
+        FunctionCounter.builder(PREFIX + "rebalances", metrics, RebalanceMetrics::getCount).tags(tags).register(registry);
+        FunctionCounter.builder(PREFIX + "rebalance.added", metrics, RebalanceMetrics::getAdded).tags(tags).register(registry);
+        FunctionCounter.builder(PREFIX + "rebalance.removed", metrics, RebalanceMetrics::getRemoved).tags(tags).register(registry);
+        Gauge.builder(PREFIX + "rebalance.concurrency", metrics, RebalanceMetrics::getConcurrency).tags(tags).register(registry);
+    }
+
+    /**
+     * 注册直方图的最大值和p50、p90、p99
+     *
+     * @param name      指标名
+     * @param histogram 直方图
+     * @param tags      标签
+     */
+    private void registerHistogram(String name, LatencyHistogram histogram, Tags tags) {
+        Gauge.builder(name + ".max", histogram, h -> h.getMax() / NANOS_PER_SECOND).tags(tags).baseUnit("seconds").register(registry);
+        for (double phi : new double[]{0.5D, 0.9D, 0.99D}) {
+            Gauge.builder(name + ".percentile", histogram, h -> h.getValueAtPercentile(phi * 100D) / NANOS_PER_SECOND)
+                    .tags(tags).tag("phi", String.valueOf(phi)).baseUnit("seconds").register(registry);
+        }
+    }
+
+}
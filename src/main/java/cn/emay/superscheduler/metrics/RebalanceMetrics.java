@@ -0,0 +1,77 @@
+package cn.emay.superscheduler.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个任务的动态并发调整指标
+ */
+public class RebalanceMetrics {
+
+    /**
+     * 任务名
+     */
+    private final String name;
+    /**
+     * 调整次数，并发数没有变化的计算不计入
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * 累计增加的并发数
+     */
+    private final LongAdder added = new LongAdder();
+    /**
+     * 累计减少的并发数
+     */
+    private final LongAdder removed = new LongAdder();
+    /**
+     * 当前所有分片的并发数之和
+     */
+    private volatile int concurrency = 0;
+
+    /**
+     * @param name 任务名
+     */
+    public RebalanceMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 记录一次调整
+     *
+     * @param added       增加的并发数
+     * @param removed     减少的并发数
+     * @param concurrency 调整后的并发数之和
+     */
+    void rebalanced(int added, int removed, int concurrency) {
+        this.count.increment();
+        this.added.add(added);
+        this.removed.add(removed);
+        this.concurrency = concurrency;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getAdded() {
+        return added.sum();
+    }
+
+    public long getRemoved() {
+        return removed.sum();
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public String toString() {
+        return name + " : rebalanced=" + getCount() + ", added=" + getAdded() + ", removed=" + getRemoved() + ", concurrency=" + getConcurrency();
+    }
+
+}
@@ -0,0 +1,132 @@
+package cn.emay.superscheduler.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个任务单个分片的执行指标
+ */
+public class TaskMetrics {
+
+    /**
+     * 任务名
+     */
+    private final String name;
+    /**
+     * 分片
+     */
+    private final String sharded;
+    /**
+     * 开始延迟，单位纳秒
+     */
+    private final LatencyHistogram lag = new LatencyHistogram();
+    /**
+     * 执行耗时，单位纳秒
+     */
+    private final LatencyHistogram duration = new LatencyHistogram();
+    /**
+     * 成功次数
+     */
+    private final LongAdder success = new LongAdder();
+    /**
+     * 失败次数
+     */
+    private final LongAdder failure = new LongAdder();
+    /**
+     * 正在执行的数量
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /**
+     * 动态并发调整后的并发数，非动态并发任务为-1
+     */
+    private volatile int concurrency = -1;
+
+    /**
+     * @param name    任务名
+     * @param sharded 分片
+     */
+    public TaskMetrics(String name, String sharded) {
+        this.name = name;
+        this.sharded = sharded;
+    }
+
+    /**
+     * 记录开始执行
+     *
+     * @param lagNanos 开始延迟，单位纳秒，小于0不记录
+     */
+    void started(long lagNanos) {
+        inFlight.incrementAndGet();
+        lag.record(lagNanos);
+    }
+
+    /**
+     * 记录执行完毕
+     *
+     * @param durationNanos 执行耗时，单位纳秒
+     * @param succeeded     是否成功
+     */
+    void executed(long durationNanos, boolean succeeded) {
+        inFlight.decrementAndGet();
+        duration.record(durationNanos);
+        if (succeeded) {
+            success.increment();
+        } else {
+            failure.increment();
+        }
+    }
+
+    void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSharded() {
+        return sharded;
+    }
+
+    public LatencyHistogram getLag() {
+        return lag;
+    }
+
+    public LatencyHistogram getDuration() {
+        return duration;
+    }
+
+    public long getSuccess() {
+        return success.sum();
+    }
+
+    public long getFailure() {
+        return failure.sum();
+    }
+
+    /**
+     * 正在执行的数量
+     */
+    public int getInFlight() {
+        return Math.max(0, inFlight.get());
+    }
+
+    /**
+     * 动态并发调整后的并发数，非动态并发任务为-1
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public String toString() {
+        return name + "-" + sharded + " : success=" + getSuccess() + ", failure=" + getFailure() + ", inFlight=" + getInFlight()
+                + ", duration(p50/p99/max ms)=" + millis(duration.getValueAtPercentile(50D)) + "/" + millis(duration.getValueAtPercentile(99D)) + "/" + millis(duration.getMax())
+                + ", lag(p99 ms)=" + millis(lag.getValueAtPercentile(99D));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1000000D);
+    }
+
+}
@@ -0,0 +1,73 @@
+package cn.emay.superscheduler.processor;
+
+import cn.emay.superscheduler.base.ScheduledMethods;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 编译期生成@SuperScheduled索引<br/>
+ * 把包含@SuperScheduled方法的类写入 META-INF/super-scheduler.index，启动时只反射扫描这些类<br/>
+ * 需要显式启用，例如maven-compiler-plugin配置 annotationProcessors 为本类；<br/>
+ * 所有包含@SuperScheduled的模块都需要启用，增量编译时需要全量重新编译以保证索引完整
+ */
+@SupportedAnnotationTypes("cn.emay.superscheduler.core.SuperScheduled")
+public class SuperScheduledIndexProcessor extends AbstractProcessor {
+
+    /**
+     * 包含@SuperScheduled方法的类名
+     */
+    private final Set<String> classes = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                Element type = element.getEnclosingElement();
+                if (type instanceof TypeElement) {
+                    classes.add(processingEnv.getElementUtils().getBinaryName((TypeElement) type).toString());
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !classes.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    /**
+     * 写入索引
+     */
+    private void writeIndex() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", ScheduledMethods.INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String name : classes) {
+                    writer.write(name);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "写入" + ScheduledMethods.INDEX_LOCATION + "失败：" + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package cn.emay.superscheduler.task.cluster;
+
+import cn.emay.superscheduler.cluster.ClusterView;
+import cn.emay.superscheduler.core.ClusterMembership;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 集群心跳任务<br/>
+ * 上报本节点心跳并刷新集群视图
+ */
+public class HeartbeatTask implements Runnable {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /**
+     * 集群成员管理
+     */
+    private final ClusterMembership membership;
+    /**
+     * 集群视图
+     */
+    private final ClusterView view;
+    /**
+     * 心跳保持时间，单位秒
+     */
+    private final int seconds;
+
+    /**
+     * @param membership 集群成员管理
+     * @param view       集群视图
+     * @param seconds    心跳保持时间，单位秒
+     */
+    public HeartbeatTask(ClusterMembership membership, ClusterView view, int seconds) {
+        this.membership = membership;
+        this.view = view;
+        this.seconds = seconds;
+    }
+
+    @Override
+    public void run() {
+        String nodeId = view.getNodeId();
+        try {
+            if (!membership.heartbeat(nodeId, seconds) && log.isDebugEnabled()) {
+                log.debug(nodeId + "上报心跳失败");
+            }
+            if (view.update(membership.getLiveNodes())) {
+                log.info("super-scheduler cluster nodes changed : " + view.getNodes());
+            }
+        } catch (Throwable e) {
+            // 心跳任务不能因为异常停止，集群视图保持不变，下一次心跳再刷新
+            log.error(nodeId + "集群心跳报错", e);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package cn.emay.superscheduler.task.compute;
+
+import cn.emay.superscheduler.SuperExecutor;
+import cn.emay.superscheduler.base.ShardConcurrency;
+import cn.emay.superscheduler.core.AdaptiveType;
+import cn.emay.superscheduler.core.ConcurrencySnapshot;
+import cn.emay.superscheduler.core.ConcurrentComputer;
+import cn.emay.superscheduler.core.DesiredConcurrency;
+import cn.emay.superscheduler.core.TaskExecutionListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应并发计算器<br/>
+ * 作为执行监听器统计每个分片在一个计算周期内的执行次数、耗时、失败数和积压信号，<br/>
+ * 每个计算周期根据统计结果调整分片并发数，上限为分片计算器给出的并发数或dynamicConcurrentMax<br/>
+ * 积压信号：动态间隔时间任务返回0表示还有待处理的数据(批处理任务还有积压时同样视为0)；其他任务以线程占用率(耗时/周期/并发)判断
+ */
+public abstract class AdaptiveConcurrentComputer implements ConcurrentComputer, TaskExecutionListener {
+
+    /**
+     * 耗时超过基准耗时的倍数视为拥塞
+     */
+    protected static final double LATENCY_TOLERANCE = 2.0D;
+    /**
+     * 占用率高于此值视为繁忙
+     */
+    protected static final double BUSY_UTILIZATION = 0.8D;
+    /**
+     * 占用率低于此值视为空闲
+     */
+    protected static final double IDLE_UTILIZATION = 0.3D;
+    /**
+     * 分片计算器，为空时只有默认分片
+     */
+    private final ConcurrentComputer shardedComputer;
+    /**
+     * 并发上限，运行时可以调整
+     */
+    private volatile int concurrentMax;
+    /**
+     * 分片 -> 统计窗口
+     */
+    private final ConcurrentHashMap<String, ShardWindow> windows = new ConcurrentHashMap<>();
+    /**
+     * 上次计算时间
+     */
+    private long lastComputeNanos = System.nanoTime();
+    /**
+     * 分片计算器给出的分片并发上限，跨计算周期复用，仅计算线程访问
+     */
+    private final ShardConcurrency bounds = new ShardConcurrency();
+
+    /**
+     * @param shardedComputer 分片计算器，决定有哪些分片以及每个分片的并发上限，可为空
+     * @param concurrentMax   并发上限，小于等于0不限制
+     */
+    protected AdaptiveConcurrentComputer(ConcurrentComputer shardedComputer, int concurrentMax) {
+        this.shardedComputer = shardedComputer;
+        this.concurrentMax = concurrentMax > 0 ? concurrentMax : Integer.MAX_VALUE;
+    }
+
+    /**
+     * 调整并发上限，下个计算周期生效
+     *
+     * @param concurrentMax 并发上限，小于等于0不限制
+     */
+    public void setConcurrentMax(int concurrentMax) {
+        this.concurrentMax = concurrentMax > 0 ? concurrentMax : Integer.MAX_VALUE;
+    }
+
+    /**
+     * 创建自适应并发计算器
+     *
+     * @param type            算法
+     * @param shardedComputer 分片计算器，可为空
+     * @param concurrentMax   并发上限
+     * @return 自适应并发计算器
+     */
+    public static AdaptiveConcurrentComputer create(AdaptiveType type, ConcurrentComputer shardedComputer, int concurrentMax) {
+        switch (type) {
+            case AIMD:
+                return new AimdConcurrentComputer(shardedComputer, concurrentMax);
+            case GRADIENT:
+                return new GradientConcurrentComputer(shardedComputer, concurrentMax);
+            default:
+                throw new IllegalArgumentException("不支持的自适应并发算法[" + type + "]");
+        }
+    }
+
+    @Override
+    public void onExecuted(String name, String sharded, long durationNanos, boolean success, long result) {
+        if (SuperExecutor.DYNAMIC_SHARDED.equals(sharded)) {
+            return;
+        }
+        ShardWindow window = windows.get(sharded);
+        if (window == null) {
+            window = windows.computeIfAbsent(sharded, k -> new ShardWindow());
+        }
+        window.executions.increment();
+        window.durationNanos.add(durationNanos);
+        if (!success) {
+            window.failures.increment();
+        }
+        if (result == 0L) {
+            window.backlogs.increment();
+        }
+    }
+
+    @Override
+    public Map<String, Integer> compute(Map<String, Integer> concurrent) {
+        ShardConcurrency current = new ShardConcurrency();
+        concurrent.forEach(current::set);
+        ShardConcurrency desired = new ShardConcurrency();
+        compute(current, desired);
+        return desired.asMap();
+    }
+
+    @Override
+    public void compute(ConcurrencySnapshot concurrent, DesiredConcurrency desired) {
+        bounds.clear();
+        if (shardedComputer == null) {
+            bounds.set(SuperExecutor.DEFAULT_SHARDED, concurrentMax);
+        } else {
+            shardedComputer.compute(concurrent, bounds);
+        }
+        long now = System.nanoTime();
+        long periodNanos = Math.max(1L, now - lastComputeNanos);
+        lastComputeNanos = now;
+
+        bounds.forEach((sharded, bound) -> {
+            if (bound <= 0) {
+                return;
+            }
+            int upper = Math.min(bound, concurrentMax);
+            int current = concurrent.get(sharded);
+            ShardWindow window = windows.computeIfAbsent(sharded, k -> new ShardWindow());
+            Sample sample = window.sample(periodNanos, current);
+            double limit = window.limit <= 0D ? Math.max(1, current) : window.limit;
+            if (sample.executions > 0L) {
+                limit = adjust(limit, sample);
+            }
+            window.limit = Math.max(1D, Math.min(upper, limit));
+            desired.set(sharded, Math.max(1, Math.min(upper, (int) Math.round(window.limit))));
+            // 批处理任务上报了积压量时直接使用，否则按有积压的执行次数估算
+            long backlog = concurrent.getBacklog(sharded);
+            desired.setBacklog(sharded, backlog > 0L ? backlog : Math.round(sample.backlogRate * sample.executions));
+        });
+        windows.keySet().removeIf(sharded -> !bounds.contains(sharded));
+    }
+
+    /**
+     * 根据一个周期的统计计算新的并发数
+     *
+     * @param limit  当前并发数
+     * @param sample 统计
+     * @return 新的并发数，结果会被限制在[1,上限]之间
+     */
+    protected abstract double adjust(double limit, Sample sample);
+
+    /**
+     * 一个计算周期的统计
+     */
+    protected static class Sample {
+
+        /**
+         * 执行次数
+         */
+        protected final long executions;
+        /**
+         * 失败率
+         */
+        protected final double failureRate;
+        /**
+         * 有积压的执行占比
+         */
+        protected final double backlogRate;
+        /**
+         * 平均耗时，单位纳秒
+         */
+        protected final double latencyNanos;
+        /**
+         * 基准耗时，单位纳秒
+         */
+        protected final double baselineNanos;
+        /**
+         * 线程占用率
+         */
+        protected final double utilization;
+
+        private Sample(long executions, double failureRate, double backlogRate, double latencyNanos, double baselineNanos, double utilization) {
+            this.executions = executions;
+            this.failureRate = failureRate;
+            this.backlogRate = backlogRate;
+            this.latencyNanos = latencyNanos;
+            this.baselineNanos = baselineNanos;
+            this.utilization = utilization;
+        }
+
+        /**
+         * 耗时明显上升或大量失败
+         */
+        protected boolean isCongested() {
+            return failureRate > 0.5D || latencyNanos > baselineNanos * LATENCY_TOLERANCE;
+        }
+
+        /**
+         * 有积压或线程繁忙
+         */
+        protected boolean isBusy() {
+            return backlogRate >= 0.5D || utilization >= BUSY_UTILIZATION;
+        }
+
+        /**
+         * 没有积压且线程空闲
+         */
+        protected boolean isIdle() {
+            return backlogRate < 0.1D && utilization < IDLE_UTILIZATION;
+        }
+    }
+
+    /**
+     * 分片统计窗口
+     */
+    private static class ShardWindow {
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder backlogs = new LongAdder();
+        private final LongAdder durationNanos = new LongAdder();
+        /**
+         * 基准耗时，取观察到的较低耗时并缓慢向当前耗时回归，仅计算线程访问
+         */
+        private double baselineNanos = 0D;
+        /**
+         * 当前并发数，仅计算线程访问
+         */
+        private double limit = 0D;
+
+        /**
+         * 取出一个周期的统计并清零
+         */
+        private Sample sample(long periodNanos, int current) {
+            long count = executions.sumThenReset();
+            long failed = failures.sumThenReset();
+            long backlog = backlogs.sumThenReset();
+            long duration = durationNanos.sumThenReset();
+            if (count == 0L) {
+                return new Sample(0L, 0D, 0D, 0D, baselineNanos, 0D);
+            }
+            double latency = (double) duration / count;
+            if (baselineNanos <= 0D || latency < baselineNanos) {
+                baselineNanos = latency;
+            } else {
+                baselineNanos += (latency - baselineNanos) * 0.05D;
+            }
+            double utilization = (double) duration / ((double) periodNanos * Math.max(1, current));
+            return new Sample(count, (double) failed / count, (double) backlog / count, latency, baselineNanos, utilization);
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package cn.emay.superscheduler.task.compute;
+
+import cn.emay.superscheduler.core.ConcurrentComputer;
+
+/**
+ * 加性增、乘性减的自适应并发计算器<br/>
+ * 拥塞时并发乘以0.75，繁忙时并发加1，空闲时并发减1
+ */
+public class AimdConcurrentComputer extends AdaptiveConcurrentComputer {
+
+    /**
+     * 拥塞时的并发缩减比例
+     */
+    private static final double DECREASE_FACTOR = 0.75D;
+
+    /**
+     * @param shardedComputer 分片计算器，可为空
+     * @param concurrentMax   并发上限，小于等于0不限制
+     */
+    public AimdConcurrentComputer(ConcurrentComputer shardedComputer, int concurrentMax) {
+        super(shardedComputer, concurrentMax);
+    }
+
+    @Override
+    protected double adjust(double limit, Sample sample) {
+        if (sample.isCongested()) {
+            return Math.floor(limit * DECREASE_FACTOR);
+        }
+        if (sample.isBusy()) {
+            return Math.floor(limit) + 1D;
+        }
+        if (sample.isIdle()) {
+            return Math.ceil(limit) - 1D;
+        }
+        return limit;
+    }
+}
@@ -1,7 +1,13 @@
 package cn.emay.superscheduler.task.compute;
 
 import cn.emay.superscheduler.SuperExecutor;
+import cn.emay.superscheduler.base.ShardConcurrency;
+import cn.emay.superscheduler.base.TaskControl;
+import cn.emay.superscheduler.base.TaskInvoker;
+import cn.emay.superscheduler.base.TaskLock;
 import cn.emay.superscheduler.base.TaskType;
+import cn.emay.superscheduler.cluster.ClusterView;
+import cn.emay.superscheduler.core.ConcurrencySnapshot;
 import cn.emay.superscheduler.core.ConcurrentComputer;
 import cn.emay.superscheduler.core.SuperScheduled;
 import org.slf4j.Logger;
@@ -10,9 +16,9 @@ import org.slf4j.LoggerFactory;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
 
 /**
  * 动态计算并发数执行逻辑
@@ -31,13 +37,9 @@ public class ComputeConcurrentExecutor {
      */
     private final String name;
     /**
-     * 执行对象
+     * 方法调用器
      */
-    private final Method method;
-    /**
-     * 执行方法
-     */
-    private final Object bean;
+    private final TaskInvoker invoker;
     /**
      * 任务类型
      */
@@ -46,10 +48,78 @@ public class ComputeConcurrentExecutor {
      * 计算逻辑
      */
     private final ConcurrentComputer superComputer;
+    /**
+     * 并发上限截断
+     */
+    private final ConcurrencyCapping capping;
+    /**
+     * 任务的运行时控制，覆盖的最大并发数优先，可为空
+     */
+    private final TaskControl control;
     /**
      * 线程池
      */
     private final SuperExecutor executor;
+    /**
+     * 集群视图，非分布式任务为空
+     */
+    private final ClusterView clusterView;
+    /**
+     * 不归属本节点的分片并发数置0
+     */
+    private final ObjIntConsumer<String> distributeAction;
+    /**
+     * 任务级单节点锁，非单节点执行或按分片竞争锁时为空
+     */
+    private final TaskLock taskLock;
+    /**
+     * 是否按分片竞争锁
+     */
+    private final boolean perShardLock;
+    /**
+     * 已经登记锁的分片，仅按分片竞争锁时使用
+     */
+    private final Map<String, TaskLock> lockShards = new HashMap<>();
+    /**
+     * 分片锁状态变化时尽快重新计算，多次变化合并为一次
+     */
+    private final Runnable lockListener;
+    /**
+     * 是否已经提交了重新计算
+     */
+    private final AtomicBoolean computePending = new AtomicBoolean(false);
+    /**
+     * 登记分片锁，未持有锁的分片并发数置0
+     */
+    private final ObjIntConsumer<String> lockAction;
+    /**
+     * 当前分片并发数，跨计算周期复用
+     */
+    private final ShardConcurrency concurrent = new ShardConcurrency();
+    /**
+     * 所需分片并发数，跨计算周期复用
+     */
+    private final ShardConcurrency need = new ShardConcurrency();
+    /**
+     * 收集当前分片并发数
+     */
+    private final ObjIntConsumer<String> collectAction = concurrent::set;
+    /**
+     * 批处理任务上报的积压量写入当前并发数视图
+     */
+    private final ObjLongConsumer<String> backlogAction = concurrent::setBacklog;
+    /**
+     * 计算器没有给出积压量的分片，使用上报的积压量，供BACKLOG_WEIGHTED截断策略使用
+     */
+    private final ObjIntConsumer<String> needBacklogAction;
+    /**
+     * 减少分片并发数
+     */
+    private final ObjIntConsumer<String> removeAction;
+    /**
+     * 增加分片并发数
+     */
+    private final ObjIntConsumer<String> addAction;
     /**
      * 执行并发数量计算逻辑的方法
      */
@@ -69,122 +139,144 @@ public class ComputeConcurrentExecutor {
      * @param executor      线程池
      * @param name          任务名
      * @param scheduled     任务定义
-     * @param bean          执行对象
-     * @param method        执行方法
+     * @param invoker       方法调用器
      * @param taskType      任务类型
      * @param superComputer 并发计算器
      */
-    public ComputeConcurrentExecutor(SuperExecutor executor, String name, SuperScheduled scheduled, Object bean, Method method, TaskType taskType, ConcurrentComputer superComputer) {
+    public ComputeConcurrentExecutor(SuperExecutor executor, String name, SuperScheduled scheduled, TaskInvoker invoker, TaskType taskType, ConcurrentComputer superComputer) {
         this.scheduled = scheduled;
         this.name = name;
-        this.bean = bean;
-        this.method = method;
+        this.invoker = invoker;
         this.superComputer = superComputer;
         this.taskType = taskType;
         this.executor = executor;
+        this.capping = new ConcurrencyCapping(scheduled.dynamicConcurrentCapping());
+        this.control = executor.getTaskControl(name);
+        this.clusterView = scheduled.distributed() ? executor.getClusterView() : null;
+        this.perShardLock = scheduled.only() && executor.isPerShardLock(name);
+        this.taskLock = scheduled.only() && !perShardLock ? executor.getTaskLock(name, SuperExecutor.DEFAULT_SHARDED) : null;
+        this.lockListener = () -> {
+            if (computePending.compareAndSet(false, true)) {
+                executor.executeControl(() -> {
+                    computePending.set(false);
+                    compute();
+                });
+            }
+        };
+        this.lockAction = (sharded, number) -> {
+            if (number <= 0) {
+                return;
+            }
+            TaskLock lock = lockShards.get(sharded);
+            if (lock == null) {
+                lock = executor.getTaskLock(name, sharded);
+                lock.addListener(lockListener);
+                lockShards.put(sharded, lock);
+            }
+            if (!lock.isValid()) {
+                need.set(sharded, 0);
+            }
+        };
+        this.distributeAction = (sharded, number) -> {
+            if (number > 0 && !clusterView.isOwner(name, sharded)) {
+                need.set(sharded, 0);
+            }
+        };
+        this.removeAction = (sharded, theOld) -> {
+            int theNew = need.get(sharded);
+            if (theOld > theNew) {
+                executor.removeTasks(name, sharded, theOld - theNew);
+            }
+        };
+        this.needBacklogAction = (sharded, number) -> {
+            if (need.getBacklog(sharded) <= 0L) {
+                need.setBacklog(sharded, concurrent.getBacklog(sharded));
+            }
+        };
+        this.addAction = (sharded, theNew) -> {
+            int theOld = concurrent.get(sharded);
+            if (theNew > theOld) {
+                executor.genAndScheduleTasks(taskType, name, sharded, invoker, scheduled, theNew - theOld);
+            }
+        };
     }
 
     /**
-     * 计算
+     * 计算<br/>
+     * 当前并发数和所需并发数都使用跨周期复用的视图，差异单次遍历后按分片批量增删<br/>
+     * 分布式任务只保留归属本节点的分片；集群节点变化、分片锁状态变化时也会触发，因此需要同步<br/>
+     * 任务级锁由本计算任务和所有执行单元共同绑定，失去锁时一起挂起，保留并发数，重新持有锁时立即恢复
      */
-    public void compute() {
-        // 需要锁但是没有竞争到锁释放所有线程
-        if (scheduled.only() && executor.isNoHasLock()) {
-            executor.removeTaskByName(name);
+    public synchronized void compute() {
+        // 挂起前已经触发的计算直接跳过
+        if (taskLock != null && !taskLock.isValid()) {
             if (log.isDebugEnabled()) {
-                log.debug("本节点未获取到锁，任务" + name + "全部停止");
+                log.debug("本节点未获取到锁，任务" + name + "不计算并发");
             }
             return;
         }
 
         // 根据当前分片并发数计算出所需分片并发数
-        Map<String, Integer> concurrent = executor.getTasksByNameNumberWithoutDynamicSharded(name);
-        Map<String, Integer> need = computerNeed(concurrent);
-
-        // 计算出新增、删除、存在三个分片集合
-        Set<String> hasSet = concurrent.keySet().stream().filter(need::containsKey).collect(Collectors.toSet());
-        Set<String> removeSet = concurrent.keySet().stream().filter(sharded -> !hasSet.contains(sharded)).collect(Collectors.toSet());
-        Set<String> addSet = need.keySet().stream().filter(sharded -> !hasSet.contains(sharded)).collect(Collectors.toSet());
+        concurrent.clear();
+        executor.forEachTaskNumberWithoutDynamicSharded(name, collectAction);
+        executor.forEachShardBacklog(name, backlogAction);
+        need.clear();
+        superComputer.compute(concurrent, need);
+        need.forEach(needBacklogAction);
+        if (clusterView != null) {
+            need.forEach(distributeAction);
+        }
+        if (perShardLock) {
+            // 不再需要的分片注销锁，需要的分片登记锁，只保留本节点持有锁的分片
+            lockShards.entrySet().removeIf(entry -> {
+                if (need.get(entry.getKey()) > 0) {
+                    return false;
+                }
+                entry.getValue().removeListener(lockListener);
+                executor.releaseTaskLock(name, entry.getKey());
+                return true;
+            });
+            need.forEach(lockAction);
+        }
+        capping.cap(need, control == null ? scheduled.dynamicConcurrentMax() : control.getConcurrentMax());
 
-        // 处理删除的分片
-        removeSet.forEach(sharded -> {
-            int size = concurrent.get(sharded);
-            for (int i = 0; i < size; i++) {
-                executor.removeOneTask(name, sharded);
-            }
-        });
+        if (!isChanged(concurrent, need)) {
+            return;
+        }
 
-        // 处理新增的分片
-        addSet.forEach(sharded -> {
-            int size = need.get(sharded);
-            for (int i = 0; i < size; i++) {
-                executor.genAndScheduleTask(taskType, name, sharded, bean, method, scheduled);
-            }
-        });
+        // 减少的分片，包括不再需要的分片
+        concurrent.forEach(removeAction);
+        // 增加的分片，包括新增的分片
+        need.forEach(addAction);
 
-        // 处理存在的的分片
-        hasSet.forEach(sharded -> {
-            int theOld = concurrent.get(sharded);
-            int theNew = need.get(sharded);
-            if (theOld > theNew) {
-                int sub = theOld - theNew;
-                for (int i = 0; i < sub; i++) {
-                    executor.removeOneTask(name, sharded);
-                }
-            } else if (theOld < theNew) {
-                int add = theNew - theOld;
-                for (int i = 0; i < add; i++) {
-                    executor.genAndScheduleTask(taskType, name, sharded, bean, method, scheduled);
-                }
-            }
-        });
+        executor.onRebalanced(name, concurrent, need);
 
         if (log.isDebugEnabled()) {
-            log.debug("调整并发 : 当前(" + toString(concurrent) + ") -> 需要(" + toString(need) + ")");
+            log.debug("调整并发 : 当前(" + concurrent + ") -> 需要(" + need + ")");
         }
 
     }
 
     /**
-     * 根据当前并发数计算出所需并发数
+     * 并发数是否有变化，并发数为0的分片与不存在的分片视为相同
      *
      * @param concurrent 当前并发数
-     * @return 所需并发数
+     * @param need       所需并发数
+     * @return 是否有变化
      */
-    private Map<String, Integer> computerNeed(Map<String, Integer> concurrent) {
-
-        Map<String, Integer> need = superComputer.compute(concurrent);
-        if (need == null) {
-            need = new HashMap<>();
+    private boolean isChanged(ConcurrencySnapshot concurrent, ConcurrencySnapshot need) {
+        if (concurrent.total() != need.total()) {
+            return true;
         }
-
-        Map<String, Integer> needNew;
-        int concurrentMax = scheduled.dynamicConcurrentMax();
-        if (concurrentMax > 0) {
-            long needNumber = need.values().stream().mapToInt((s) -> s).summaryStatistics().getSum();
-            if (needNumber > concurrentMax) {
-                needNew = new HashMap<>();
-                AtomicInteger atomicInteger = new AtomicInteger(concurrentMax);
-                need.forEach((sharded, number) -> {
-                    for (int i = 0; i < number; i++) {
-                        int now = atomicInteger.addAndGet(-1);
-                        if (now < 0) {
-                            break;
-                        }
-                        needNew.computeIfAbsent(sharded, k -> 0);
-                        needNew.put(sharded, needNew.get(sharded) + 1);
-                    }
-                });
-            } else {
-                needNew = need;
+        boolean[] changed = {false};
+        need.forEach((sharded, number) -> {
+            if (!changed[0] && concurrent.get(sharded) != number) {
+                changed[0] = true;
             }
-        } else {
-            needNew = need;
-        }
-        return needNew;
+        });
+        return changed[0];
     }
 
-
     /**
      * map转字符串，基础工具方法
      *
@@ -0,0 +1,220 @@
+package cn.emay.superscheduler.task.compute;
+
+import cn.emay.superscheduler.core.CappingType;
+import cn.emay.superscheduler.core.DesiredConcurrency;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 并发上限截断<br/>
+ * 所需并发数之和超过上限时，按截断策略把上限分配给各分片，每个分片不超过其所需并发数；<br/>
+ * 分片先按分片名排序，同等条件下名称在前的分片优先，结果与遍历顺序无关
+ */
+public class ConcurrencyCapping {
+
+    /**
+     * 按分片名排序
+     */
+    private static final Comparator<Demand> BY_NAME = Comparator.comparing(demand -> demand.sharded);
+    /**
+     * 截断策略
+     */
+    private final CappingType type;
+
+    /**
+     * @param type 截断策略
+     */
+    public ConcurrencyCapping(CappingType type) {
+        this.type = type == null ? CappingType.MAX_MIN_FAIR : type;
+    }
+
+    /**
+     * 所需并发数之和超过上限时截断
+     *
+     * @param need          所需并发数，截断结果直接写回
+     * @param concurrentMax 并发上限，小于等于0不限制
+     */
+    public void cap(DesiredConcurrency need, int concurrentMax) {
+        if (concurrentMax <= 0 || need.total() <= concurrentMax) {
+            return;
+        }
+        List<Demand> demands = new ArrayList<>(need.size());
+        need.forEach((sharded, number) -> {
+            if (number > 0) {
+                demands.add(new Demand(sharded, number, need.getBacklog(sharded), need.getPriority(sharded)));
+            }
+        });
+        demands.sort(BY_NAME);
+        switch (type) {
+            case FIRST_COME:
+                firstCome(demands, concurrentMax);
+                break;
+            case PROPORTIONAL:
+                proportional(demands, concurrentMax);
+                break;
+            case BACKLOG_WEIGHTED:
+                waterFill(demands, concurrentMax, true);
+                break;
+            case PRIORITY:
+                priority(demands, concurrentMax);
+                break;
+            case MAX_MIN_FAIR:
+            default:
+                waterFill(demands, concurrentMax, false);
+                break;
+        }
+        demands.forEach(demand -> need.set(demand.sharded, demand.granted));
+    }
+
+    /**
+     * 先到先得
+     *
+     * @param demands  按分片名排序的需求
+     * @param capacity 可分配并发数
+     */
+    private static void firstCome(List<Demand> demands, int capacity) {
+        int remaining = capacity;
+        for (Demand demand : demands) {
+            demand.granted = Math.min(demand.number, remaining);
+            remaining -= demand.granted;
+        }
+    }
+
+    /**
+     * 按比例分配，余数按小数部分从大到小分配(最大余额法)
+     *
+     * @param demands  按分片名排序的需求
+     * @param capacity 可分配并发数
+     */
+    private static void proportional(List<Demand> demands, int capacity) {
+        long total = 0L;
+        for (Demand demand : demands) {
+            total += demand.number;
+        }
+        int remaining = capacity;
+        for (Demand demand : demands) {
+            long quota = (long) capacity * demand.number;
+            demand.granted = (int) (quota / total);
+            demand.fraction = (double) (quota % total) / total;
+            remaining -= demand.granted;
+        }
+        List<Demand> order = new ArrayList<>(demands);
+        order.sort(Comparator.comparingDouble((Demand demand) -> demand.fraction).reversed().thenComparing(BY_NAME));
+        for (Demand demand : order) {
+            if (remaining <= 0) {
+                break;
+            }
+            if (demand.granted < demand.number) {
+                demand.granted++;
+                remaining--;
+            }
+        }
+    }
+
+    /**
+     * 按优先级分配，优先级高的先满足，同一优先级内最大最小公平
+     *
+     * @param demands  按分片名排序的需求
+     * @param capacity 可分配并发数
+     */
+    private static void priority(List<Demand> demands, int capacity) {
+        List<Demand> order = new ArrayList<>(demands);
+        order.sort(Comparator.comparingInt((Demand demand) -> demand.priority).reversed().thenComparing(BY_NAME));
+        int remaining = capacity;
+        int from = 0;
+        while (from < order.size()) {
+            int to = from;
+            while (to < order.size() && order.get(to).priority == order.get(from).priority) {
+                to++;
+            }
+            List<Demand> group = order.subList(from, to);
+            if (remaining > 0) {
+                waterFill(group, remaining, false);
+                for (Demand demand : group) {
+                    remaining -= demand.granted;
+                }
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * 注水分配：每轮按权重把剩余并发分给未满足的分片，满足后的余量留给下一轮；<br/>
+     * 剩余并发不足以按权重分出整数时，按权重从大到小、分片名升序每个分片再分1个
+     *
+     * @param demands  按分片名排序的需求
+     * @param capacity 可分配并发数
+     * @param weighted 是否按积压量加权，否则权重都为1
+     */
+    private static void waterFill(List<Demand> demands, int capacity, boolean weighted) {
+        List<Demand> open = new ArrayList<>(demands);
+        int remaining = capacity;
+        while (remaining > 0 && !open.isEmpty()) {
+            double totalWeight = 0D;
+            for (Demand demand : open) {
+                totalWeight += weight(demand, weighted);
+            }
+            int round = remaining;
+            int given = 0;
+            for (Demand demand : open) {
+                int share = (int) Math.floor(round * weight(demand, weighted) / totalWeight);
+                int granted = Math.min(share, demand.number - demand.granted);
+                demand.granted += granted;
+                given += granted;
+            }
+            remaining -= given;
+            open.removeIf(demand -> demand.granted >= demand.number);
+            if (given == 0) {
+                open.sort(Comparator.comparingDouble((Demand demand) -> weight(demand, weighted)).reversed().thenComparing(BY_NAME));
+                for (Demand demand : open) {
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    demand.granted++;
+                    remaining--;
+                }
+                open.removeIf(demand -> demand.granted >= demand.number);
+            }
+        }
+    }
+
+    /**
+     * 分片权重
+     */
+    private static double weight(Demand demand, boolean weighted) {
+        return weighted ? Math.max(1L, demand.backlog) : 1D;
+    }
+
+    public CappingType getType() {
+        return type;
+    }
+
+    /**
+     * 分片需求
+     */
+    private static class Demand {
+
+        private final String sharded;
+        private final int number;
+        private final long backlog;
+        private final int priority;
+        /**
+         * 分到的并发数
+         */
+        private int granted = 0;
+        /**
+         * 按比例分配时的小数部分
+         */
+        private double fraction = 0D;
+
+        private Demand(String sharded, int number, long backlog, int priority) {
+            this.sharded = sharded;
+            this.number = number;
+            this.backlog = backlog;
+            this.priority = priority;
+        }
+    }
+
+}
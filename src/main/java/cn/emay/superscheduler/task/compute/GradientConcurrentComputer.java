@@ -0,0 +1,41 @@
+package cn.emay.superscheduler.task.compute;
+
+import cn.emay.superscheduler.core.ConcurrentComputer;
+
+/**
+ * 梯度自适应并发计算器<br/>
+ * 新并发 = 并发 * (基准耗时/当前耗时) + 排队余量，有积压时余量为sqrt(并发)，空闲时为-1；<br/>
+ * 结果按0.2的系数平滑，避免并发抖动
+ */
+public class GradientConcurrentComputer extends AdaptiveConcurrentComputer {
+
+    /**
+     * 平滑系数
+     */
+    private static final double SMOOTHING = 0.2D;
+    /**
+     * 梯度下限，单次最多缩减一半
+     */
+    private static final double MIN_GRADIENT = 0.5D;
+
+    /**
+     * @param shardedComputer 分片计算器，可为空
+     * @param concurrentMax   并发上限，小于等于0不限制
+     */
+    public GradientConcurrentComputer(ConcurrentComputer shardedComputer, int concurrentMax) {
+        super(shardedComputer, concurrentMax);
+    }
+
+    @Override
+    protected double adjust(double limit, Sample sample) {
+        double gradient = sample.latencyNanos <= 0D ? 1D : Math.max(MIN_GRADIENT, Math.min(1D, sample.baselineNanos / sample.latencyNanos));
+        double queue = 0D;
+        if (sample.isBusy()) {
+            queue = Math.sqrt(limit);
+        } else if (sample.isIdle()) {
+            queue = -1D;
+        }
+        double newLimit = limit * gradient + queue;
+        return limit * (1D - SMOOTHING) + newLimit * SMOOTHING;
+    }
+}
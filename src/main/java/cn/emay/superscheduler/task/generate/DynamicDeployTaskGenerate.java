@@ -1,12 +1,30 @@
 package cn.emay.superscheduler.task.generate;
 
 import cn.emay.superscheduler.SuperExecutor;
+import cn.emay.superscheduler.SuperSchedulerContext;
+import cn.emay.superscheduler.base.BatchPolicy;
+import cn.emay.superscheduler.base.CircuitBreaker;
+import cn.emay.superscheduler.base.FailureBackoff;
+import cn.emay.superscheduler.base.InFlight;
+import cn.emay.superscheduler.base.NamedTask;
+import cn.emay.superscheduler.base.PhasedTrigger;
+import cn.emay.superscheduler.base.TaskInvoker;
+import cn.emay.superscheduler.base.TaskListeners;
+import cn.emay.superscheduler.base.TaskLock;
+import cn.emay.superscheduler.core.TaskResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.Trigger;
 
-import java.lang.reflect.Method;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 /**
  * 动态延时任务执行器
@@ -15,13 +33,41 @@ public class DynamicDeployTaskGenerate {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
     /**
-     * 执行对象
+     * 已经完成的异步执行
      */
-    private final Method method;
+    private static final CompletionStage<?> DONE = CompletableFuture.completedFuture(null);
     /**
-     * 执行方法
+     * 方法调用器
      */
-    private final Object bean;
+    private final TaskInvoker invoker;
+    /**
+     * 绑定分片后的方法调用，返回下次执行间隔；批处理方法、异步方法为空
+     */
+    private final LongSupplier invocation;
+    /**
+     * 绑定分片后的异步方法调用，非异步方法为空
+     */
+    private final Supplier<CompletionStage<?>> asyncInvocation;
+    /**
+     * 异步执行逻辑，非异步方法为空
+     */
+    private final Supplier<CompletionStage<?>> asyncRunnable;
+    /**
+     * 绑定分片后的批处理方法调用，参数为批量大小；非批处理方法为空
+     */
+    private final IntFunction<TaskResult> batch;
+    /**
+     * 批处理策略
+     */
+    private final BatchPolicy batchPolicy;
+    /**
+     * 当前批量大小，按耗时自适应调整
+     */
+    private int batchSize;
+    /**
+     * 分片最近上报的积压量，同一分片的执行单元共用
+     */
+    private final AtomicLong backlog;
     /**
      * 执行逻辑
      */
@@ -54,26 +100,79 @@ public class DynamicDeployTaskGenerate {
      * 是否单节点执行
      */
     private final boolean only;
+    /**
+     * 单节点锁，非单节点执行为空
+     */
+    private final TaskLock lock;
+    /**
+     * 正在执行的数量
+     */
+    private final InFlight inFlight;
+    /**
+     * 执行监听器
+     */
+    private final TaskListeners listeners;
+    /**
+     * 触发器计算出的计划开始时间，单位毫秒，未知时为-1
+     */
+    private volatile long expectedStartMillis = -1L;
+    /**
+     * 失败退避策略
+     */
+    private final FailureBackoff backoff;
+    /**
+     * 熔断器，未开启熔断为空
+     */
+    private final CircuitBreaker breaker;
+    /**
+     * 连续失败次数
+     */
+    private int failures = 0;
+    /**
+     * 最近一次失败时熔断器的恢复次数，最近一次执行成功为-1<br/>
+     * 熔断恢复后按此判断退避时间已经过时，立即执行
+     */
+    private volatile long failedRecoveries = -1L;
+    /**
+     * 每次执行的随机抖动比例
+     */
+    private final double jitter;
 
     /**
      * @param executor           线程池
      * @param only               是否单节点执行
      * @param taskName           任务名称
      * @param sharded            分片
-     * @param bean               执行对象
-     * @param method             执行方法
+     * @param invoker            方法调用器
      * @param initialDelayMillis 初始化延迟时间
      */
-    public DynamicDeployTaskGenerate(SuperExecutor executor, boolean only, String taskName, String sharded, Object bean, Method method, long initialDelayMillis) {
-        this.bean = bean;
-        this.method = method;
+    public DynamicDeployTaskGenerate(SuperExecutor executor, boolean only, String taskName, String sharded, TaskInvoker invoker, long initialDelayMillis) {
+        this.invoker = invoker;
+        this.batch = invoker.isBatch() ? invoker.bindBatch(sharded) : null;
+        this.asyncInvocation = invoker.isAsync() ? invoker.bindAsync(sharded) : null;
+        this.invocation = batch == null && asyncInvocation == null ? invoker.bindDelay(sharded) : null;
+        this.batchPolicy = executor.getBatchPolicy(taskName);
+        this.batchSize = batchPolicy.getInitialSize();
+        this.backlog = batch == null ? null : executor.getShardBacklog(taskName, sharded);
         this.only = only;
         this.sharded = sharded;
         this.taskName = taskName;
         this.executor = executor;
+        this.listeners = executor.getTaskListeners(taskName);
+        this.lock = only ? executor.getTaskLock(taskName, sharded) : null;
+        this.inFlight = executor.getInFlight(taskName);
+        this.backoff = executor.getFailureBackoff(taskName);
+        this.breaker = executor.getCircuitBreaker(taskName);
+        this.jitter = executor.getJitter(taskName);
 
         this.initialDelay = initialDelayMillis;
-        this.runnable = genRunnable();
+        if (asyncInvocation == null) {
+            this.asyncRunnable = null;
+            this.runnable = new NamedTask(taskName, sharded, genRunnable(), inFlight);
+        } else {
+            this.asyncRunnable = this::runAsync;
+            this.runnable = new NamedTask(taskName, sharded, this::runAsync);
+        }
         this.trigger = genTrigger();
     }
 
@@ -82,61 +181,259 @@ public class DynamicDeployTaskGenerate {
      */
     private Runnable genRunnable() {
         return () -> {
-            try {
-                // 需要锁但是没有竞争到锁就不执行，休息10秒
-                if (this.only && this.executor.isNoHasLock()) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("本节点未获取到锁，任务" + taskName + "不执行");
-                    }
-                    this.delayMillis = 10L * 1000L;
-                    return;
-                }
-                if (SuperExecutor.DEFAULT_SHARDED.equals(this.sharded) || SuperExecutor.DYNAMIC_SHARDED.equals(this.sharded)) {
-                    this.delayMillis = SuperExecutor.invokeMethod(bean, method);
-                } else {
-                    this.delayMillis = SuperExecutor.invokeMethod(bean, method, this.sharded);
+            // 失去锁时任务已经挂起，挂起前已经触发的执行、租约即将到期的执行直接跳过
+            if (lock != null && !lock.isValid()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("本节点未获取到锁，任务" + taskName + "不执行");
                 }
+                return;
+            }
+            // 熔断中，挂起前已经触发的执行直接跳过；半开时只有一个线程试探
+            if (breaker != null && !breaker.tryAcquire()) {
                 if (log.isDebugEnabled()) {
-                    log.debug("执行任务 " + taskName + " 完毕");
+                    log.debug("任务" + taskName + "熔断中，不执行");
                 }
-            } catch (Throwable e) {
-                this.delayMillis = 1000L;
-                log.error("执行任务  " + taskName + " 报错", e);
+                return;
+            }
+            boolean success = executeOnce();
+            if (batch == null || batchPolicy.getBurstNanos() <= 0L) {
+                return;
+            }
+            // 批处理任务还有积压时在同一线程中连续执行，超过时间上限后交还线程池，避免占满线程
+            long deadline = System.nanoTime() + batchPolicy.getBurstNanos();
+            while (success && this.delayMillis == 0L && deadline - System.nanoTime() > 0L
+                    && (lock == null || lock.isValid()) && (breaker == null || breaker.tryAcquire())) {
+                expectedStartMillis = System.currentTimeMillis();
+                success = executeOnce();
             }
         };
     }
 
+    /**
+     * 执行一次，处理失败退避和熔断，并通知监听器
+     *
+     * @return 是否执行成功
+     */
+    private boolean executeOnce() {
+        long start = beforeExecute();
+        long delay;
+        try {
+            delay = invoke();
+        } catch (Throwable e) {
+            return afterExecute(start, 0L, e);
+        }
+        return afterExecute(start, delay, null);
+    }
+
+    /**
+     * 异步执行一次，返回的CompletionStage完成后才计算下次执行时间<br/>
+     * 异常在完成时记录，返回的CompletionStage总是正常完成
+     *
+     * @return 本次执行
+     */
+    private CompletionStage<?> runAsync() {
+        if (lock != null && !lock.isValid()) {
+            if (log.isDebugEnabled()) {
+                log.debug("本节点未获取到锁，任务" + taskName + "不执行");
+            }
+            return DONE;
+        }
+        if (breaker != null && !breaker.tryAcquire()) {
+            if (log.isDebugEnabled()) {
+                log.debug("任务" + taskName + "熔断中，不执行");
+            }
+            return DONE;
+        }
+        long start = beforeExecute();
+        inFlight.enter();
+        CompletionStage<?> stage;
+        try {
+            stage = invokeAsync();
+        } catch (Throwable e) {
+            inFlight.exit();
+            afterExecute(start, 0L, e);
+            return DONE;
+        }
+        if (stage == null) {
+            inFlight.exit();
+            afterExecute(start, 0L, new IllegalStateException("异步方法返回null"));
+            return DONE;
+        }
+        return stage.handle((value, error) -> {
+            inFlight.exit();
+            if (error != null) {
+                afterExecute(start, 0L, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else if (value instanceof Number) {
+                afterExecute(start, ((Number) value).longValue(), null);
+            } else {
+                afterExecute(start, 0L, new IllegalStateException("异步方法的结果必须是long类型的执行间隔，实际为" + value));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 开始执行，通知监听器
+     *
+     * @return 开始时间，单位纳秒，没有监听器时为0
+     */
+    private long beforeExecute() {
+        if (listeners.isEmpty()) {
+            return 0L;
+        }
+        long expected = expectedStartMillis;
+        listeners.onStarted(taskName, sharded, expected < 0L ? -1L : TimeUnit.MILLISECONDS.toNanos(Math.max(0L, System.currentTimeMillis() - expected)));
+        return System.nanoTime();
+    }
+
+    /**
+     * 执行完毕，计算下次执行间隔，处理失败退避和熔断，并通知监听器
+     *
+     * @param start 开始时间，单位纳秒
+     * @param delay 方法返回的执行间隔
+     * @param error 异常，执行成功为空
+     * @return 是否执行成功
+     */
+    private boolean afterExecute(long start, long delay, Throwable error) {
+        boolean success = error == null;
+        if (success) {
+            this.delayMillis = delay;
+            failures = 0;
+            failedRecoveries = -1L;
+            if (log.isDebugEnabled()) {
+                log.debug("执行任务 " + taskName + " 完毕");
+            }
+        } else {
+            // 连续失败时指数退避，避免所有线程持续冲击故障的下游
+            failures = failures == Integer.MAX_VALUE ? failures : failures + 1;
+            this.delayMillis = backoff.delay(failures);
+            log.error("执行任务  " + taskName + " 报错，连续失败" + failures + "次，" + this.delayMillis + "毫秒后重试", error);
+        }
+        if (breaker != null) {
+            if (success) {
+                breaker.onSuccess();
+            } else {
+                failedRecoveries = breaker.getRecoveries();
+                breaker.onFailure(runnable);
+            }
+        }
+        if (!listeners.isEmpty()) {
+            listeners.onExecuted(taskName, sharded, System.nanoTime() - start, success, success ? this.delayMillis : -1L);
+        }
+        return success;
+    }
+
+    /**
+     * 调用异步方法，单节点任务在发起调用期间绑定上下文，回调中不绑定
+     *
+     * @return 方法返回的CompletionStage
+     */
+    private CompletionStage<?> invokeAsync() {
+        if (lock == null) {
+            return asyncInvocation.get();
+        }
+        SuperSchedulerContext previous = SuperSchedulerContext.enter(taskName, sharded, lock);
+        try {
+            return asyncInvocation.get();
+        } finally {
+            SuperSchedulerContext.exit(previous);
+        }
+    }
+
+    /**
+     * 执行业务方法，单节点任务在执行期间绑定上下文
+     *
+     * @return 下次执行间隔
+     */
+    private long invoke() {
+        if (lock == null) {
+            return call();
+        }
+        SuperSchedulerContext previous = SuperSchedulerContext.enter(taskName, sharded, lock);
+        try {
+            return call();
+        } finally {
+            SuperSchedulerContext.exit(previous);
+        }
+    }
+
+    /**
+     * 调用业务方法<br/>
+     * 批处理方法按结果调整批量大小、上报积压量，并换算为下次执行间隔
+     *
+     * @return 下次执行间隔
+     */
+    private long call() {
+        if (batch == null) {
+            return invocation.getAsLong();
+        }
+        int size = batchSize;
+        long start = System.nanoTime();
+        TaskResult result = batch.apply(size);
+        if (result == null) {
+            backlog.set(0L);
+        } else {
+            batchSize = batchPolicy.resize(size, result.getProcessed(), System.nanoTime() - start);
+            if (result.getBacklog() >= 0L) {
+                backlog.set(result.getBacklog());
+            }
+        }
+        return batchPolicy.delay(result, size);
+    }
+
     /**
      * 生成计时器
      */
     private Trigger genTrigger() {
         return triggerContext -> {
+            long delay = this.delayMillis;
+            long recoveries = failedRecoveries;
+            if (recoveries >= 0L && breaker != null && recoveries != breaker.getRecoveries()) {
+                // 熔断期间失败的线程，恢复后不再等待退避时间
+                delay = 0L;
+            }
+            // 随机抖动，避免多个执行单元返回相同间隔时同时执行
+            delay += PhasedTrigger.jitter(delay, jitter);
+            Date date;
             if (initialDelay == null) {
-                return new Date(this.delayMillis + System.currentTimeMillis());
+                date = new Date(delay + System.currentTimeMillis());
             } else {
-                Date date = new Date(this.delayMillis + initialDelay + System.currentTimeMillis());
+                date = new Date(delay + initialDelay + System.currentTimeMillis());
                 initialDelay = null;
-                return date;
             }
+            expectedStartMillis = date.getTime();
+            return date;
         };
     }
 
-    public Object getBean() {
-        return bean;
-    }
-
-    public Method getMethod() {
-        return method;
+    public TaskInvoker getInvoker() {
+        return invoker;
     }
 
     public Runnable getTask() {
         return runnable;
     }
 
+    public Supplier<CompletionStage<?>> getAsyncTask() {
+        return asyncRunnable;
+    }
+
     public Trigger getTrigger() {
         return trigger;
     }
 
+    public TaskLock getLock() {
+        return lock;
+    }
+
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
     public String getTaskName() {
         return taskName;
     }
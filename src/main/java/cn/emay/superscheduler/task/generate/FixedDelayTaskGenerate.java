@@ -2,10 +2,21 @@ package cn.emay.superscheduler.task.generate;
 
 
 import cn.emay.superscheduler.SuperExecutor;
+import cn.emay.superscheduler.SuperSchedulerContext;
+import cn.emay.superscheduler.base.InFlight;
+import cn.emay.superscheduler.base.NamedTask;
+import cn.emay.superscheduler.base.OverlapGuard;
+import cn.emay.superscheduler.base.TaskControl;
+import cn.emay.superscheduler.base.TaskInvoker;
+import cn.emay.superscheduler.base.TaskListeners;
+import cn.emay.superscheduler.base.TaskLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 静态延时任务执行器
@@ -14,13 +25,25 @@ public class FixedDelayTaskGenerate {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
     /**
-     * 执行对象
+     * 已经完成的异步执行
      */
-    private final Method method;
+    private static final CompletionStage<Object> DONE = CompletableFuture.completedFuture(null);
     /**
-     * 执行方法
+     * 方法调用器
      */
-    private final Object bean;
+    private final TaskInvoker invoker;
+    /**
+     * 绑定分片后的方法调用，异步方法为空
+     */
+    private final Runnable invocation;
+    /**
+     * 绑定分片后的异步方法调用，非异步方法为空
+     */
+    private final Supplier<CompletionStage<?>> asyncInvocation;
+    /**
+     * 异步执行逻辑，非异步方法为空
+     */
+    private final Supplier<CompletionStage<?>> asyncRunnable;
     /**
      * 执行逻辑
      */
@@ -41,24 +64,67 @@ public class FixedDelayTaskGenerate {
      * 是否单节点执行
      */
     private final boolean only;
+    /**
+     * 单节点锁，非单节点执行为空
+     */
+    private final TaskLock lock;
+    /**
+     * 执行监听器
+     */
+    private final TaskListeners listeners;
+    /**
+     * 重叠执行控制，同一分片的执行单元共用，不限制时为空
+     */
+    private final OverlapGuard guard;
+    /**
+     * 正在执行的数量
+     */
+    private final InFlight inFlight;
+    /**
+     * 任务的运行时控制，覆盖的周期优先，可为空
+     */
+    private final TaskControl control;
+    /**
+     * 执行周期，cron任务为0
+     */
+    private long period = 0L;
+    /**
+     * 是否固定频率
+     */
+    private boolean fixedRate = false;
+    /**
+     * 下次计划开始时间，单位毫秒，未知时为-1，仅有监听器或重叠执行控制时维护
+     */
+    private volatile long expectedStartMillis = -1L;
 
     /**
      * @param executor 线程池
      * @param only     是否单节点执行
      * @param taskName 任务名称
      * @param sharded  分片
-     * @param bean     执行对象
-     * @param method   执行方法
+     * @param invoker  方法调用器
      */
-    public FixedDelayTaskGenerate(SuperExecutor executor, boolean only, String taskName, String sharded, Object bean, Method method) {
-        this.bean = bean;
-        this.method = method;
+    public FixedDelayTaskGenerate(SuperExecutor executor, boolean only, String taskName, String sharded, TaskInvoker invoker) {
+        this.invoker = invoker;
+        this.asyncInvocation = invoker.isAsync() ? invoker.bindAsync(sharded) : null;
+        this.invocation = asyncInvocation == null ? invoker.bindRunnable(sharded) : null;
         this.only = only;
         this.sharded = sharded;
         this.taskName = taskName;
         this.executor = executor;
+        this.listeners = executor.getTaskListeners(taskName);
+        this.lock = only ? executor.getTaskLock(taskName, sharded) : null;
+        this.guard = executor.getOverlapGuard(taskName, sharded);
+        this.inFlight = executor.getInFlight(taskName);
+        this.control = executor.getTaskControl(taskName);
 
-        this.runnable = genRunnable();
+        if (asyncInvocation == null) {
+            this.asyncRunnable = null;
+            this.runnable = new NamedTask(taskName, sharded, genRunnable(), inFlight);
+        } else {
+            this.asyncRunnable = this::runAsync;
+            this.runnable = new NamedTask(taskName, sharded, this::runAsync);
+        }
     }
 
     /**
@@ -66,21 +132,254 @@ public class FixedDelayTaskGenerate {
      */
     private Runnable genRunnable() {
         return () -> {
-            // 需要锁但是没有竞争到锁，不执行
-            if (only && executor.isNoHasLock()) {
+            // 失去锁时任务已经挂起，挂起前已经触发的执行、租约即将到期的执行直接跳过
+            if (lock != null && !lock.isValid()) {
                 if (log.isDebugEnabled()) {
                     log.debug("本节点未获取到锁，任务" + taskName + "不执行");
                 }
+                if (!listeners.isEmpty() || guard != null) {
+                    expectNext(System.currentTimeMillis());
+                }
                 return;
             }
-            if (SuperExecutor.DEFAULT_SHARDED.equals(this.sharded) || SuperExecutor.DYNAMIC_SHARDED.equals(this.sharded)) {
-                SuperExecutor.invokeMethod(bean, method);
-            } else {
-                SuperExecutor.invokeMethod(bean, method, this.sharded);
+            if (guard == null) {
+                execute(expectedStartMillis, true);
+                return;
+            }
+            long scheduled = expectedStartMillis;
+            if (!guard.tryStart(scheduled)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("任务" + taskName + "-" + sharded + "已有执行进行中或错过执行，本次按" + guard.getPolicy() + "处理");
+                }
+                expectNext(System.currentTimeMillis());
+                return;
+            }
+            boolean released = false;
+            try {
+                execute(scheduled, true);
+                // 依次补执行其他执行单元排队的计划时间，失去锁时丢弃
+                for (long next = guard.next(); next != OverlapGuard.NONE; next = guard.next()) {
+                    if (lock != null && !lock.isValid()) {
+                        guard.release();
+                        break;
+                    }
+                    execute(next, false);
+                }
+                released = true;
+            } finally {
+                if (!released) {
+                    guard.release();
+                }
             }
         };
     }
 
+    /**
+     * 执行一次，并通知监听器
+     *
+     * @param expected 计划开始时间，未知时为-1
+     * @param advance  是否推算本执行单元的下次计划开始时间，补执行其他计划时间时不推算
+     */
+    private void execute(long expected, boolean advance) {
+        if (listeners.isEmpty() && guard == null) {
+            invoke();
+            return;
+        }
+        if (listeners.isEmpty()) {
+            long startMillis = System.currentTimeMillis();
+            try {
+                invoke();
+            } finally {
+                if (advance) {
+                    expectNext(startMillis);
+                }
+            }
+            return;
+        }
+        long startMillis = System.currentTimeMillis();
+        listeners.onStarted(taskName, sharded, expected < 0L ? -1L : TimeUnit.MILLISECONDS.toNanos(Math.max(0L, startMillis - expected)));
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            invoke();
+            success = true;
+        } finally {
+            listeners.onExecuted(taskName, sharded, System.nanoTime() - start, success, -1L);
+            if (advance) {
+                expectNext(startMillis);
+            }
+        }
+    }
+
+    /**
+     * 异步执行一次，返回的CompletionStage完成后才计算下次执行时间<br/>
+     * 异常在完成时记录，返回的CompletionStage总是正常完成
+     *
+     * @return 本次执行，包括补执行的排队
+     */
+    private CompletionStage<?> runAsync() {
+        if (lock != null && !lock.isValid()) {
+            if (log.isDebugEnabled()) {
+                log.debug("本节点未获取到锁，任务" + taskName + "不执行");
+            }
+            if (!listeners.isEmpty() || guard != null) {
+                expectNext(System.currentTimeMillis());
+            }
+            return DONE;
+        }
+        if (guard == null) {
+            return executeAsync(expectedStartMillis, true);
+        }
+        long scheduled = expectedStartMillis;
+        if (!guard.tryStart(scheduled)) {
+            if (log.isDebugEnabled()) {
+                log.debug("任务" + taskName + "-" + sharded + "已有执行进行中或错过执行，本次按" + guard.getPolicy() + "处理");
+            }
+            expectNext(System.currentTimeMillis());
+            return DONE;
+        }
+        return drainAsync(executeAsync(scheduled, true));
+    }
+
+    /**
+     * 本次完成后依次补执行其他执行单元排队的计划时间，失去锁时丢弃
+     *
+     * @param stage 本次执行
+     * @return 包括补执行的执行
+     */
+    private CompletionStage<Object> drainAsync(CompletionStage<?> stage) {
+        return stage.thenCompose(ignored -> {
+            if (lock != null && !lock.isValid()) {
+                guard.release();
+                return DONE;
+            }
+            long next = guard.next();
+            return next == OverlapGuard.NONE ? DONE : drainAsync(executeAsync(next, false));
+        });
+    }
+
+    /**
+     * 发起一次异步执行，完成时通知监听器
+     *
+     * @param expected 计划开始时间，未知时为-1
+     * @param advance  是否推算本执行单元的下次计划开始时间
+     * @return 本次执行，总是正常完成
+     */
+    private CompletionStage<Object> executeAsync(long expected, boolean advance) {
+        long startMillis = System.currentTimeMillis();
+        if (!listeners.isEmpty()) {
+            listeners.onStarted(taskName, sharded, expected < 0L ? -1L : TimeUnit.MILLISECONDS.toNanos(Math.max(0L, startMillis - expected)));
+        }
+        long start = System.nanoTime();
+        inFlight.enter();
+        CompletionStage<?> stage;
+        try {
+            stage = invokeAsync();
+        } catch (Throwable e) {
+            stage = null;
+            afterAsync(e, start, startMillis, advance);
+        }
+        if (stage == null) {
+            return DONE;
+        }
+        return stage.handle((value, error) -> {
+            afterAsync(error, start, startMillis, advance);
+            return (Object) null;
+        });
+    }
+
+    /**
+     * 异步执行完成
+     */
+    private void afterAsync(Throwable error, long start, long startMillis, boolean advance) {
+        inFlight.exit();
+        if (error != null) {
+            log.error("执行任务  " + taskName + " 报错", error);
+        }
+        if (!listeners.isEmpty()) {
+            listeners.onExecuted(taskName, sharded, System.nanoTime() - start, error == null, -1L);
+        }
+        if (advance && (guard != null || !listeners.isEmpty())) {
+            expectNext(startMillis);
+        }
+    }
+
+    /**
+     * 调用异步方法，单节点任务在发起调用期间绑定上下文，回调中不绑定
+     *
+     * @return 方法返回的CompletionStage
+     */
+    private CompletionStage<?> invokeAsync() {
+        if (lock == null) {
+            return asyncInvocation.get();
+        }
+        SuperSchedulerContext previous = SuperSchedulerContext.enter(taskName, sharded, lock);
+        try {
+            return asyncInvocation.get();
+        } finally {
+            SuperSchedulerContext.exit(previous);
+        }
+    }
+
+    /**
+     * 执行业务方法，单节点任务在执行期间绑定上下文
+     */
+    private void invoke() {
+        if (lock == null) {
+            invocation.run();
+            return;
+        }
+        SuperSchedulerContext previous = SuperSchedulerContext.enter(taskName, sharded, lock);
+        try {
+            invocation.run();
+        } finally {
+            SuperSchedulerContext.exit(previous);
+        }
+    }
+
+    /**
+     * 按执行周期推算下次计划开始时间<br/>
+     * 固定频率在上次计划时间上累加周期，固定间隔为本次结束时间加间隔；首次执行的计划时间未知，不统计开始延迟
+     *
+     * @param startMillis 本次开始时间
+     */
+    private void expectNext(long startMillis) {
+        if (this.period <= 0L) {
+            return;
+        }
+        long period = control == null ? this.period : control.getPeriod(this.period);
+        if (fixedRate) {
+            long expected = expectedStartMillis;
+            expectedStartMillis = (expected < 0L ? startMillis : expected) + period;
+        } else {
+            expectedStartMillis = System.currentTimeMillis() + period;
+        }
+    }
+
+    /**
+     * 设置执行周期，用于推算计划开始时间
+     *
+     * @param period    周期，单位毫秒
+     * @param fixedRate 是否固定频率
+     */
+    public void setPeriod(long period, boolean fixedRate) {
+        this.period = period;
+        this.fixedRate = fixedRate;
+    }
+
+    /**
+     * 设置下次计划开始时间，由触发器在计算出下次执行时间后调用
+     *
+     * @param startMillis 计划开始时间，单位毫秒
+     */
+    public void expectStartAt(long startMillis) {
+        this.expectedStartMillis = startMillis;
+    }
+
+    public TaskLock getLock() {
+        return lock;
+    }
+
     public String getTaskName() {
         return taskName;
     }
@@ -89,15 +388,15 @@ public class FixedDelayTaskGenerate {
         return sharded;
     }
 
-    public Object getBean() {
-        return bean;
-    }
-
-    public Method getMethod() {
-        return method;
+    public TaskInvoker getInvoker() {
+        return invoker;
     }
 
     public Runnable getRunnable() {
         return runnable;
     }
+
+    public Supplier<CompletionStage<?>> getAsyncRunnable() {
+        return asyncRunnable;
+    }
 }
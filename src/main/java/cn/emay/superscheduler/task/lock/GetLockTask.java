@@ -1,12 +1,24 @@
 package cn.emay.superscheduler.task.lock;
 
 import cn.emay.superscheduler.SuperExecutor;
+import cn.emay.superscheduler.base.LockTable;
+import cn.emay.superscheduler.base.TaskLock;
+import cn.emay.superscheduler.cluster.ClusterView;
 import cn.emay.superscheduler.core.OnlyLockHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 /**
- * 竞争单点锁任务
+ * 竞争单节点锁任务<br/>
+ * 每轮批量续期已持有的锁、竞争未持有的锁、释放已注销的锁；<br/>
+ * 设置了集群成员管理时，每个节点竞争的锁不超过平均份额，一致性哈希归属本节点的锁优先竞争，使单节点任务分散到所有节点；<br/>
+ * 本地有效期从发起请求的时间开始计算，并提前一段时间过期，抵消时钟偏差和网络耗时
  */
 public class GetLockTask implements Runnable {
 
@@ -19,39 +31,132 @@ public class GetLockTask implements Runnable {
      * 当前节点标示
      */
     private final String nodeId;
-    /**
-     * 锁名称
-     */
-    private final String lockName;
     /**
      * 线程池
      */
     private final SuperExecutor executor;
+    /**
+     * 租约时间，单位秒
+     */
+    private final int leaseSeconds;
+    /**
+     * 本地有效期相对租约的提前量，单位纳秒
+     */
+    private final long guardNanos;
+    /**
+     * 竞争轮次，轮换未持有锁的竞争起点
+     */
+    private long round = 0L;
 
     /**
-     * @param lock     lock
-     * @param lockName 锁名称
-     * @param executor 线程池
+     * @param lock         lock
+     * @param nodeId       当前节点标示
+     * @param executor     线程池
+     * @param leaseSeconds 租约时间，单位秒
+     * @param guardMillis  本地有效期相对租约的提前量，单位毫秒
      */
-    public GetLockTask(OnlyLockHandler lock, String lockName, String nodeId, SuperExecutor executor) {
+    public GetLockTask(OnlyLockHandler lock, String nodeId, SuperExecutor executor, int leaseSeconds, long guardMillis) {
         this.lock = lock;
-        this.lockName = lockName;
         this.nodeId = nodeId;
         this.executor = executor;
+        this.leaseSeconds = leaseSeconds;
+        this.guardNanos = TimeUnit.MILLISECONDS.toNanos(guardMillis);
     }
 
     @Override
     public void run() {
-        if (lock.lock(lockName, nodeId, 60)) {
-            executor.setHasLock(true);
-            if (log.isDebugEnabled()) {
-                log.debug(nodeId + "抢占锁[" + lockName + "]成功");
+        LockTable table = executor.getLockTable();
+        List<String> released = table.drainReleased();
+        if (!released.isEmpty()) {
+            try {
+                lock.unLock(released, nodeId);
+            } catch (Throwable e) {
+                log.error(nodeId + "释放锁" + released + "报错", e);
+            }
+        }
+        List<TaskLock> locks = table.getAll();
+        if (locks.isEmpty()) {
+            return;
+        }
+        List<String> release = new ArrayList<>();
+        List<String> keys = selectKeys(locks, release);
+        if (!release.isEmpty()) {
+            try {
+                lock.unLock(release, nodeId);
+            } catch (Throwable e) {
+                log.error(nodeId + "释放锁" + release + "报错", e);
+            }
+        }
+        long requestNanos = System.nanoTime();
+        Map<String, Long> locked;
+        try {
+            locked = keys.isEmpty() ? Collections.emptyMap() : lock.lock(keys, nodeId, leaseSeconds);
+        } catch (Throwable e) {
+            // 竞争锁报错时无法确认是否持有，按未持有处理
+            log.error(nodeId + "抢占锁报错", e);
+            locked = Collections.emptyMap();
+        }
+        long deadlineNanos = requestNanos + TimeUnit.SECONDS.toNanos(leaseSeconds) - guardNanos;
+        for (TaskLock taskLock : locks) {
+            Long token = locked.get(taskLock.getKey());
+            boolean held = taskLock.isHeld();
+            if (!table.update(taskLock, token, deadlineNanos)) {
+                if (log.isDebugEnabled()) {
+                    log.debug(nodeId + "锁[" + taskLock.getKey() + "]竞争期间已注销" + (token != null ? "，下一轮释放" : ""));
+                }
+                continue;
             }
-        } else {
-            executor.setHasLock(false);
-            if (log.isDebugEnabled()) {
-                log.debug(nodeId + "抢占锁[" + lockName + "]失败");
+            if (log.isDebugEnabled() && (token != null) != held) {
+                log.debug(nodeId + (token != null ? "抢占锁[" : "失去锁[") + taskLock.getKey() + "]" + (token != null ? " token " + token : ""));
+            }
+        }
+    }
+
+    /**
+     * 选出本轮需要竞争的锁<br/>
+     * 一致性哈希归属本节点的锁全部竞争；不归属本节点的锁合计不超过平均份额，已持有的优先续期，<br/>
+     * 超出份额的已持有锁主动释放，交给新的归属节点；未持有的锁每轮轮换起点，避免总是竞争同一批
+     *
+     * @param locks   所有登记的锁
+     * @param release 需要主动释放的锁名称
+     * @return 锁名称
+     */
+    private List<String> selectKeys(List<TaskLock> locks, List<String> release) {
+        ClusterView view = executor.getClusterView();
+        if (view == null) {
+            List<String> keys = new ArrayList<>(locks.size());
+            locks.forEach(taskLock -> keys.add(taskLock.getKey()));
+            return keys;
+        }
+        int nodes = Math.max(1, view.getNodes().size());
+        int fairShare = (locks.size() + nodes - 1) / nodes;
+        List<String> keys = new ArrayList<>();
+        List<String> heldOthers = new ArrayList<>();
+        List<String> freeOthers = new ArrayList<>();
+        for (TaskLock taskLock : locks) {
+            if (view.isOwner(taskLock.getKey(), "")) {
+                keys.add(taskLock.getKey());
+            } else if (taskLock.isHeld()) {
+                heldOthers.add(taskLock.getKey());
+            } else {
+                freeOthers.add(taskLock.getKey());
+            }
+        }
+        Collections.sort(heldOthers);
+        for (String key : heldOthers) {
+            if (keys.size() < fairShare) {
+                keys.add(key);
+            } else {
+                release.add(key);
+            }
+        }
+        if (!freeOthers.isEmpty() && keys.size() < fairShare) {
+            Collections.sort(freeOthers);
+            int offset = (int) (round++ % freeOthers.size());
+            for (int i = 0; i < freeOthers.size() && keys.size() < fairShare; i++) {
+                keys.add(freeOthers.get((offset + i) % freeOthers.size()));
             }
         }
+        return keys;
     }
 }
@@ -0,0 +1,42 @@
+package cn.emay.superscheduler.task.lock;
+
+import cn.emay.superscheduler.SuperExecutor;
+import cn.emay.superscheduler.base.TaskLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 租约过期保护任务<br/>
+ * 竞争锁任务因存储卡顿、GC停顿等原因没有按时续期时，在租约失效之前挂起本节点的单节点任务，避免与新的持有者同时执行；<br/>
+ * 之后续期成功会立即恢复
+ */
+public class LeaseGuardTask implements Runnable {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /**
+     * 当前节点标示
+     */
+    private final String nodeId;
+    /**
+     * 线程池
+     */
+    private final SuperExecutor executor;
+
+    /**
+     * @param nodeId   当前节点标示
+     * @param executor 线程池
+     */
+    public LeaseGuardTask(String nodeId, SuperExecutor executor) {
+        this.nodeId = nodeId;
+        this.executor = executor;
+    }
+
+    @Override
+    public void run() {
+        for (TaskLock taskLock : executor.getLockTable().getAll()) {
+            if (taskLock.expire()) {
+                log.warn(nodeId + "锁[" + taskLock.getKey() + "]租约即将到期仍未续期成功，挂起本节点任务");
+            }
+        }
+    }
+}
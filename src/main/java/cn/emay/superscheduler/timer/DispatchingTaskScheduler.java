@@ -0,0 +1,447 @@
+package cn.emay.superscheduler.timer;
+
+import cn.emay.superscheduler.base.NamedTask;
+import cn.emay.superscheduler.base.OverloadPolicy;
+import cn.emay.superscheduler.base.OverloadStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+import org.springframework.scheduling.support.PeriodicTrigger;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.util.Date;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 触发与执行分离的线程池<br/>
+ * 计时器线程只负责到点触发，任务逻辑投递到工作执行器执行，执行完毕后再计算下次触发时间；<br/>
+ * 同一个任务同一时刻只会有一次执行，固定间隔、固定频率、cron以及动态触发器的语义与spring保持一致<br/>
+ * 工作执行器排队已满时按过载策略处理，并按任务名计数
+ */
+public class DispatchingTaskScheduler implements TaskScheduler {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /**
+     * 计时器
+     */
+    private final TaskScheduler timer;
+    /**
+     * 未命名任务的统计名称
+     */
+    private static final String UNNAMED = "_UNNAMED_";
+    /**
+     * 工作执行器
+     */
+    private final Executor worker;
+    /**
+     * 工作执行器的排队，DROP_OLDEST策略使用
+     */
+    private final BlockingQueue<Runnable> workerQueue;
+    /**
+     * 过载策略
+     */
+    private final OverloadPolicy overloadPolicy;
+    /**
+     * 过载统计
+     */
+    private final OverloadStatistics overloadStatistics;
+    /**
+     * 任务名+分片 -> 排队中的执行数，COALESCE策略使用
+     */
+    private final ConcurrentHashMap<String, AtomicInteger> pendingCounts = new ConcurrentHashMap<>();
+
+    /**
+     * @param timer  计时器
+     * @param worker 工作执行器
+     */
+    public DispatchingTaskScheduler(TaskScheduler timer, Executor worker) {
+        this(timer, worker, OverloadPolicy.DISCARD, new OverloadStatistics());
+    }
+
+    /**
+     * @param timer              计时器
+     * @param worker             工作执行器，排队已满时需要抛出RejectedExecutionException
+     * @param overloadPolicy     过载策略
+     * @param overloadStatistics 过载统计
+     */
+    public DispatchingTaskScheduler(TaskScheduler timer, Executor worker, OverloadPolicy overloadPolicy, OverloadStatistics overloadStatistics) {
+        this.timer = timer;
+        this.worker = worker;
+        this.overloadPolicy = overloadPolicy;
+        this.overloadStatistics = overloadStatistics;
+        if (worker instanceof ThreadPoolTaskExecutor) {
+            this.workerQueue = ((ThreadPoolTaskExecutor) worker).getThreadPoolExecutor().getQueue();
+        } else if (worker instanceof ThreadPoolExecutor) {
+            this.workerQueue = ((ThreadPoolExecutor) worker).getQueue();
+        } else {
+            this.workerQueue = null;
+        }
+    }
+
+    public TaskScheduler getTimer() {
+        return timer;
+    }
+
+    public Executor getWorker() {
+        return worker;
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> schedule(@NonNull Runnable task, @NonNull Trigger trigger) {
+        return new DispatchedTask(task, trigger).start();
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> schedule(@NonNull Runnable task, @NonNull Date startTime) {
+        return new DispatchedTask(task, new OnceTrigger(startTime)).start();
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> scheduleAtFixedRate(@NonNull Runnable task, @NonNull Date startTime, long period) {
+        return new DispatchedTask(task, periodic(startTime, period, true)).start();
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> scheduleAtFixedRate(@NonNull Runnable task, long period) {
+        return new DispatchedTask(task, periodic(null, period, true)).start();
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> scheduleWithFixedDelay(@NonNull Runnable task, @NonNull Date startTime, long delay) {
+        return new DispatchedTask(task, periodic(startTime, delay, false)).start();
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> scheduleWithFixedDelay(@NonNull Runnable task, long delay) {
+        return new DispatchedTask(task, periodic(null, delay, false)).start();
+    }
+
+    /**
+     * 生成周期触发器
+     *
+     * @param startTime 首次执行时间
+     * @param period    周期
+     * @param fixedRate 是否固定频率
+     * @return 触发器
+     */
+    private static PeriodicTrigger periodic(Date startTime, long period, boolean fixedRate) {
+        PeriodicTrigger trigger = new PeriodicTrigger(period, TimeUnit.MILLISECONDS);
+        trigger.setFixedRate(fixedRate);
+        if (startTime != null) {
+            trigger.setInitialDelay(Math.max(0L, startTime.getTime() - System.currentTimeMillis()));
+        }
+        return trigger;
+    }
+
+    /**
+     * 只触发一次的触发器
+     */
+    private static class OnceTrigger implements Trigger {
+
+        private final Date startTime;
+
+        private OnceTrigger(Date startTime) {
+            this.startTime = startTime;
+        }
+
+        @Override
+        public Date nextExecutionTime(@NonNull TriggerContext triggerContext) {
+            return triggerContext.lastScheduledExecutionTime() == null ? startTime : null;
+        }
+    }
+
+    /**
+     * 被分发的任务<br/>
+     * 计时器触发run()，run()把执行逻辑投递给工作执行器，执行完毕后按触发器重新注册到计时器
+     */
+    private class DispatchedTask implements ScheduledFuture<Object>, Runnable {
+
+        /**
+         * 执行逻辑
+         */
+        private final Runnable task;
+        /**
+         * 触发器
+         */
+        private final Trigger trigger;
+        /**
+         * 触发器上下文
+         */
+        private final SimpleTriggerContext triggerContext = new SimpleTriggerContext();
+        /**
+         * 投递给工作执行器的执行
+         */
+        private final Execution execution = new Execution();
+        /**
+         * 过载统计
+         */
+        private final OverloadStatistics.TaskOverload overload;
+        /**
+         * 同一任务同一分片排队中的执行数，仅COALESCE策略存在
+         */
+        private final AtomicInteger pendingCount;
+        /**
+         * 计划执行时间
+         */
+        private volatile Date scheduledExecutionTime;
+        /**
+         * 计时器中的句柄
+         */
+        private volatile ScheduledFuture<?> timerFuture;
+        /**
+         * 执行线程
+         */
+        private volatile Thread runner;
+        /**
+         * 是否取消
+         */
+        private volatile boolean cancelled = false;
+        /**
+         * 是否结束
+         */
+        private volatile boolean done = false;
+
+        private DispatchedTask(Runnable task, Trigger trigger) {
+            this.task = task;
+            this.trigger = trigger;
+            String name = UNNAMED;
+            String sharded = "";
+            if (task instanceof NamedTask) {
+                name = ((NamedTask) task).getName();
+                sharded = ((NamedTask) task).getSharded();
+            }
+            this.overload = overloadStatistics.get(name);
+            this.pendingCount = overloadPolicy == OverloadPolicy.COALESCE ? pendingCounts.computeIfAbsent(name + "-" + sharded, k -> new AtomicInteger()) : null;
+        }
+
+        /**
+         * 计算下次执行时间并注册到计时器
+         */
+        private DispatchedTask start() {
+            Date next = trigger.nextExecutionTime(triggerContext);
+            if (next == null) {
+                finish();
+                return this;
+            }
+            scheduledExecutionTime = next;
+            timerFuture = timer.schedule(this, next);
+            if (cancelled) {
+                timerFuture.cancel(false);
+            }
+            return this;
+        }
+
+        /**
+         * 计时器线程触发，投递到工作执行器
+         */
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            if (pendingCount != null && pendingCount.get() > 0) {
+                // 同一分片已有排队中的执行，合并
+                overload.coalesced();
+                afterExecute(new Date());
+                return;
+            }
+            if (pendingCount != null) {
+                pendingCount.incrementAndGet();
+            }
+            try {
+                worker.execute(execution);
+            } catch (RejectedExecutionException e) {
+                if (pendingCount != null) {
+                    pendingCount.decrementAndGet();
+                }
+                overloaded();
+            }
+        }
+
+        /**
+         * 工作执行器排队已满，按过载策略处理
+         */
+        private void overloaded() {
+            switch (overloadPolicy) {
+                case CALLER_RUNS:
+                    overload.callerRuns();
+                    execute();
+                    return;
+                case DROP_OLDEST:
+                    if (workerQueue != null) {
+                        Runnable oldest = workerQueue.poll();
+                        if (oldest instanceof Execution) {
+                            ((Execution) oldest).drop();
+                        }
+                        try {
+                            worker.execute(execution);
+                            return;
+                        } catch (RejectedExecutionException ignored) {
+                            // 仍然被拒绝则丢弃本次
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+            overload.rejected();
+            if (log.isDebugEnabled()) {
+                log.debug("任务" + overload.getName() + "执行排队已满，本次跳过");
+            }
+            afterExecute(new Date());
+        }
+
+        /**
+         * 工作线程执行
+         */
+        private void execute() {
+            if (cancelled) {
+                return;
+            }
+            Date actualExecutionTime = new Date();
+            runner = Thread.currentThread();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("任务执行异常", e);
+            } finally {
+                runner = null;
+            }
+            afterExecute(actualExecutionTime);
+        }
+
+        /**
+         * 投递给工作执行器的执行
+         */
+        private class Execution implements Runnable {
+
+            @Override
+            public void run() {
+                if (pendingCount != null) {
+                    pendingCount.decrementAndGet();
+                }
+                execute();
+            }
+
+            /**
+             * 被挤出排队，跳过本次并计算下次执行
+             */
+            private void drop() {
+                if (pendingCount != null) {
+                    pendingCount.decrementAndGet();
+                }
+                overload.droppedOldest();
+                afterExecute(new Date());
+            }
+        }
+
+        /**
+         * 执行完毕，计算下次执行
+         */
+        private void afterExecute(Date actualExecutionTime) {
+            if (cancelled) {
+                return;
+            }
+            triggerContext.update(scheduledExecutionTime, actualExecutionTime, new Date());
+            try {
+                start();
+            } catch (RejectedExecutionException e) {
+                // 计时器已经停止
+                finish();
+            }
+        }
+
+        private void finish() {
+            synchronized (this) {
+                done = true;
+                notifyAll();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (cancelled || done) {
+                return false;
+            }
+            cancelled = true;
+            ScheduledFuture<?> future = timerFuture;
+            if (future != null) {
+                future.cancel(false);
+            }
+            Thread thread = runner;
+            if (mayInterruptIfRunning && thread != null) {
+                thread.interrupt();
+            }
+            finish();
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public Object get() throws InterruptedException {
+            synchronized (this) {
+                while (!done) {
+                    wait();
+                }
+            }
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, @NonNull TimeUnit unit) throws InterruptedException, TimeoutException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (this) {
+                while (!done) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L) {
+                        throw new TimeoutException();
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            return null;
+        }
+
+        @Override
+        public long getDelay(@NonNull TimeUnit unit) {
+            Date next = scheduledExecutionTime;
+            long delay = next == null ? 0L : next.getTime() - System.currentTimeMillis();
+            return unit.convert(delay, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(@NonNull Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+
+}
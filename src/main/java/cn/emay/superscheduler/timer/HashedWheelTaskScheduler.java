@@ -0,0 +1,556 @@
+package cn.emay.superscheduler.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ExecutorConfigurationSupport;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 分层时间轮线程池<br/>
+ * 单个计时线程按刻度推进多层时间轮，只把到期的任务投递给工作线程池执行；<br/>
+ * 新增、重新调度、取消都通过无锁队列交给计时线程处理，复杂度O(1)，不在延时队列的锁上竞争<br/>
+ * 执行时间精度为一个刻度
+ */
+public class HashedWheelTaskScheduler extends ExecutorConfigurationSupport implements TaskScheduler {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    /**
+     * 每层时间轮槽位数的位数
+     */
+    private static final int WHEEL_BITS = 9;
+    /**
+     * 每层时间轮槽位数
+     */
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    /**
+     * 槽位掩码
+     */
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    /**
+     * 时间轮层数，刻度10毫秒时可覆盖约21年
+     */
+    private static final int LEVELS = 4;
+    /**
+     * 工作线程数
+     */
+    private int poolSize = 1;
+    /**
+     * 刻度，单位毫秒
+     */
+    private long tickMillis = 10L;
+    /**
+     * 刻度，单位纳秒
+     */
+    private long tickNanos;
+    /**
+     * 时间轮起始时间
+     */
+    private long startNanos;
+    /**
+     * 工作线程池
+     */
+    private volatile ExecutorService workerPool;
+    /**
+     * 计时线程
+     */
+    private Thread tickerThread;
+    /**
+     * 是否运行中
+     */
+    private volatile boolean running = false;
+    /**
+     * 等待放入时间轮的任务
+     */
+    private final Queue<WheelTimeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    /**
+     * 等待从时间轮移除的已取消任务
+     */
+    private final Queue<WheelTimeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    /**
+     * 时间轮，仅计时线程访问
+     */
+    private final Bucket[][] wheels = new Bucket[LEVELS][WHEEL_SIZE];
+    /**
+     * 当前刻度，仅计时线程访问
+     */
+    private long currentTick = 0L;
+
+    public HashedWheelTaskScheduler() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheels[level][i] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * 工作线程数
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = Math.max(1, poolSize);
+    }
+
+    /**
+     * 刻度，单位毫秒
+     */
+    public void setTickMillis(long tickMillis) {
+        this.tickMillis = Math.max(1L, tickMillis);
+    }
+
+    @Override
+    @NonNull
+    protected ExecutorService initializeExecutor(@NonNull ThreadFactory threadFactory, @NonNull RejectedExecutionHandler rejectedExecutionHandler) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.workerPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory, rejectedExecutionHandler);
+        this.startNanos = System.nanoTime();
+        this.running = true;
+        this.tickerThread = new Thread(this::runTicker, getThreadNamePrefix() + "wheel");
+        this.tickerThread.setDaemon(true);
+        this.tickerThread.start();
+        return workerPool;
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        if (tickerThread != null) {
+            LockSupport.unpark(tickerThread);
+        }
+        super.shutdown();
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> schedule(@NonNull Runnable task, @NonNull Trigger trigger) {
+        WheelTimeout timeout = new WheelTimeout(task, trigger, 0L);
+        return timeout.scheduleNext(null) ? timeout : timeout.finish();
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> schedule(@NonNull Runnable task, @NonNull Date startTime) {
+        WheelTimeout timeout = new WheelTimeout(task, null, 0L);
+        return submit(timeout, delayNanos(startTime));
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> scheduleAtFixedRate(@NonNull Runnable task, @NonNull Date startTime, long period) {
+        WheelTimeout timeout = new WheelTimeout(task, null, TimeUnit.MILLISECONDS.toNanos(period));
+        return submit(timeout, delayNanos(startTime));
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> scheduleAtFixedRate(@NonNull Runnable task, long period) {
+        WheelTimeout timeout = new WheelTimeout(task, null, TimeUnit.MILLISECONDS.toNanos(period));
+        return submit(timeout, 0L);
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> scheduleWithFixedDelay(@NonNull Runnable task, @NonNull Date startTime, long delay) {
+        WheelTimeout timeout = new WheelTimeout(task, null, -TimeUnit.MILLISECONDS.toNanos(delay));
+        return submit(timeout, delayNanos(startTime));
+    }
+
+    @Override
+    @NonNull
+    public ScheduledFuture<?> scheduleWithFixedDelay(@NonNull Runnable task, long delay) {
+        WheelTimeout timeout = new WheelTimeout(task, null, -TimeUnit.MILLISECONDS.toNanos(delay));
+        return submit(timeout, 0L);
+    }
+
+    /**
+     * 距离指定时间的纳秒数
+     */
+    private static long delayNanos(Date time) {
+        return TimeUnit.MILLISECONDS.toNanos(time.getTime() - System.currentTimeMillis());
+    }
+
+    /**
+     * 提交任务，到期的直接交给工作线程，未到期的交给计时线程放入时间轮
+     *
+     * @param timeout    任务
+     * @param delayNanos 延时
+     * @return 任务
+     */
+    private WheelTimeout submit(WheelTimeout timeout, long delayNanos) {
+        timeout.deadlineNanos = System.nanoTime() + delayNanos;
+        if (delayNanos <= 0L) {
+            dispatch(timeout);
+        } else {
+            pendingTimeouts.offer(timeout);
+        }
+        return timeout;
+    }
+
+    /**
+     * 投递到工作线程池
+     */
+    private void dispatch(WheelTimeout timeout) {
+        ExecutorService pool = this.workerPool;
+        if (pool == null || !running) {
+            return;
+        }
+        try {
+            pool.execute(timeout);
+        } catch (RejectedExecutionException e) {
+            log.warn("时间轮投递任务被拒绝", e);
+        }
+    }
+
+    /**
+     * 计时线程主循环
+     */
+    private void runTicker() {
+        while (running) {
+            long sleepNanos = startNanos + (currentTick + 1L) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0L) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+            currentTick++;
+            try {
+                processCancelled();
+                transferPending();
+                cascade();
+                expire(wheels[0][(int) (currentTick & WHEEL_MASK)]);
+            } catch (Throwable e) {
+                log.error("时间轮推进异常", e);
+            }
+        }
+    }
+
+    /**
+     * 从时间轮移除已取消的任务
+     */
+    private void processCancelled() {
+        WheelTimeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * 把新提交的任务放入时间轮
+     */
+    private void transferPending() {
+        WheelTimeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long deadlineNanos = timeout.deadlineNanos - startNanos;
+            timeout.deadlineTick = deadlineNanos <= 0L ? currentTick : (deadlineNanos + tickNanos - 1L) / tickNanos;
+            place(timeout);
+        }
+    }
+
+    /**
+     * 高层时间轮转到新槽位时，把槽位中的任务重新分配到低层
+     */
+    private void cascade() {
+        int top = 0;
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1L)) != 0L) {
+                break;
+            }
+            top = level;
+        }
+        for (int level = top; level >= 1; level--) {
+            Bucket bucket = wheels[level][(int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+            WheelTimeout timeout;
+            while ((timeout = bucket.poll()) != null) {
+                place(timeout);
+            }
+        }
+    }
+
+    /**
+     * 执行当前刻度到期的任务
+     */
+    private void expire(Bucket bucket) {
+        WheelTimeout timeout;
+        while ((timeout = bucket.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            if (timeout.deadlineTick > currentTick) {
+                place(timeout);
+            } else {
+                dispatch(timeout);
+            }
+        }
+    }
+
+    /**
+     * 按到期刻度放入对应层的槽位<br/>
+     * 选择与当前刻度高位相同的最低一层，超出范围的放在顶层最远的槽位，届时重新计算
+     */
+    private void place(WheelTimeout timeout) {
+        long deadlineTick = timeout.deadlineTick;
+        if (deadlineTick <= currentTick) {
+            dispatch(timeout);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * (level + 1);
+            if ((deadlineTick >>> shift) == (currentTick >>> shift)) {
+                wheels[level][(int) ((deadlineTick >>> (WHEEL_BITS * level)) & WHEEL_MASK)].add(timeout);
+                return;
+            }
+        }
+        int topShift = WHEEL_BITS * (LEVELS - 1);
+        wheels[LEVELS - 1][(int) (((currentTick >>> topShift) - 1L) & WHEEL_MASK)].add(timeout);
+    }
+
+    /**
+     * 时间轮槽位，双向链表，仅计时线程访问
+     */
+    private static class Bucket {
+
+        private WheelTimeout head;
+
+        private void add(WheelTimeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        private void remove(WheelTimeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        private WheelTimeout poll() {
+            WheelTimeout timeout = head;
+            if (timeout != null) {
+                remove(timeout);
+            }
+            return timeout;
+        }
+    }
+
+    /**
+     * 时间轮中的任务<br/>
+     * period大于0为固定频率，小于0为固定间隔，等于0为一次性或触发器任务
+     */
+    private final class WheelTimeout implements ScheduledFuture<Object>, Runnable {
+
+        /**
+         * 执行逻辑
+         */
+        private final Runnable task;
+        /**
+         * 触发器
+         */
+        private final Trigger trigger;
+        /**
+         * 周期，单位纳秒
+         */
+        private final long period;
+        /**
+         * 触发器上下文
+         */
+        private final SimpleTriggerContext triggerContext = new SimpleTriggerContext();
+        /**
+         * 触发器计算出的计划执行时间
+         */
+        private Date scheduledExecutionTime;
+        /**
+         * 到期时间
+         */
+        private volatile long deadlineNanos;
+        /**
+         * 到期刻度，仅计时线程访问
+         */
+        private long deadlineTick;
+        /**
+         * 所在槽位及链表指针，仅计时线程访问
+         */
+        private Bucket bucket;
+        private WheelTimeout prev;
+        private WheelTimeout next;
+        /**
+         * 执行线程
+         */
+        private volatile Thread runner;
+        /**
+         * 是否取消
+         */
+        private volatile boolean cancelled = false;
+        /**
+         * 是否结束
+         */
+        private volatile boolean done = false;
+
+        private WheelTimeout(Runnable task, Trigger trigger, long period) {
+            this.task = task;
+            this.trigger = trigger;
+            this.period = period;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            Date actualExecutionTime = trigger == null ? null : new Date();
+            runner = Thread.currentThread();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("时间轮任务执行异常", e);
+            } finally {
+                runner = null;
+            }
+            if (cancelled) {
+                return;
+            }
+            if (trigger != null) {
+                if (!scheduleNext(actualExecutionTime)) {
+                    finish();
+                }
+            } else if (period > 0L) {
+                deadlineNanos += period;
+                resubmit();
+            } else if (period < 0L) {
+                deadlineNanos = System.nanoTime() - period;
+                resubmit();
+            } else {
+                finish();
+            }
+        }
+
+        /**
+         * 根据触发器计算并提交下次执行
+         *
+         * @param actualExecutionTime 本次实际执行时间，首次为null
+         * @return 是否还有下次执行
+         */
+        private boolean scheduleNext(Date actualExecutionTime) {
+            if (actualExecutionTime != null) {
+                triggerContext.update(scheduledExecutionTime, actualExecutionTime, new Date());
+            }
+            Date next = trigger.nextExecutionTime(triggerContext);
+            if (next == null) {
+                return false;
+            }
+            scheduledExecutionTime = next;
+            submit(this, delayNanos(next));
+            return true;
+        }
+
+        private void resubmit() {
+            if (deadlineNanos - System.nanoTime() <= 0L) {
+                dispatch(this);
+            } else {
+                pendingTimeouts.offer(this);
+            }
+        }
+
+        private WheelTimeout finish() {
+            synchronized (this) {
+                done = true;
+                notifyAll();
+            }
+            return this;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (cancelled || done) {
+                return false;
+            }
+            cancelled = true;
+            cancelledTimeouts.offer(this);
+            Thread thread = runner;
+            if (mayInterruptIfRunning && thread != null) {
+                thread.interrupt();
+            }
+            finish();
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public Object get() throws InterruptedException {
+            synchronized (this) {
+                while (!done) {
+                    wait();
+                }
+            }
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, @NonNull TimeUnit unit) throws InterruptedException, TimeoutException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (this) {
+                while (!done) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L) {
+                        throw new TimeoutException();
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            return null;
+        }
+
+        @Override
+        public long getDelay(@NonNull TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(@NonNull Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package cn.emay.superscheduler.timer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程执行器工具<br/>
+ * 编译目标为JDK8，通过MethodHandle在运行时查找JDK21的虚拟线程API，低版本JDK不受影响
+ */
+public class VirtualThreadExecutors {
+
+    /**
+     * Thread.ofVirtual()
+     */
+    private static final MethodHandle OF_VIRTUAL;
+    /**
+     * Thread.Builder.name(String, long)
+     */
+    private static final MethodHandle NAME;
+    /**
+     * Thread.Builder.factory()
+     */
+    private static final MethodHandle FACTORY;
+    /**
+     * Executors.newThreadPerTaskExecutor(ThreadFactory)
+     */
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle newThreadPerTaskExecutor = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderClass));
+            name = lookup.findVirtual(virtualBuilderClass, "name", MethodType.methodType(virtualBuilderClass, String.class, long.class));
+            factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            newThreadPerTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException ignored) {
+            // JDK21以下不支持虚拟线程
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    /**
+     * 当前JDK是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     *
+     * @param threadNamePrefix 线程名前缀
+     * @return 执行器
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String threadNamePrefix) {
+        if (!isSupported()) {
+            throw new IllegalArgumentException("当前JDK[" + System.getProperty("java.version") + "]不支持虚拟线程，需要JDK21及以上");
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke();
+            builder = NAME.invoke(builder, threadNamePrefix, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(threadFactory);
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("创建虚拟线程执行器失败", e);
+        }
+    }
+
+}
@@ -1,9 +1,12 @@
 package cn.emay.superscheduler;
 
 
+import cn.emay.superscheduler.core.AdaptiveType;
+import cn.emay.superscheduler.core.CappingType;
 import cn.emay.superscheduler.core.ConcurrentComputer;
 import cn.emay.superscheduler.core.SimpleConcurrentComputer;
 import cn.emay.superscheduler.core.SuperScheduled;
+import cn.emay.superscheduler.core.TaskResult;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 
@@ -12,6 +15,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -41,9 +45,9 @@ public class SpringTaskTest {
     }
 
     /**
-     * 2. 固定频率执行,并发2
+     * 2. 固定频率执行,并发2,两个执行单元在一个周期内错开执行
      */
-    @SuperScheduled(initialDelay = 1000L, fixedRate = 1000L, fixedConcurrent = 2)
+    @SuperScheduled(initialDelay = 1000L, fixedRate = 1000L, fixedConcurrent = 2, startSpread = 0L)
     public void t2() {
         String now = toString(new Date(), "HH:mm:ss");
         System.out.println(now + " : " + Thread.currentThread().getName() + " : 开始执行");
@@ -53,9 +57,9 @@ public class SpringTaskTest {
     }
 
     /**
-     * 3. cron执行,并发1,集群单节点执行
+     * 3. cron执行,并发1,在独占的舱壁线程池中执行
      */
-    @SuperScheduled(cron = "0/3 * * * * ?")
+    @SuperScheduled(cron = "0/3 * * * * ?", bulkheadSize = 1)
     public void t3() {
         String now = toString(new Date(), "HH:mm:ss");
         System.out.println(now + " : " + Thread.currentThread().getName() + " : 开始执行");
@@ -107,10 +111,11 @@ public class SpringTaskTest {
 
     /**
      * 7. 分片并发<br/>
+     * 所需并发数之和超过dynamicConcurrentMax时按比例截断<br/>
      *
      * @param sharded 分片
      */
-    @SuperScheduled(fixedDelay = 2000L, dynamicConcurrentComputeDelay = 10000L, dynamicConcurrentComputeBean = "t7ComputeBean", dynamicConcurrentMax = 4)
+    @SuperScheduled(fixedDelay = 2000L, dynamicConcurrentComputeDelay = 10000L, dynamicConcurrentComputeBean = "t7ComputeBean", dynamicConcurrentMax = 4, dynamicConcurrentCapping = CappingType.PROPORTIONAL)
     public void t7(String sharded) {
         String now = toString(new Date(), "HH:mm:ss");
         System.out.println(now + " : " + Thread.currentThread().getName() + " : 开始执行 by分片 " + sharded);
@@ -166,6 +171,42 @@ public class SpringTaskTest {
         };
     }
 
+    /**
+     * 8. 动态间隔时间执行,自适应并发<br/>
+     * 返回0表示还有数据待处理，自适应算法据此以及执行耗时自动调整并发数，无需编写计算Bean
+     */
+    @SuperScheduled(dynamicDelay = true, dynamicConcurrentComputeDelay = 5000L, dynamicConcurrentAdaptive = AdaptiveType.AIMD, dynamicConcurrentMax = 8)
+    public long t8() {
+        testLongTime(100L);
+        boolean hasMore = new Random().nextInt(10) < 7;
+        return hasMore ? 0L : 1000L;
+    }
+
+    /**
+     * 9. 批处理,动态并发<br/>
+     * 返回本批处理数量和剩余积压量，有积压时立即连续执行，批量大小按耗时自动调整，积压量用于自适应并发
+     *
+     * @param batchSize 批量大小
+     */
+    @SuperScheduled(dynamicDelay = true, dynamicConcurrentComputeDelay = 5000L, dynamicConcurrentAdaptive = AdaptiveType.AIMD, dynamicConcurrentMax = 4, batchSize = 10, batchTargetMillis = 200L)
+    public TaskResult t9(int batchSize) {
+        int processed = Math.min(batchSize, QUEUE.get());
+        QUEUE.addAndGet(-processed);
+        testLongTime(processed);
+        return TaskResult.of(processed, QUEUE.get());
+    }
+
+    static AtomicInteger QUEUE = new AtomicInteger(10000);
+
+    /**
+     * 10. 异步任务,固定间隔<br/>
+     * 发起调用后立即释放线程，返回的CompletableFuture完成后才开始计算间隔，10个执行单元同时在途
+     */
+    @SuperScheduled(fixedDelay = 1000L, fixedConcurrent = 10)
+    public CompletableFuture<Void> t10() {
+        return CompletableFuture.runAsync(() -> testLongTime(3000L));
+    }
+
     /**
      * 模拟长事务<br/>
      */
@@ -1,12 +1,21 @@
 package cn.emay.superscheduler;
 
+import cn.emay.superscheduler.base.ExecuteMode;
+import cn.emay.superscheduler.base.OverloadPolicy;
+import cn.emay.superscheduler.base.TimerType;
 import cn.emay.superscheduler.core.OnlyLockHandler;
+import cn.emay.superscheduler.lock.FileOnlyLockHandler;
+import cn.emay.superscheduler.lock.RedisOnlyLockHandler;
+import cn.emay.superscheduler.metrics.DefaultSchedulerMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
 
-import javax.annotation.Resource;
+import java.nio.file.Paths;
 
 /**
  * super scheduler 配置单元<br/>
@@ -32,55 +41,75 @@ public class SuperSchedulerConfiguration {
      * 单节点锁名字
      */
     private String onlyLockName;
+    /**
+     * 计时器类型
+     */
+    private TimerType timerType;
+    /**
+     * 时间轮刻度
+     */
+    private long wheelTickMillis;
+    /**
+     * 执行模式
+     */
+    private ExecuteMode executeMode;
+    /**
+     * 过载策略
+     */
+    private OverloadPolicy overloadPolicy;
+    /**
+     * 舱壁线程池排队容量
+     */
+    private int bulkheadQueueCapacity;
+    /**
+     * 单节点锁租约时间
+     */
+    private int onlyLockLeaseSeconds;
+    /**
+     * 单节点锁续期间隔
+     */
+    private long onlyLockRenewMillis;
+    /**
+     * 单节点锁本地提前过期时间
+     */
+    private long onlyLockGuardMillis;
+    /**
+     * 单节点锁使用的redis地址，不配置时使用本机文件锁
+     */
+    private String redisHost;
+    /**
+     * 单节点锁使用的redis端口
+     */
+    private int redisPort = 6379;
 
     @Bean("SuperScheduler1")
-    public SuperScheduler superScheduler() {
-        return new SuperScheduler(poolSize, threadNamePrefix, awaitTerminationSeconds, onlyLockName, genOnlyLock());
+    public SuperScheduler superScheduler(OnlyLockHandler onlyLockHandler) {
+        SuperScheduler superScheduler = new SuperScheduler(poolSize, threadNamePrefix, awaitTerminationSeconds, onlyLockName, onlyLockHandler);
+        superScheduler.setTimerType(timerType);
+        superScheduler.setWheelTickMillis(wheelTickMillis);
+        superScheduler.setExecuteMode(executeMode);
+        superScheduler.setOverloadPolicy(overloadPolicy);
+        superScheduler.setBulkheadQueueCapacity(bulkheadQueueCapacity);
+        superScheduler.setOnlyLockLeaseSeconds(onlyLockLeaseSeconds);
+        superScheduler.setOnlyLockRenewMillis(onlyLockRenewMillis);
+        superScheduler.setOnlyLockGuardMillis(onlyLockGuardMillis);
+        superScheduler.setMetrics(new DefaultSchedulerMetrics());
+        return superScheduler;
     }
 
     @Bean
-    public OnlyLockHandler genOnlyLock() {
-        return new OnlyLockHandler() {
-
-            @Resource(name = "Jedis")
-            private Jedis redis;
-
-            private static final String KEY = "KV_TASK_LOCK_APPLY_";
-
-            @Override
-            public boolean lock(String onlyLockName, String nodeId, int seconds) {
-                String key = KEY + onlyLockName;
-                String currentNodeId = redis.get(key);
-                if (currentNodeId == null) {
-                    long nu = redis.setnx(key, nodeId);
-                    if (nu > 0) {
-                        redis.expire(key, seconds);
-                        return true;
-                    } else {
-                        return false;
-                    }
-                } else {
-                    if (currentNodeId.equals(nodeId)) {
-                        redis.expire(key, seconds);
-                        return true;
-                    } else {
-                        return false;
-                    }
-                }
-            }
-
-            @Override
-            public void unLock(String onlyLockName, String nodeId) {
-                String key = KEY + onlyLockName;
-                redis.del(key);
-            }
-
-        };
-    }
-
-    @Bean(name = "Jedis", destroyMethod = "close")
-    public Jedis redisClient() {
-        return new Jedis("100.100.10.84", 6400);
+    public OnlyLockHandler genOnlyLock(ObjectProvider<JedisPool> redisPool) {
+        JedisPool pool = redisPool.getIfAvailable();
+        if (pool == null) {
+            return new FileOnlyLockHandler(Paths.get(System.getProperty("java.io.tmpdir"), "super-scheduler-lock"));
+        }
+        return new RedisOnlyLockHandler(pool);
+    }
+
+    @Bean(name = "JedisPool", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "scheduler", name = "redisHost")
+    public JedisPool redisPool() {
+        return new JedisPool(new JedisPoolConfig(), redisHost, redisPort);
     }
 
     public int getPoolSize() {
@@ -115,5 +144,85 @@ public class SuperSchedulerConfiguration {
         this.onlyLockName = onlyLockName;
     }
 
+    public TimerType getTimerType() {
+        return timerType;
+    }
+
+    public void setTimerType(TimerType timerType) {
+        this.timerType = timerType;
+    }
+
+    public long getWheelTickMillis() {
+        return wheelTickMillis;
+    }
+
+    public void setWheelTickMillis(long wheelTickMillis) {
+        this.wheelTickMillis = wheelTickMillis;
+    }
+
+    public ExecuteMode getExecuteMode() {
+        return executeMode;
+    }
+
+    public void setExecuteMode(ExecuteMode executeMode) {
+        this.executeMode = executeMode;
+    }
+
+    public OverloadPolicy getOverloadPolicy() {
+        return overloadPolicy;
+    }
+
+    public void setOverloadPolicy(OverloadPolicy overloadPolicy) {
+        this.overloadPolicy = overloadPolicy;
+    }
+
+    public int getBulkheadQueueCapacity() {
+        return bulkheadQueueCapacity;
+    }
+
+    public void setBulkheadQueueCapacity(int bulkheadQueueCapacity) {
+        this.bulkheadQueueCapacity = bulkheadQueueCapacity;
+    }
+
+    public int getOnlyLockLeaseSeconds() {
+        return onlyLockLeaseSeconds;
+    }
+
+    public void setOnlyLockLeaseSeconds(int onlyLockLeaseSeconds) {
+        this.onlyLockLeaseSeconds = onlyLockLeaseSeconds;
+    }
+
+    public long getOnlyLockRenewMillis() {
+        return onlyLockRenewMillis;
+    }
+
+    public void setOnlyLockRenewMillis(long onlyLockRenewMillis) {
+        this.onlyLockRenewMillis = onlyLockRenewMillis;
+    }
+
+    public long getOnlyLockGuardMillis() {
+        return onlyLockGuardMillis;
+    }
+
+    public void setOnlyLockGuardMillis(long onlyLockGuardMillis) {
+        this.onlyLockGuardMillis = onlyLockGuardMillis;
+    }
+
+    public String getRedisHost() {
+        return redisHost;
+    }
+
+    public void setRedisHost(String redisHost) {
+        this.redisHost = redisHost;
+    }
+
+    public int getRedisPort() {
+        return redisPort;
+    }
+
+    public void setRedisPort(int redisPort) {
+        this.redisPort = redisPort;
+    }
+
 
 }
@@ -0,0 +1,146 @@
+package cn.emay.superscheduler;
+
+import cn.emay.superscheduler.base.TaskControl;
+import cn.emay.superscheduler.core.SuperScheduled;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 属性覆盖任务参数：只能覆盖注解中已经使用的执行方式和并发方式
+ */
+public class SuperSchedulerOverrideTest {
+
+    private static final String PREFIX = "tasks";
+
+    private final Map<String, Object> properties = new HashMap<>();
+    private SuperScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("overrides", properties));
+        scheduler = new SuperScheduler(2, "override-test-", 1, null, null);
+        scheduler.setOverridePrefix(PREFIX);
+        scheduler.setApplicationContext(context);
+        scheduler.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.stop();
+    }
+
+    private void load() {
+        scheduler.postProcessAfterInitialization(new Tasks(), "tasks");
+    }
+
+    private TaskControl control(String method) {
+        for (TaskControl control : scheduler.getTaskControls().values()) {
+            if (control.getName().endsWith(":" + method + "]")) {
+                return control;
+            }
+        }
+        throw new AssertionError(method);
+    }
+
+    private void assertRejected(String key) {
+        try {
+            load();
+            fail(key);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(PREFIX + "." + key));
+        }
+    }
+
+    @Test
+    public void overrideMatchingModes() {
+        properties.put(PREFIX + ".Tasks.delay.fixedDelay", "3000");
+        properties.put(PREFIX + ".Tasks.rate.fixedRate", "4000");
+        properties.put(PREFIX + ".Tasks.cron.cron", "0 0 1 * * ?");
+        properties.put(PREFIX + ".Tasks.delay.fixedConcurrent", "3");
+        properties.put(PREFIX + ".Tasks.rate.paused", "true");
+        load();
+        assertEquals(3000L, control("delay").getPeriod(1000L));
+        assertEquals(3, control("delay").getFixedConcurrent());
+        assertEquals(4000L, control("rate").getPeriod(1000L));
+        assertTrue(control("rate").isPaused());
+        assertEquals("0 0 1 * * ?", control("cron").getCron());
+        assertEquals(-1L, control("cron").getPeriod(-1L));
+    }
+
+    @Test
+    public void noOverrideKeepsAnnotation() {
+        load();
+        assertEquals(1000L, control("delay").getPeriod(1000L));
+        assertEquals(1, control("delay").getFixedConcurrent());
+        assertNull(control("cron").getCron());
+    }
+
+    @Test
+    public void fixedRateOnCronRejected() {
+        properties.put(PREFIX + ".Tasks.cron.fixedRate", "4000");
+        assertRejected("Tasks.cron.fixedRate");
+    }
+
+    @Test
+    public void fixedRateOnFixedDelayRejected() {
+        properties.put(PREFIX + ".Tasks.delay.fixedRate", "4000");
+        assertRejected("Tasks.delay.fixedRate");
+    }
+
+    @Test
+    public void fixedDelayOnFixedRateRejected() {
+        properties.put(PREFIX + ".Tasks.rate.fixedDelay", "4000");
+        assertRejected("Tasks.rate.fixedDelay");
+    }
+
+    @Test
+    public void periodOnDynamicDelayRejected() {
+        properties.put(PREFIX + ".Tasks.dynamic.fixedRate", "4000");
+        assertRejected("Tasks.dynamic.fixedRate");
+    }
+
+    @Test
+    public void cronOnFixedDelayRejected() {
+        properties.put(PREFIX + ".Tasks.delay.cron", "0 0 1 * * ?");
+        assertRejected("Tasks.delay.cron");
+    }
+
+    @Test
+    public void concurrentMaxOnFixedConcurrentRejected() {
+        properties.put(PREFIX + ".Tasks.delay.dynamicConcurrentMax", "4");
+        assertRejected("Tasks.delay.dynamicConcurrentMax");
+    }
+
+    public static class Tasks {
+
+        @SuperScheduled(fixedDelay = 1000L)
+        public void delay() {
+        }
+
+        @SuperScheduled(fixedRate = 1000L)
+        public void rate() {
+        }
+
+        @SuperScheduled(cron = "0 0 0 * * ?")
+        public void cron() {
+        }
+
+        @SuperScheduled(dynamicDelay = true)
+        public long dynamic() {
+            return 1000L;
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package cn.emay.superscheduler.cluster;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 一致性哈希环：分片分布均匀，节点加入离开时只移动必要的分片
+ */
+public class ConsistentHashRingTest {
+
+    private static final int SHARDS = 10000;
+
+    /**
+     * 所有分片的归属
+     */
+    private static String[] locateAll(ConsistentHashRing ring) {
+        String[] owners = new String[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            owners[i] = ring.locate("task", "shard-" + i);
+        }
+        return owners;
+    }
+
+    @Test
+    public void emptyRing() {
+        assertNull(new ConsistentHashRing(Arrays.<String>asList()).locate("task", "shard"));
+    }
+
+    @Test
+    public void shardsSpreadAcrossNodes() {
+        String[] owners = locateAll(new ConsistentHashRing(Arrays.asList("a", "b", "c", "d")));
+        Map<String, Integer> counts = new HashMap<>();
+        for (String owner : owners) {
+            counts.merge(owner, 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        // 理想为每个节点1/4，允许±20%
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            int count = entry.getValue();
+            assertTrue(entry.getKey() + "=" + count, count > SHARDS / 4 * 0.8 && count < SHARDS / 4 * 1.2);
+        }
+    }
+
+    @Test
+    public void sameResultRegardlessOfNodeOrder() {
+        String[] forward = locateAll(new ConsistentHashRing(Arrays.asList("a", "b", "c")));
+        String[] backward = locateAll(new ConsistentHashRing(Arrays.asList("c", "b", "a")));
+        assertTrue(Arrays.equals(forward, backward));
+    }
+
+    @Test
+    public void joinMovesOnlyToNewNode() {
+        String[] before = locateAll(new ConsistentHashRing(Arrays.asList("a", "b", "c")));
+        String[] after = locateAll(new ConsistentHashRing(Arrays.asList("a", "b", "c", "d")));
+        int moved = 0;
+        for (int i = 0; i < SHARDS; i++) {
+            if (!before[i].equals(after[i])) {
+                assertEquals("shard-" + i, "d", after[i]);
+                moved++;
+            }
+        }
+        // 理想移动1/4，允许到1/3
+        assertTrue("moved=" + moved, moved > 0 && moved < SHARDS / 3);
+    }
+
+    @Test
+    public void leaveMovesOnlyLeavingNodeShards() {
+        String[] before = locateAll(new ConsistentHashRing(Arrays.asList("a", "b", "c", "d")));
+        String[] after = locateAll(new ConsistentHashRing(Arrays.asList("a", "b", "c")));
+        int moved = 0;
+        for (int i = 0; i < SHARDS; i++) {
+            if (!before[i].equals(after[i])) {
+                assertEquals("shard-" + i, "d", before[i]);
+                moved++;
+            } else {
+                assertFalse("d".equals(after[i]));
+            }
+        }
+        assertTrue("moved=" + moved, moved > 0 && moved < SHARDS / 3);
+    }
+
+}
@@ -0,0 +1,194 @@
+package cn.emay.superscheduler.cluster;
+
+import cn.emay.superscheduler.core.ClusterMembership;
+import cn.emay.superscheduler.task.cluster.HeartbeatTask;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 内存成员管理模拟三个节点：分片在节点间不重不漏，节点离开或宕机后由其余节点接管
+ */
+public class InMemoryClusterMembershipTest {
+
+    private static final int SHARDS = 3000;
+
+    private InMemoryClusterMembership membership;
+    private List<ClusterView> views;
+    private List<HeartbeatTask> heartbeats;
+
+    @Before
+    public void setUp() {
+        membership = new InMemoryClusterMembership();
+        views = new ArrayList<>();
+        heartbeats = new ArrayList<>();
+        for (String node : Arrays.asList("a", "b", "c")) {
+            ClusterView view = new ClusterView(node);
+            views.add(view);
+            heartbeats.add(new HeartbeatTask(membership, view, 60));
+        }
+        // 两轮心跳后所有节点看到完整集群
+        heartbeatAll();
+        heartbeatAll();
+    }
+
+    private void heartbeatAll() {
+        heartbeats.forEach(HeartbeatTask::run);
+    }
+
+    /**
+     * 每个分片在存活节点中恰好归属一个节点
+     *
+     * @return 各分片所属节点
+     */
+    private String[] assertExactlyOneOwner(List<ClusterView> live) {
+        String[] owners = new String[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            for (ClusterView view : live) {
+                if (view.isOwner("task", "shard-" + i)) {
+                    assertNull("shard-" + i + "只能归属一个节点", owners[i]);
+                    owners[i] = view.getNodeId();
+                }
+            }
+            assertNotNull("shard-" + i + "没有节点执行", owners[i]);
+        }
+        return owners;
+    }
+
+    @Test
+    public void allNodesSeeCluster() {
+        for (ClusterView view : views) {
+            assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(view.getNodes()));
+        }
+        String[] owners = assertExactlyOneOwner(views);
+        for (ClusterView view : views) {
+            assertTrue(Arrays.asList(owners).contains(view.getNodeId()));
+        }
+    }
+
+    @Test
+    public void failoverOnLeave() {
+        String[] before = assertExactlyOneOwner(views);
+        AtomicInteger changed = new AtomicInteger();
+        views.get(0).addListener(changed::incrementAndGet);
+        membership.leave("c");
+        List<ClusterView> live = views.subList(0, 2);
+        heartbeats.get(0).run();
+        heartbeats.get(1).run();
+        assertEquals(1, changed.get());
+        String[] after = assertExactlyOneOwner(live);
+        for (int i = 0; i < SHARDS; i++) {
+            if (!"c".equals(before[i])) {
+                assertEquals("shard-" + i + "不应移动", before[i], after[i]);
+            }
+        }
+    }
+
+    @Test
+    public void failoverOnExpire() {
+        String[] before = assertExactlyOneOwner(views);
+        // c宕机：不再心跳，保持时间到期
+        membership.expire("c");
+        heartbeats.get(0).run();
+        heartbeats.get(1).run();
+        assertFalse(views.get(0).getNodes().contains("c"));
+        String[] after = assertExactlyOneOwner(views.subList(0, 2));
+        int moved = 0;
+        for (int i = 0; i < SHARDS; i++) {
+            if (!before[i].equals(after[i])) {
+                assertEquals("c", before[i]);
+                moved++;
+            }
+        }
+        assertTrue(moved > 0);
+    }
+
+    @Test
+    public void keepLastViewWhenMembershipFails() {
+        String[] before = assertExactlyOneOwner(views);
+        FailingMembership failing = new FailingMembership(membership);
+        ClusterView view = views.get(0);
+        HeartbeatTask heartbeat = new HeartbeatTask(failing, view, 60);
+        AtomicInteger changed = new AtomicInteger();
+        view.addListener(changed::incrementAndGet);
+        failing.failing = true;
+        membership.leave("c");
+        // 成员管理不可用时心跳不抛出异常，视图保持不变，本节点继续执行原有的分片
+        heartbeat.run();
+        assertEquals(0, changed.get());
+        assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(view.getNodes()));
+        for (int i = 0; i < SHARDS; i++) {
+            assertEquals("a".equals(before[i]), view.isOwner("task", "shard-" + i));
+        }
+        // 恢复后下一次心跳刷新视图
+        failing.failing = false;
+        heartbeat.run();
+        heartbeats.get(1).run();
+        assertEquals(1, changed.get());
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(view.getNodes()));
+        assertExactlyOneOwner(views.subList(0, 2));
+    }
+
+    @Test
+    public void joinMovesLimitedShards() {
+        String[] before = assertExactlyOneOwner(views);
+        ClusterView d = new ClusterView("d");
+        HeartbeatTask heartbeat = new HeartbeatTask(membership, d, 60);
+        heartbeat.run();
+        views.add(d);
+        heartbeats.add(heartbeat);
+        heartbeatAll();
+        String[] after = assertExactlyOneOwner(views);
+        int moved = 0;
+        for (int i = 0; i < SHARDS; i++) {
+            if (!before[i].equals(after[i])) {
+                assertEquals("d", after[i]);
+                moved++;
+            }
+        }
+        assertTrue("moved=" + moved, moved > 0 && moved < SHARDS / 3);
+    }
+
+    /**
+     * 可以模拟存活节点查询失败的成员管理
+     */
+    private static class FailingMembership implements ClusterMembership {
+
+        private final ClusterMembership delegate;
+        private volatile boolean failing;
+
+        private FailingMembership(ClusterMembership delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean heartbeat(String nodeId, int seconds) {
+            return delegate.heartbeat(nodeId, seconds);
+        }
+
+        @Override
+        public Collection<String> getLiveNodes() {
+            if (failing) {
+                throw new IllegalStateException("membership unavailable");
+            }
+            return delegate.getLiveNodes();
+        }
+
+        @Override
+        public void leave(String nodeId) {
+            delegate.leave(nodeId);
+        }
+    }
+
+}
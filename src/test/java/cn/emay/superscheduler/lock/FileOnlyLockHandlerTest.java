@@ -0,0 +1,72 @@
+package cn.emay.superscheduler.lock;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 文件单节点锁，两个处理器共用一个临时目录模拟同一主机上的两个进程
+ */
+public class FileOnlyLockHandlerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileOnlyLockHandler first;
+    private FileOnlyLockHandler second;
+
+    @Before
+    public void setUp() throws IOException {
+        first = new FileOnlyLockHandler(folder.getRoot().toPath().resolve("locks"));
+        second = new FileOnlyLockHandler(folder.getRoot().toPath().resolve("locks"));
+    }
+
+    @Test
+    public void lockRenewAndCompete() {
+        assertEquals(1L, first.lockWithToken("a", "n1", 20));
+        assertEquals(1L, first.lockWithToken("a", "n1", 20));
+        assertEquals(-1L, second.lockWithToken("a", "n2", 20));
+        // 同一个处理器中其他节点同样竞争失败
+        assertEquals(-1L, first.lockWithToken("a", "n3", 20));
+    }
+
+    @Test
+    public void tokenIncreasesOnHandover() {
+        assertEquals(1L, first.lockWithToken("a", "n1", 20));
+        first.unLock("a", "n1");
+        assertEquals(2L, second.lockWithToken("a", "n2", 20));
+        second.unLock("a", "n2");
+        assertEquals(3L, first.lockWithToken("a", "n1", 20));
+    }
+
+    @Test
+    public void unlockOnlyOwn() {
+        assertTrue(first.lock("a", "n1", 20));
+        first.unLock("a", "n2");
+        second.unLock("a", "n2");
+        assertFalse(second.lock("a", "n2", 20));
+        first.unLock("a", "n1");
+        assertTrue(second.lock("a", "n2", 20));
+    }
+
+    @Test
+    public void batchLockAndSpecialNames() {
+        assertTrue(second.lock("a/b", "n2", 20));
+        Map<String, Long> locked = first.lock(Arrays.asList("a/b", "a:b", "c"), "n1", 20);
+        assertEquals(2, locked.size());
+        assertTrue(locked.containsKey("a:b"));
+        assertTrue(locked.containsKey("c"));
+        first.unLock(Arrays.asList("a/b", "a:b", "c"), "n1");
+        assertEquals(2, second.lock(Arrays.asList("a:b", "c"), "n2", 20).size());
+    }
+
+}
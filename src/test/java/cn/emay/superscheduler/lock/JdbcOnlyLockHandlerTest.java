@@ -0,0 +1,149 @@
+package cn.emay.superscheduler.lock;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 数据库单节点锁，使用H2内存数据库
+ */
+public class JdbcOnlyLockHandlerTest {
+
+    private JdbcDataSource dataSource;
+    /**
+     * 保持一个连接，内存数据库在测试期间不被销毁
+     */
+    private Connection keep;
+    private JdbcOnlyLockHandler handler;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        keep = dataSource.getConnection();
+        handler = new JdbcOnlyLockHandler(dataSource);
+        try (Statement statement = keep.createStatement()) {
+            statement.execute(handler.getCreateTableSql());
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        keep.close();
+    }
+
+    @Test
+    public void lockRenewAndCompete() {
+        assertEquals(1L, handler.lockWithToken("a", "n1", 20));
+        assertEquals(1L, handler.lockWithToken("a", "n1", 20));
+        assertEquals(-1L, handler.lockWithToken("a", "n2", 20));
+    }
+
+    @Test
+    public void takeOverAfterExpire() throws InterruptedException {
+        assertEquals(1L, handler.lockWithToken("a", "n1", 0));
+        Thread.sleep(5L);
+        assertEquals(2L, handler.lockWithToken("a", "n2", 20));
+        assertEquals(-1L, handler.lockWithToken("a", "n1", 20));
+    }
+
+    @Test
+    public void tokenNeverGoesBackAfterUnlock() throws SQLException {
+        assertEquals(1L, handler.lockWithToken("a", "n1", 20));
+        handler.unLock("a", "n1");
+        assertEquals(2L, handler.lockWithToken("a", "n2", 20));
+        handler.unLock("a", "n2");
+        assertEquals(3L, handler.lockWithToken("a", "n1", 20));
+        try (Statement statement = keep.createStatement(); ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + JdbcOnlyLockHandler.DEFAULT_TABLE)) {
+            resultSet.next();
+            assertEquals(1, resultSet.getInt(1));
+        }
+    }
+
+    @Test
+    public void unlockOnlyOwn() {
+        handler.lock("a", "n1", 20);
+        handler.unLock("a", "n2");
+        assertFalse(handler.lock("a", "n2", 20));
+        handler.unLock("a", "n1");
+        assertTrue(handler.lock("a", "n2", 20));
+    }
+
+    @Test
+    public void batchLock() {
+        handler.lock("b", "n2", 20);
+        Map<String, Long> locked = handler.lock(Arrays.asList("a", "b", "c"), "n1", 20);
+        assertEquals(2, locked.size());
+        assertEquals(Long.valueOf(1L), locked.get("a"));
+        assertNull(locked.get("b"));
+        assertEquals(Long.valueOf(1L), locked.get("c"));
+        assertEquals(locked, handler.lock(Arrays.asList("a", "b", "c"), "n1", 20));
+    }
+
+    @Test
+    public void batchWithoutUpdateCounts() {
+        // 模拟批量执行只返回SUCCESS_NO_INFO的驱动
+        JdbcOnlyLockHandler noInfo = new JdbcOnlyLockHandler(noInfoDataSource(dataSource));
+        handler.lock("b", "n2", 20);
+        Map<String, Long> locked = noInfo.lock(Arrays.asList("a", "b"), "n1", 20);
+        assertEquals(1, locked.size());
+        assertEquals(Long.valueOf(1L), locked.get("a"));
+        assertEquals(locked, noInfo.lock(Arrays.asList("a", "b"), "n1", 20));
+    }
+
+    /**
+     * executeBatch只返回SUCCESS_NO_INFO的数据源
+     */
+    private static DataSource noInfoDataSource(DataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            if (!(result instanceof Connection)) {
+                return result;
+            }
+            Connection connection = (Connection) result;
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (connectionProxy, connectionMethod, connectionArgs) -> {
+                Object value = invoke(connection, connectionMethod, connectionArgs);
+                if (!(value instanceof PreparedStatement)) {
+                    return value;
+                }
+                PreparedStatement statement = (PreparedStatement) value;
+                return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, (statementProxy, statementMethod, statementArgs) -> {
+                    Object counts = invoke(statement, statementMethod, statementArgs);
+                    if ("executeBatch".equals(statementMethod.getName())) {
+                        int[] noInfo = new int[((int[]) counts).length];
+                        Arrays.fill(noInfo, Statement.SUCCESS_NO_INFO);
+                        return noInfo;
+                    }
+                    return counts;
+                });
+            });
+        });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
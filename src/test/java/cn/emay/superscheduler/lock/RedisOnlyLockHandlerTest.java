@@ -0,0 +1,142 @@
+package cn.emay.superscheduler.lock;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Redis单节点锁，使用本地嵌入式Redis
+ */
+public class RedisOnlyLockHandlerTest {
+
+    private static final String PREFIX = "TEST_LOCK_";
+
+    private static RedisServer server;
+    private static JedisPool pool;
+
+    private RedisOnlyLockHandler handler;
+
+    @BeforeClass
+    public static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new RedisServer(port);
+        server.start();
+        pool = new JedisPool(new JedisPoolConfig(), "127.0.0.1", port);
+    }
+
+    @AfterClass
+    public static void stopRedis() {
+        if (pool != null) {
+            pool.close();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        try (Jedis jedis = pool.getResource()) {
+            jedis.flushAll();
+        }
+        handler = new RedisOnlyLockHandler(pool, PREFIX);
+    }
+
+    @Test
+    public void lockRenewAndCompete() {
+        assertEquals(1L, handler.lockWithToken("a", "n1", 20));
+        assertEquals(1L, handler.lockWithToken("a", "n1", 20));
+        assertEquals(-1L, handler.lockWithToken("a", "n2", 20));
+        try (Jedis jedis = pool.getResource()) {
+            long ttl = jedis.pttl(PREFIX + "a");
+            assertTrue("ttl=" + ttl, ttl > 10000L && ttl <= 20000L);
+        }
+    }
+
+    @Test
+    public void tokenIncreasesOnHandover() {
+        assertEquals(1L, handler.lockWithToken("a", "n1", 20));
+        handler.unLock("a", "n1");
+        assertEquals(2L, handler.lockWithToken("a", "n2", 20));
+        handler.unLock("a", "n2");
+        assertEquals(3L, handler.lockWithToken("a", "n1", 20));
+    }
+
+    @Test
+    public void unlockOnlyOwn() {
+        handler.lock("a", "n1", 20);
+        handler.unLock("a", "n2");
+        assertFalse(handler.lock("a", "n2", 20));
+        handler.unLock("a", "n1");
+        assertTrue(handler.lock("a", "n2", 20));
+    }
+
+    @Test
+    public void batchLock() {
+        handler.lock("b", "n2", 20);
+        Map<String, Long> locked = handler.lock(Arrays.asList("a", "b", "c"), "n1", 20);
+        assertEquals(2, locked.size());
+        assertEquals(Long.valueOf(1L), locked.get("a"));
+        assertNull(locked.get("b"));
+        assertEquals(Long.valueOf(1L), locked.get("c"));
+        handler.unLock(Arrays.asList("a", "b", "c"), "n1");
+        assertTrue(handler.lock(Arrays.asList("a", "c"), "n2", 20).keySet().containsAll(Arrays.asList("a", "c")));
+    }
+
+    @Test
+    public void legacyStringKeyFailsOnlyThatLock() {
+        try (Jedis jedis = pool.getResource()) {
+            jedis.setex(PREFIX + "old", 20, "legacy-node");
+            jedis.lpush(PREFIX + "list", "x");
+        }
+        Map<String, Long> locked = handler.lock(Arrays.asList("old", "list", "new"), "n1", 20);
+        assertEquals(1, locked.size());
+        assertEquals(Long.valueOf(1L), locked.get("new"));
+        // 旧格式的锁不能被释放其他节点的锁
+        handler.unLock(Arrays.asList("old", "list", "new"), "n1");
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals("legacy-node", jedis.get(PREFIX + "old"));
+        }
+    }
+
+    @Test
+    public void legacyOwnStringKeyMigrated() {
+        try (Jedis jedis = pool.getResource()) {
+            jedis.setex(PREFIX + "old", 20, "n1");
+        }
+        assertEquals(1L, handler.lockWithToken("old", "n1", 20));
+        try (Jedis jedis = pool.getResource()) {
+            assertEquals("hash", jedis.type(PREFIX + "old"));
+        }
+    }
+
+    @Test
+    public void reloadScriptAfterFlush() {
+        assertTrue(handler.lock("a", "n1", 20));
+        try (Jedis jedis = pool.getResource()) {
+            jedis.scriptFlush();
+        }
+        assertTrue(handler.lock("a", "n1", 20));
+        handler.unLock("a", "n1");
+        assertTrue(handler.lock("a", "n2", 20));
+    }
+
+}
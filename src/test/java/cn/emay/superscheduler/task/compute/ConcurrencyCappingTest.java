@@ -0,0 +1,129 @@
+package cn.emay.superscheduler.task.compute;
+
+import cn.emay.superscheduler.base.ShardConcurrency;
+import cn.emay.superscheduler.core.CappingType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 并发上限截断，每种策略的分配结果精确确定
+ */
+public class ConcurrencyCappingTest {
+
+    /**
+     * 按给定顺序填入所需并发数，分片名与并发数交替
+     */
+    private static ShardConcurrency need(Object... pairs) {
+        ShardConcurrency need = new ShardConcurrency();
+        for (int i = 0; i < pairs.length; i += 2) {
+            need.set((String) pairs[i], (Integer) pairs[i + 1]);
+        }
+        return need;
+    }
+
+    private static void assertGranted(ShardConcurrency need, int a, int b, int c) {
+        assertEquals("a", a, need.get("a"));
+        assertEquals("b", b, need.get("b"));
+        assertEquals("c", c, need.get("c"));
+    }
+
+    @Test
+    public void notCappedWithinMax() {
+        ShardConcurrency need = need("a", 1, "b", 2, "c", 3);
+        new ConcurrencyCapping(CappingType.FIRST_COME).cap(need, 6);
+        assertGranted(need, 1, 2, 3);
+        new ConcurrencyCapping(CappingType.FIRST_COME).cap(need, 0);
+        assertGranted(need, 1, 2, 3);
+    }
+
+    @Test
+    public void firstComeByShardName() {
+        ShardConcurrency need = need("c", 3, "b", 3, "a", 3);
+        new ConcurrencyCapping(CappingType.FIRST_COME).cap(need, 5);
+        assertGranted(need, 3, 2, 0);
+        assertEquals(5, need.total());
+    }
+
+    @Test
+    public void proportionalLargestRemainder() {
+        // 4*1/6=0.67, 4*2/6=1.33, 4*3/6=2，余数1给小数部分最大的a
+        ShardConcurrency need = need("a", 1, "b", 2, "c", 3);
+        new ConcurrencyCapping(CappingType.PROPORTIONAL).cap(need, 4);
+        assertGranted(need, 1, 1, 2);
+    }
+
+    @Test
+    public void proportionalTieByShardName() {
+        // 小数部分相同，余数2按分片名给a、b
+        ShardConcurrency need = need("c", 1, "a", 1, "b", 1);
+        new ConcurrencyCapping(CappingType.PROPORTIONAL).cap(need, 2);
+        assertGranted(need, 1, 1, 0);
+    }
+
+    @Test
+    public void maxMinFairSmallDemandFirst() {
+        // a只需要1，余量由b、c平分
+        ShardConcurrency need = need("a", 1, "b", 5, "c", 5);
+        new ConcurrencyCapping(CappingType.MAX_MIN_FAIR).cap(need, 7);
+        assertGranted(need, 1, 3, 3);
+    }
+
+    @Test
+    public void maxMinFairRemainderByShardName() {
+        // 每个分片2个，剩余1个按分片名给a
+        ShardConcurrency need = need("b", 5, "c", 5, "a", 5);
+        new ConcurrencyCapping(CappingType.MAX_MIN_FAIR).cap(need, 7);
+        assertGranted(need, 3, 2, 2);
+    }
+
+    @Test
+    public void backlogWeighted() {
+        // 权重300:100:1，注水后a5 b1，再a1，最后剩余1个按权重给a
+        ShardConcurrency need = need("a", 10, "b", 10, "c", 10);
+        need.setBacklog("a", 300L);
+        need.setBacklog("b", 100L);
+        new ConcurrencyCapping(CappingType.BACKLOG_WEIGHTED).cap(need, 8);
+        assertGranted(need, 7, 1, 0);
+    }
+
+    @Test
+    public void backlogWeightedWithoutBacklogIsMaxMinFair() {
+        ShardConcurrency need = need("a", 5, "b", 5, "c", 5);
+        new ConcurrencyCapping(CappingType.BACKLOG_WEIGHTED).cap(need, 7);
+        assertGranted(need, 3, 2, 2);
+    }
+
+    @Test
+    public void priorityHigherFirst() {
+        // 优先级1的b、c先满足，剩余1个给a
+        ShardConcurrency need = need("a", 3, "b", 3, "c", 2);
+        need.setPriority("b", 1);
+        need.setPriority("c", 1);
+        new ConcurrencyCapping(CappingType.PRIORITY).cap(need, 6);
+        assertGranted(need, 1, 3, 2);
+    }
+
+    @Test
+    public void priorityFairWithinGroup() {
+        // 同一优先级内最大最小公平，余数按分片名
+        ShardConcurrency need = need("a", 3, "b", 3, "c", 3);
+        need.setPriority("b", 1);
+        need.setPriority("c", 1);
+        new ConcurrencyCapping(CappingType.PRIORITY).cap(need, 3);
+        assertGranted(need, 0, 2, 1);
+    }
+
+    @Test
+    public void resultIndependentOfInsertionOrder() {
+        for (CappingType type : CappingType.values()) {
+            ShardConcurrency forward = need("a", 4, "b", 3, "c", 2);
+            ShardConcurrency backward = need("c", 2, "b", 3, "a", 4);
+            new ConcurrencyCapping(type).cap(forward, 5);
+            new ConcurrencyCapping(type).cap(backward, 5);
+            assertEquals(type.name(), forward.asMap(), backward.asMap());
+            assertEquals(type.name(), 5, forward.total());
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+package cn.emay.superscheduler.task.lock;
+
+import cn.emay.superscheduler.SuperExecutor;
+import cn.emay.superscheduler.base.LockTable;
+import cn.emay.superscheduler.base.TaskLock;
+import cn.emay.superscheduler.cluster.ClusterView;
+import cn.emay.superscheduler.core.OnlyLockHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 竞争单节点锁任务：批量续期、失去锁、注销释放，以及竞争期间注销的锁不会重新标记为持有
+ */
+public class GetLockTaskTest {
+
+    private ThreadPoolTaskScheduler scheduler;
+    private SuperExecutor executor;
+    private LockTable table;
+    private MemoryLockHandler handler;
+    private GetLockTask task;
+
+    @Before
+    public void setUp() {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        executor = new SuperExecutor(scheduler);
+        table = executor.getLockTable();
+        handler = new MemoryLockHandler();
+        task = new GetLockTask(handler, "n1", executor, 20, 3000L);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void acquireAndRenewKeepsToken() {
+        TaskLock lock = table.get("k");
+        task.run();
+        assertTrue(lock.isHeld());
+        assertTrue(lock.isValid());
+        assertEquals(1L, lock.getToken());
+        task.run();
+        assertTrue(lock.isHeld());
+        assertEquals(1L, lock.getToken());
+    }
+
+    @Test
+    public void lostWhenOtherNodeHolds() {
+        TaskLock lock = table.get("k");
+        task.run();
+        assertTrue(lock.isHeld());
+        handler.owners.put("k", "n2");
+        task.run();
+        assertFalse(lock.isHeld());
+        assertEquals(-1L, lock.getToken());
+    }
+
+    @Test
+    public void releasedLockUnlockedNextRound() {
+        table.get("k");
+        task.run();
+        table.release("k");
+        task.run();
+        assertEquals(Arrays.asList("k"), handler.unlocked);
+        assertNull(handler.owners.get("k"));
+    }
+
+    @Test
+    public void releasedDuringRoundNotMarkedHeld() {
+        TaskLock lock = table.get("k");
+        AtomicInteger changes = new AtomicInteger();
+        lock.addListener(changes::incrementAndGet);
+        handler.beforeLock = () -> table.release("k");
+        task.run();
+        // 本轮抢到了存储中的锁，但锁已注销，不能恢复挂起的任务
+        assertFalse(lock.isHeld());
+        assertEquals(0, changes.get());
+        assertNull(table.find("k"));
+        handler.beforeLock = null;
+        task.run();
+        assertEquals(Arrays.asList("k"), handler.unlocked);
+        assertNull(handler.owners.get("k"));
+    }
+
+    @Test
+    public void heldLockReleasedDuringRoundUnlockedOnce() {
+        TaskLock lock = table.get("k");
+        task.run();
+        assertTrue(lock.isHeld());
+        handler.beforeLock = () -> table.release("k");
+        task.run();
+        assertFalse(lock.isHeld());
+        handler.beforeLock = null;
+        task.run();
+        task.run();
+        assertEquals(Arrays.asList("k"), handler.unlocked);
+    }
+
+    @Test
+    public void fairShareWithCluster() {
+        ClusterView view = new ClusterView("n1");
+        view.update(Arrays.asList("n1", "n2"));
+        executor.setClusterView(view);
+        List<TaskLock> locks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            locks.add(table.get("k" + i));
+        }
+        task.run();
+        int held = 0;
+        int owned = 0;
+        for (TaskLock lock : locks) {
+            if (view.isOwner(lock.getKey(), "")) {
+                // 归属本节点的锁全部竞争
+                assertTrue(lock.getKey(), lock.isHeld());
+                owned++;
+            }
+            if (lock.isHeld()) {
+                held++;
+            }
+        }
+        // 不归属本节点的锁只补足到平均份额
+        assertEquals(Math.max(owned, 4), held);
+    }
+
+    /**
+     * 内存中的锁，每次易主token加1
+     */
+    private static class MemoryLockHandler implements OnlyLockHandler {
+
+        private final Map<String, String> owners = new HashMap<>();
+        private final Map<String, Long> tokens = new HashMap<>();
+        private final List<String> unlocked = new ArrayList<>();
+        /**
+         * 竞争前回调，模拟竞争期间其他线程的操作
+         */
+        private volatile Runnable beforeLock;
+
+        @Override
+        public boolean lock(String onlyLockName, String nodeId, int seconds) {
+            return lockWithToken(onlyLockName, nodeId, seconds) >= 0L;
+        }
+
+        @Override
+        public synchronized long lockWithToken(String onlyLockName, String nodeId, int seconds) {
+            String owner = owners.get(onlyLockName);
+            if (owner == null) {
+                owners.put(onlyLockName, nodeId);
+                return tokens.merge(onlyLockName, 1L, Long::sum);
+            }
+            return owner.equals(nodeId) ? tokens.get(onlyLockName) : -1L;
+        }
+
+        @Override
+        public Map<String, Long> lock(Collection<String> onlyLockNames, String nodeId, int seconds) {
+            Runnable hook = beforeLock;
+            if (hook != null) {
+                hook.run();
+            }
+            return OnlyLockHandler.super.lock(onlyLockNames, nodeId, seconds);
+        }
+
+        @Override
+        public synchronized void unLock(String onlyLockName, String nodeId) {
+            if (nodeId.equals(owners.get(onlyLockName))) {
+                owners.remove(onlyLockName);
+            }
+            unlocked.add(onlyLockName);
+        }
+    }
+
+}